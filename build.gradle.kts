@@ -24,6 +24,25 @@ repositories {
 	mavenCentral()
 }
 
+// Microbenchmarks live in src/jmh/java and see the main classes; run with ./gradlew jmh
+val jmh by sourceSets.creating {
+	compileClasspath += sourceSets.main.get().output
+	runtimeClasspath += sourceSets.main.get().output
+}
+
+configurations[jmh.implementationConfigurationName].extendsFrom(configurations.implementation.get())
+configurations[jmh.runtimeOnlyConfigurationName].extendsFrom(configurations.runtimeOnly.get())
+
+// Load-test harness in src/loadTest/java: boots the app on H2 with the test profile; run with ./gradlew loadTest
+val loadTest by sourceSets.creating {
+	compileClasspath += sourceSets.main.get().output
+	runtimeClasspath += sourceSets.main.get().output
+	resources.srcDir("src/test/resources")
+}
+
+configurations[loadTest.implementationConfigurationName].extendsFrom(configurations.testImplementation.get())
+configurations[loadTest.runtimeOnlyConfigurationName].extendsFrom(configurations.testRuntimeOnly.get())
+
 dependencies {
     implementation("org.springframework.boot:spring-boot-starter-web")
     implementation("org.springframework.boot:spring-boot-starter-actuator")
@@ -31,18 +50,57 @@ dependencies {
     implementation("org.springframework.boot:spring-boot-starter-jdbc")
     implementation("org.springframework.boot:spring-boot-starter-cache")
     implementation("org.springframework.boot:spring-boot-starter-data-redis")
+    implementation("com.github.ben-manes.caffeine:caffeine")
     implementation("org.flywaydb:flyway-core:10.17.2")
     implementation("org.flywaydb:flyway-database-postgresql:10.17.2")
     implementation("org.springdoc:springdoc-openapi-starter-webmvc-ui:2.6.0")
     implementation("com.uber:h3:3.7.2")
+    compileOnly("org.postgresql:postgresql")
     runtimeOnly("org.postgresql:postgresql")
     runtimeOnly("net.logstash.logback:logstash-logback-encoder:7.4")
     testImplementation("org.springframework.boot:spring-boot-starter-test")
     testImplementation("com.h2database:h2")
+    testImplementation("org.postgresql:postgresql")
+    testImplementation("org.testcontainers:junit-jupiter")
+    testImplementation("org.testcontainers:postgresql")
     testRuntimeOnly("org.junit.platform:junit-platform-launcher")
     testRuntimeOnly("net.logstash.logback:logstash-logback-encoder:7.4")
+    "jmhImplementation"("org.openjdk.jmh:jmh-core:1.37")
+    "jmhImplementation"("com.h2database:h2")
+    "jmhImplementation"("org.mockito:mockito-core")
+    "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:1.37")
 }
 
 tasks.withType<Test> {
 	useJUnitPlatform()
 }
+
+// Results go to build/reports/jmh/results.json (JMH JSON, comparable across builds with any JMH visualizer or diff).
+// Pass JMH options with -PjmhArgs, e.g. -PjmhArgs="H3HeatmapV2Benchmark -p cells=100000 -f 1"
+tasks.register<JavaExec>("jmh") {
+	group = "verification"
+	description = "Runs the JMH benchmarks in src/jmh/java"
+	classpath = jmh.runtimeClasspath
+	mainClass = "org.openjdk.jmh.Main"
+	val results = layout.buildDirectory.file("reports/jmh/results.json")
+	outputs.file(results)
+	outputs.upToDateWhen { false }
+	args("-rf", "json", "-rff", results.get().asFile.absolutePath)
+	(findProperty("jmhArgs") as String?)?.let { args(it.split(" ").filter(String::isNotBlank)) }
+	doFirst { results.get().asFile.parentFile.mkdirs() }
+}
+
+// Not part of check. Tune with -Ploadtest.<option>=<value> (see README); the report is printed and written to
+// build/reports/loadtest/report.json
+tasks.register<Test>("loadTest") {
+	group = "verification"
+	description = "Replays map viewport traffic against the embedded app and reports latency, throughput and cache hits"
+	testClassesDirs = loadTest.output.classesDirs
+	classpath = loadTest.runtimeClasspath
+	useJUnitPlatform()
+	maxHeapSize = "2g"
+	outputs.upToDateWhen { false }
+	testLogging.showStandardStreams = true
+	systemProperty("loadtest.reportFile", layout.buildDirectory.file("reports/loadtest/report.json").get().asFile.absolutePath)
+	project.properties.filterKeys { it.startsWith("loadtest.") }.forEach { (k, v) -> systemProperty(k, v.toString()) }
+}
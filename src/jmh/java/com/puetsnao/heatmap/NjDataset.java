@@ -0,0 +1,76 @@
+package com.puetsnao.heatmap;
+
+import com.uber.h3core.H3Core;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Synthetic H10 day bucket shaped like the dev NJ seed ({@code DevDatasetLoader}): stations spread uniformly over
+ * the NJ box, one H10 cell per station, 24 hourly prices per product around the product base price and hourly
+ * sales of 50-350 units. Generation is seeded, so every run and every build measures the same data.
+ */
+public final class NjDataset {
+
+    public static final double MIN_LAT = 39.5;
+    public static final double MAX_LAT = 41.4;
+    public static final double MIN_LON = -75.6;
+    public static final double MAX_LON = -73.9;
+    public static final String STATE_BBOX = MIN_LAT + "," + MIN_LON + "," + MAX_LAT + "," + MAX_LON;
+    // roughly the Newark / Jersey City viewport at city zoom
+    public static final String CITY_BBOX = "40.65,-74.30,40.80,-74.02";
+
+    private static final int PRODUCTS = 3;
+    private static final double[] BASE_PRICE = {3.459, 3.899, 4.159};
+
+    public final long[] cells;
+    public final double[] priceSums;
+    public final long[] priceCounts;
+    public final double[] volumeSums;
+
+    private NjDataset(long[] cells, double[] priceSums, long[] priceCounts, double[] volumeSums) {
+        this.cells = cells;
+        this.priceSums = priceSums;
+        this.priceCounts = priceCounts;
+        this.volumeSums = volumeSums;
+    }
+
+    public static NjDataset generate(int cellCount) {
+        H3Core h3;
+        try {
+            h3 = H3Core.newInstance();
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot initialize H3Core", e);
+        }
+        Random random = new Random(42);
+        Set<Long> distinct = new HashSet<>(cellCount * 2);
+        while (distinct.size() < cellCount) {
+            double lat = MIN_LAT + random.nextDouble() * (MAX_LAT - MIN_LAT);
+            double lon = MIN_LON + random.nextDouble() * (MAX_LON - MIN_LON);
+            distinct.add(h3.geoToH3(lat, lon, 10));
+        }
+        long[] cells = distinct.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(cells);
+
+        double[] priceSums = new double[cellCount];
+        long[] priceCounts = new long[cellCount];
+        double[] volumeSums = new double[cellCount];
+        for (int i = 0; i < cellCount; i++) {
+            for (int p = 0; p < PRODUCTS; p++) {
+                for (int hour = 0; hour < 24; hour++) {
+                    priceSums[i] += BASE_PRICE[p] + random.nextDouble() * 0.2 - 0.1;
+                    volumeSums[i] += 50 + random.nextInt(300) + random.nextDouble();
+                }
+            }
+            priceCounts[i] = PRODUCTS * 24L;
+        }
+        return new NjDataset(cells, priceSums, priceCounts, volumeSums);
+    }
+
+    public int size() {
+        return cells.length;
+    }
+}
@@ -0,0 +1,106 @@
+package com.puetsnao.heatmap.api;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.puetsnao.heatmap.NjDataset;
+import com.puetsnao.heatmap.domain.H3CellPoint;
+import com.puetsnao.heatmap.domain.H3CellPointList;
+import com.puetsnao.heatmap.domain.H3CellValues;
+import com.puetsnao.heatmap.domain.H3Cells;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response body serialization for the same cells: v1 points as records and as the columnar
+ * {@link H3CellPointList}, the generic {@code [cell, value]} pair list and the v2 {@link H3CellValues}
+ * serializer that formats cells at write time, and the columnar binary body.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SerializationBenchmark {
+
+    @Param({"10000", "100000"})
+    public int cells;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final H3CellValuesBinaryConverter binary = new H3CellValuesBinaryConverter();
+    private List<H3CellPoint> points;
+    private List<Object[]> pairs;
+    private H3CellValues values;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        NjDataset data = NjDataset.generate(cells);
+        points = new ArrayList<>(cells);
+        pairs = new ArrayList<>(cells);
+        double[] averages = new double[cells];
+        for (int i = 0; i < cells; i++) {
+            String cell = H3Cells.format(data.cells[i]);
+            averages[i] = data.priceSums[i] / data.priceCounts[i];
+            points.add(new H3CellPoint(cell, 10, averages[i]));
+            pairs.add(new Object[]{cell, averages[i]});
+        }
+        values = new H3CellValues(data.cells, averages);
+    }
+
+    @Benchmark
+    public byte[] cellPoints() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(points);
+    }
+
+    @Benchmark
+    public byte[] cellPointList() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(new H3CellPointList(10, values));
+    }
+
+    @Benchmark
+    public byte[] objectPairs() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(pairs);
+    }
+
+    @Benchmark
+    public byte[] cellValues() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(values);
+    }
+
+    @Benchmark
+    public byte[] cellValuesBinary() throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(16 + 12 * values.size());
+        HttpHeaders headers = new HttpHeaders();
+        binary.write(values, H3CellValuesBinaryConverter.MEDIA_TYPE, new HttpOutputMessage() {
+            @Override
+            public OutputStream getBody() {
+                return body;
+            }
+
+            @Override
+            public HttpHeaders getHeaders() {
+                return headers;
+            }
+        });
+        return body.toByteArray();
+    }
+}
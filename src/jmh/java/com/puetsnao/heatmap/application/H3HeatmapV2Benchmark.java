@@ -0,0 +1,75 @@
+package com.puetsnao.heatmap.application;
+
+import com.puetsnao.heatmap.NjDataset;
+import com.puetsnao.heatmap.domain.BucketGranularity;
+import com.puetsnao.heatmap.domain.H3CellValues;
+import com.puetsnao.heatmap.domain.Metric;
+import com.puetsnao.heatmap.infrastructure.summary.BboxPushdownProperties;
+import com.puetsnao.heatmap.infrastructure.summary.H3CellSums;
+import com.puetsnao.heatmap.infrastructure.summary.H3CentroidIndex;
+import com.puetsnao.heatmap.infrastructure.summary.H3SummaryRepository;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.mockito.Mockito;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Uncached v2 aggregation: H10 rollup to the requested resolution, bbox slice and price averaging.
+ * The repository returns a prebuilt bucket, so only the in-memory work is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class H3HeatmapV2Benchmark {
+
+    private static final String DAY = "2025-09-08";
+
+    @Param({"10000", "100000", "1000000"})
+    public int cells;
+
+    @Param({"7", "9"})
+    public int resolution;
+
+    private DefaultH3HeatmapV2Service service;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        NjDataset data = NjDataset.generate(cells);
+        H3CellSums.Builder price = H3CellSums.builder(cells);
+        for (int i = 0; i < cells; i++) price.add(data.cells[i], data.priceSums[i], data.priceCounts[i]);
+        H3CellSums bucket = price.build();
+        // stub-only: invocations are not recorded, so the mock costs the same on every benchmark call
+        H3SummaryRepository repository = Mockito.mock(H3SummaryRepository.class, Mockito.withSettings().stubOnly());
+        Mockito.when(repository.h10PriceByDay(Mockito.any(LocalDate.class))).thenReturn(bucket);
+        H3CentroidIndex centroidIndex = new H3CentroidIndex(null);
+        centroidIndex.rebuild(data.cells);
+        service = new DefaultH3HeatmapV2Service(repository, new H3BucketSums(repository), centroidIndex,
+                new BboxPushdownProperties(false, null, null));
+    }
+
+    @Benchmark
+    public H3CellValues stateViewport() {
+        return service.queryPairs(Metric.PRICE, resolution, BucketGranularity.DAY, DAY, NjDataset.STATE_BBOX);
+    }
+
+    @Benchmark
+    public H3CellValues cityViewport() {
+        return service.queryPairs(Metric.PRICE, resolution, BucketGranularity.DAY, DAY, NjDataset.CITY_BBOX);
+    }
+}
@@ -0,0 +1,88 @@
+package com.puetsnao.heatmap.infrastructure.summary;
+
+import com.puetsnao.heatmap.NjDataset;
+import com.puetsnao.heatmap.domain.H3CellValues;
+import com.puetsnao.heatmap.domain.H3Cells;
+import org.h2.tools.SimpleResultSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Row mapping in {@link DefaultH3SummaryRepository} over an in-memory result set, i.e. the JVM side of a
+ * summary read without the database round trip.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SummaryExtractorBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    private SimpleResultSet cellValueRows;
+    private SimpleResultSet priceRows;
+    private SimpleResultSet volumeRows;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        NjDataset data = NjDataset.generate(rows);
+        cellValueRows = resultSet();
+        cellValueRows.addColumn("h3_cell", Types.VARCHAR, 15, 0);
+        cellValueRows.addColumn("value", Types.DECIMAL, 20, 6);
+        priceRows = resultSet();
+        priceRows.addColumn("h3_cell", Types.VARCHAR, 15, 0);
+        priceRows.addColumn("price_sum", Types.DOUBLE, 17, 0);
+        priceRows.addColumn("price_count", Types.BIGINT, 19, 0);
+        volumeRows = resultSet();
+        volumeRows.addColumn("h3_cell", Types.VARCHAR, 15, 0);
+        volumeRows.addColumn("volume_sum", Types.DOUBLE, 17, 0);
+        for (int i = 0; i < rows; i++) {
+            String cell = H3Cells.format(data.cells[i]);
+            cellValueRows.addRow(cell, BigDecimal.valueOf(data.priceSums[i] / data.priceCounts[i]));
+            priceRows.addRow(cell, data.priceSums[i], data.priceCounts[i]);
+            volumeRows.addRow(cell, data.volumeSums[i]);
+        }
+    }
+
+    @Benchmark
+    public H3CellValues cellValues() throws SQLException {
+        cellValueRows.beforeFirst();
+        return DefaultH3SummaryRepository.cellValues(cellValueRows);
+    }
+
+    @Benchmark
+    public H3CellSums priceSums() throws SQLException {
+        priceRows.beforeFirst();
+        return DefaultH3SummaryRepository.priceSums(priceRows);
+    }
+
+    @Benchmark
+    public H3CellSums volumeSums() throws SQLException {
+        volumeRows.beforeFirst();
+        return DefaultH3SummaryRepository.volumeSums(volumeRows);
+    }
+
+    private static SimpleResultSet resultSet() {
+        SimpleResultSet rs = new SimpleResultSet();
+        rs.setAutoClose(false);
+        return rs;
+    }
+}
@@ -0,0 +1,34 @@
+package com.puetsnao.shared.http;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ETag for a v2 request, built on every call including 304 revalidations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EtagBenchmark {
+
+    private final DefaultEtagService etagService = new DefaultEtagService();
+    private final String version = "2025-09-08";
+    private final String bbox = "40.65,-74.30,40.80,-74.02";
+
+    @Benchmark
+    public String buildWeak() {
+        return etagService.buildWeak("heatmap:h3:v2", "price", "7", "day", version, bbox);
+    }
+}
@@ -0,0 +1,123 @@
+package com.puetsnao.heatmap.loadtest;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decorates every cache of the delegate with hit/miss counters. A {@code get(key, loader)} counts as a miss when
+ * the loader runs, which is what a {@code sync = true} {@code @Cacheable} miss looks like from the outside.
+ */
+final class CountingCacheManager implements CacheManager {
+
+    private final CacheManager delegate;
+    private final Map<String, CountingCache> caches = new ConcurrentHashMap<>();
+
+    CountingCacheManager(CacheManager delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, n -> {
+            Cache cache = delegate.getCache(n);
+            return cache != null ? new CountingCache(cache) : null;
+        });
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return delegate.getCacheNames();
+    }
+
+    void reset() {
+        caches.values().forEach(CountingCache::reset);
+    }
+
+    /**
+     * Hit ratio per cache name since the last {@link #reset()}.
+     */
+    Map<String, Double> hitRatios() {
+        Map<String, Double> ratios = new TreeMap<>();
+        caches.forEach((name, cache) -> {
+            long gets = cache.gets.sum();
+            if (gets > 0) ratios.put(name, 1.0 - (double) cache.misses.sum() / gets);
+        });
+        return ratios;
+    }
+
+    private static final class CountingCache implements Cache {
+
+        private final Cache delegate;
+        private final LongAdder gets = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+
+        CountingCache(Cache delegate) {
+            this.delegate = delegate;
+        }
+
+        void reset() {
+            gets.reset();
+            misses.reset();
+        }
+
+        @Override
+        public String getName() {
+            return delegate.getName();
+        }
+
+        @Override
+        public Object getNativeCache() {
+            return delegate.getNativeCache();
+        }
+
+        @Override
+        public ValueWrapper get(Object key) {
+            ValueWrapper value = delegate.get(key);
+            record(value != null);
+            return value;
+        }
+
+        @Override
+        public <T> T get(Object key, Class<T> type) {
+            T value = delegate.get(key, type);
+            record(value != null);
+            return value;
+        }
+
+        @Override
+        public <T> T get(Object key, Callable<T> valueLoader) {
+            gets.increment();
+            return delegate.get(key, () -> {
+                misses.increment();
+                return valueLoader.call();
+            });
+        }
+
+        @Override
+        public void put(Object key, Object value) {
+            delegate.put(key, value);
+        }
+
+        @Override
+        public void evict(Object key) {
+            delegate.evict(key);
+        }
+
+        @Override
+        public void clear() {
+            delegate.clear();
+        }
+
+        private void record(boolean hit) {
+            gets.increment();
+            if (!hit) misses.increment();
+        }
+    }
+}
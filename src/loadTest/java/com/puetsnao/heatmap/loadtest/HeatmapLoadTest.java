@@ -0,0 +1,194 @@
+package com.puetsnao.heatmap.loadtest;
+
+import com.puetsnao.heatmap.infrastructure.summary.H3CentroidIndex;
+import com.puetsnao.heatmap.loadtest.ViewportScript.Endpoint;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Boots the app on H2 with an in-process cache standing in for Redis, seeds an NJ-shaped dataset and replays
+ * concurrent pan/zoom sessions ({@link ViewportScript}) for a fixed time after a warm-up.
+ * <p>
+ * Options (system properties, passed by Gradle as {@code -Ploadtest.<name>=<value>}): {@code users} (16),
+ * {@code warmupSeconds} (10), {@code durationSeconds} (30), {@code stations} (8000), {@code hours} (2, hourly
+ * buckets seeded), {@code seed} (42) and {@code maxP99Ms} (0 = report only; otherwise fail above it).
+ */
+// the v1 H3 queries alias a column as "value", a keyword in H2
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.datasource.url=jdbc:h2:mem:heatmap-load;DB_CLOSE_DELAY=-1;MODE=PostgreSQL;NON_KEYWORDS=VALUE")
+@ActiveProfiles("test")
+@Import(HeatmapLoadTest.StandInCache.class)
+class HeatmapLoadTest {
+
+    private static final int USERS = Integer.getInteger("loadtest.users", 16);
+    private static final int WARMUP_SECONDS = Integer.getInteger("loadtest.warmupSeconds", 10);
+    private static final int DURATION_SECONDS = Integer.getInteger("loadtest.durationSeconds", 30);
+    private static final int STATIONS = Integer.getInteger("loadtest.stations", 8000);
+    private static final int HOURS = Integer.getInteger("loadtest.hours", 2);
+    private static final long SEED = Long.getLong("loadtest.seed", 42L);
+    private static final int MAX_P99_MS = Integer.getInteger("loadtest.maxP99Ms", 0);
+    private static final String REPORT_FILE = System.getProperty("loadtest.reportFile", "build/reports/loadtest/report.json");
+
+    @TestConfiguration
+    static class StandInCache {
+        // No network or serialization cost: what is measured is the app's own work plus cache hit/miss behavior
+        @Bean
+        CountingCacheManager cacheManager() {
+            return new CountingCacheManager(new ConcurrentMapCacheManager());
+        }
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private H3CentroidIndex centroidIndex;
+
+    @Autowired
+    private CountingCacheManager cacheManager;
+
+    @Test
+    void viewportTraffic() throws Exception {
+        new NjSummarySeeder(jdbc).seed(STATIONS, HOURS);
+        centroidIndex.reload();
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        long measureFrom = System.nanoTime() + TimeUnit.SECONDS.toNanos(WARMUP_SECONDS);
+        long measureTo = measureFrom + TimeUnit.SECONDS.toNanos(DURATION_SECONDS);
+
+        ExecutorService pool = Executors.newFixedThreadPool(USERS);
+        List<Future<UserLog>> users = new ArrayList<>();
+        for (int u = 0; u < USERS; u++) {
+            ViewportScript script = new ViewportScript(SEED + u, HOURS);
+            users.add(pool.submit(() -> session(client, script, measureFrom, measureTo)));
+        }
+
+        LockSupport.parkNanos(measureFrom - System.nanoTime());
+        cacheManager.reset();
+        long allocatedBefore = serverAllocatedBytes();
+        LockSupport.parkNanos(measureTo - System.nanoTime());
+        long allocated = serverAllocatedBytes() - allocatedBefore;
+        Map<String, Double> hitRatios = cacheManager.hitRatios();
+
+        Map<Endpoint, List<long[]>> byEndpoint = new EnumMap<>(Endpoint.class);
+        long errors = 0;
+        for (Future<UserLog> user : users) {
+            UserLog log = user.get();
+            errors += log.errors;
+            log.latencies.forEach((endpoint, nanos) ->
+                    byEndpoint.computeIfAbsent(endpoint, e -> new ArrayList<>()).add(nanos.toArray()));
+        }
+        pool.shutdown();
+
+        double seconds = DURATION_SECONDS;
+        Map<String, LoadReport.Latency> endpoints = new LinkedHashMap<>();
+        List<long[]> all = new ArrayList<>();
+        byEndpoint.forEach((endpoint, parts) -> {
+            endpoints.put(endpoint.path, LoadReport.Latency.of(concat(parts), seconds));
+            all.addAll(parts);
+        });
+        LoadReport.Latency overall = LoadReport.Latency.of(concat(all), seconds);
+        LoadReport report = new LoadReport(USERS, seconds, endpoints, overall, errors, hitRatios,
+                allocated / seconds / (1024 * 1024),
+                overall.requests() == 0 ? 0 : allocated / 1024.0 / overall.requests());
+
+        System.out.println(report.format());
+        report.writeJson(Path.of(REPORT_FILE));
+
+        assertThat(overall.requests()).isPositive();
+        assertThat(errors).isZero();
+        if (MAX_P99_MS > 0) {
+            assertThat(overall.p99Ms()).as("overall p99 latency (ms)").isLessThanOrEqualTo(MAX_P99_MS);
+        }
+    }
+
+    private UserLog session(HttpClient client, ViewportScript script, long measureFrom, long measureTo) throws Exception {
+        UserLog log = new UserLog();
+        long start;
+        while ((start = System.nanoTime()) < measureTo) {
+            ViewportScript.Request request = script.next();
+            HttpResponse<Void> response = client.send(
+                    HttpRequest.newBuilder(URI.create("http://localhost:" + port + request.uri())).GET().build(),
+                    HttpResponse.BodyHandlers.discarding());
+            long end = System.nanoTime();
+            if (start < measureFrom || end > measureTo) continue;
+            log.latencies.computeIfAbsent(request.endpoint(), e -> new LongList()).add(end - start);
+            if (response.statusCode() >= 400) log.errors++;
+        }
+        return log;
+    }
+
+    // Tomcat request threads only, so the in-process client's allocations are left out
+    private static long serverAllocatedBytes() {
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long[] ids = Thread.getAllStackTraces().keySet().stream()
+                .filter(t -> t.getName().startsWith("http-nio-") && t.getName().contains("-exec-"))
+                .mapToLong(Thread::getId)
+                .toArray();
+        return Arrays.stream(threads.getThreadAllocatedBytes(ids)).filter(b -> b > 0).sum();
+    }
+
+    private static long[] concat(List<long[]> parts) {
+        long[] all = new long[parts.stream().mapToInt(p -> p.length).sum()];
+        int n = 0;
+        for (long[] part : parts) {
+            System.arraycopy(part, 0, all, n, part.length);
+            n += part.length;
+        }
+        return all;
+    }
+
+    private static final class UserLog {
+        final Map<Endpoint, LongList> latencies = new EnumMap<>(Endpoint.class);
+        long errors;
+    }
+
+    private static final class LongList {
+        private long[] values = new long[1024];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
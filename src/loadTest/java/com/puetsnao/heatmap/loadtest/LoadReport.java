@@ -0,0 +1,67 @@
+package com.puetsnao.heatmap.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Outcome of the measured phase. Latencies are client-observed (connection reuse, no think time); allocation is
+ * what the server's request threads allocated, so the in-process client does not skew it.
+ */
+record LoadReport(
+        int users,
+        double durationSeconds,
+        Map<String, Latency> endpoints,
+        Latency overall,
+        long errors,
+        Map<String, Double> cacheHitRatio,
+        double allocatedMbPerSecond,
+        double allocatedKbPerRequest
+) {
+
+    record Latency(long requests, double throughputPerSecond, double p50Ms, double p95Ms, double p99Ms, double maxMs) {
+
+        static Latency of(long[] nanos, double seconds) {
+            long[] sorted = nanos.clone();
+            Arrays.sort(sorted);
+            return new Latency(sorted.length, sorted.length / seconds,
+                    percentile(sorted, 50), percentile(sorted, 95), percentile(sorted, 99),
+                    sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1e6);
+        }
+
+        private static double percentile(long[] sorted, int p) {
+            if (sorted.length == 0) return 0;
+            int index = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+        }
+    }
+
+    String format() {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format(Locale.ROOT, "%nLoad test: %d users, %.0f s measured%n", users, durationSeconds));
+        out.append(String.format(Locale.ROOT, "%-22s %9s %10s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms"));
+        Map<String, Latency> rows = new LinkedHashMap<>(endpoints);
+        rows.put("all", overall);
+        rows.forEach((name, l) -> out.append(String.format(Locale.ROOT, "%-22s %9d %10.1f %9.2f %9.2f %9.2f %9.2f%n",
+                name, l.requests(), l.throughputPerSecond(), l.p50Ms(), l.p95Ms(), l.p99Ms(), l.maxMs())));
+        out.append(String.format(Locale.ROOT, "errors: %d%n", errors));
+        cacheHitRatio.forEach((name, ratio) ->
+                out.append(String.format(Locale.ROOT, "cache %s hit ratio: %.1f%%%n", name, ratio * 100)));
+        out.append(String.format(Locale.ROOT, "server allocation: %.1f MB/s, %.1f KB/request%n",
+                allocatedMbPerSecond, allocatedKbPerRequest));
+        return out.toString();
+    }
+
+    void writeJson(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), this);
+    }
+}
@@ -0,0 +1,142 @@
+package com.puetsnao.heatmap.loadtest;
+
+import com.uber.h3core.H3Core;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Seeds the summary tables with the shape of the dev NJ dataset ({@code DevDatasetLoader}): stations spread over the
+ * NJ box, one price and one sale per station, product and hour. The batch refresh relies on PostgreSQL upserts, so
+ * instead of writing raw price/sales rows the day and hour buckets are aggregated here, for resolutions 5..10.
+ */
+final class NjSummarySeeder {
+
+    static final LocalDate DAY = LocalDate.of(2025, 9, 8);
+    static final double MIN_LAT = 39.5;
+    static final double MAX_LAT = 41.4;
+    static final double MIN_LON = -75.6;
+    static final double MAX_LON = -73.9;
+
+    private static final int MIN_RESOLUTION = 5;
+    private static final int MAX_RESOLUTION = 10;
+    private static final int BATCH_SIZE = 5_000;
+
+    private final JdbcTemplate jdbc;
+    private final H3Core h3;
+
+    NjSummarySeeder(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+        try {
+            this.h3 = H3Core.newInstance();
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot initialize H3Core", e);
+        }
+    }
+
+    private record Key(int resolution, String cell, long productId) {
+    }
+
+    // price_sum, price_count, volume_sum, sale_count
+    private static void add(Map<Key, double[]> target, Key key, double price, int prices, double volume, int sales) {
+        double[] sums = target.computeIfAbsent(key, k -> new double[4]);
+        sums[0] += price;
+        sums[1] += prices;
+        sums[2] += volume;
+        sums[3] += sales;
+    }
+
+    void seed(int stationCount, int hourCount) {
+        List<Long> productIds = jdbc.queryForList("SELECT id FROM product ORDER BY id", Long.class);
+        Random stationRandom = new Random(123);
+        List<Object[]> stations = new ArrayList<>(stationCount);
+        for (int i = 1; i <= stationCount; i++) {
+            double lat = MIN_LAT + stationRandom.nextDouble() * (MAX_LAT - MIN_LAT);
+            double lon = MIN_LON + stationRandom.nextDouble() * (MAX_LON - MIN_LON);
+            String code = String.format("LT-%05d", i);
+            stations.add(new Object[]{code, "Load test station " + code, "NJ", lat, lon});
+        }
+        batch("INSERT INTO station (code, name, state, latitude, longitude) VALUES (?,?,?,?,?)", stations);
+
+        List<Object[]> index = new ArrayList<>();
+        Map<Key, double[]> daily = new HashMap<>();
+        List<Map<Key, double[]>> hourly = new ArrayList<>();
+        for (int h = 0; h < hourCount; h++) hourly.add(new HashMap<>());
+        Random random = new Random(42);
+        jdbc.query("SELECT id, latitude, longitude FROM station WHERE code LIKE 'LT-%' ORDER BY id", rs -> {
+            long stationId = rs.getLong("id");
+            double lat = rs.getDouble("latitude");
+            double lon = rs.getDouble("longitude");
+            String[] cells = new String[MAX_RESOLUTION + 1];
+            cells[MAX_RESOLUTION] = h3.geoToH3Address(lat, lon, MAX_RESOLUTION);
+            for (int res = MIN_RESOLUTION; res <= MAX_RESOLUTION; res++) {
+                if (res < MAX_RESOLUTION) cells[res] = h3.h3ToParentAddress(cells[MAX_RESOLUTION], res);
+                index.add(new Object[]{stationId, res, cells[res]});
+            }
+            for (long productId : productIds) {
+                for (int hour = 0; hour < 24; hour++) {
+                    double price = basePrice(productId) + random.nextDouble() * 0.2 - 0.1;
+                    double volume = 50 + random.nextInt(300) + random.nextDouble();
+                    for (int res = MIN_RESOLUTION; res <= MAX_RESOLUTION; res++) {
+                        add(daily, new Key(res, cells[res], productId), price, 1, volume, 1);
+                        if (hour < hourCount) add(hourly.get(hour), new Key(res, cells[res], productId), price, 1, volume, 1);
+                    }
+                }
+            }
+        });
+        batch("INSERT INTO station_h3_index (station_id, resolution, h3_cell) VALUES (?,?,?)", index);
+        batch("""
+                INSERT INTO daily_h3_product_summary
+                    (bucket_date, resolution, h3_cell, product_id, price_sum, price_count, volume_sum, sale_count)
+                VALUES (?,?,?,?,?,?,?,?)""", rows(daily, Date.valueOf(DAY)));
+        for (int h = 0; h < hourCount; h++) {
+            batch("""
+                    INSERT INTO hourly_h3_product_summary
+                        (bucket_hour, resolution, h3_cell, product_id, price_sum, price_count, volume_sum, sale_count)
+                    VALUES (?,?,?,?,?,?,?,?)""", rows(hourly.get(h), Timestamp.valueOf(DAY.atTime(h, 0))));
+        }
+
+        List<Object[]> states = new ArrayList<>();
+        for (LocalDate d = LocalDate.now().minusDays(29); !d.isAfter(LocalDate.now()); d = d.plusDays(1)) {
+            for (long productId : productIds) {
+                long samples = stationCount * 24L;
+                states.add(new Object[]{Date.valueOf(d), "NJ", productId, basePrice(productId) * samples, samples,
+                        200.0 * samples, samples});
+            }
+        }
+        batch("""
+                INSERT INTO daily_state_product_summary
+                    (bucket_date, state, product_id, price_sum, price_count, volume_sum, sale_count)
+                VALUES (?,?,?,?,?,?,?)""", states);
+    }
+
+    private static List<Object[]> rows(Map<Key, double[]> sums, Object bucket) {
+        List<Object[]> rows = new ArrayList<>(sums.size());
+        sums.forEach((key, s) -> rows.add(new Object[]{bucket, key.resolution(), key.cell(), key.productId(),
+                BigDecimal.valueOf(s[0]), (long) s[1], BigDecimal.valueOf(s[2]), (long) s[3]}));
+        return rows;
+    }
+
+    private void batch(String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+            jdbc.batchUpdate(sql, rows.subList(from, Math.min(rows.size(), from + BATCH_SIZE)));
+        }
+    }
+
+    private static double basePrice(long productId) {
+        return switch ((int) (productId % 3)) {
+            case 1 -> 3.20;
+            case 2 -> 3.00;
+            default -> 2.50;
+        };
+    }
+}
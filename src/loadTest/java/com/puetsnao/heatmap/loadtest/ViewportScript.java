@@ -0,0 +1,105 @@
+package com.puetsnao.heatmap.loadtest;
+
+import java.util.ArrayDeque;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.Random;
+
+/**
+ * One user's map session: start on the whole state at a coarse resolution, zoom towards a point of interest one
+ * resolution per step (each step halves the viewport), pan around a few times at each level, then zoom back out
+ * and pick another point. Every viewport change requests the v2 bbox endpoint; some also load the v1 H3 layer or
+ * the state overview, roughly like a client refreshing side panels.
+ */
+final class ViewportScript {
+
+    enum Endpoint {
+        V2_H3("/api/v2/heatmap/h3"),
+        V1_H3("/api/heatmap/h3"),
+        STATE("/api/heatmap");
+
+        final String path;
+
+        Endpoint(String path) {
+            this.path = path;
+        }
+    }
+
+    record Request(Endpoint endpoint, String uri) {
+    }
+
+    private static final int MIN_RESOLUTION = 5;
+    private static final int MAX_RESOLUTION = 10;
+    private static final double STATE_LAT_SPAN = NjSummarySeeder.MAX_LAT - NjSummarySeeder.MIN_LAT;
+    private static final double STATE_LON_SPAN = NjSummarySeeder.MAX_LON - NjSummarySeeder.MIN_LON;
+
+    private final Random random;
+    private final int hourBuckets;
+    private final Queue<Request> pending = new ArrayDeque<>();
+
+    private int resolution = MIN_RESOLUTION;
+    private boolean zoomingIn = true;
+    private double centerLat;
+    private double centerLon;
+
+    ViewportScript(long seed, int hourBuckets) {
+        this.random = new Random(seed);
+        this.hourBuckets = hourBuckets;
+        pickFocus();
+    }
+
+    Request next() {
+        if (pending.isEmpty()) step();
+        return pending.poll();
+    }
+
+    private void step() {
+        int pans = random.nextInt(3);
+        for (int i = 0; i <= pans; i++) {
+            if (i > 0) pan();
+            emit();
+        }
+        if (zoomingIn) {
+            if (++resolution == MAX_RESOLUTION) zoomingIn = false;
+        } else if (--resolution == MIN_RESOLUTION || random.nextDouble() < 0.3) {
+            zoomingIn = true;
+            pickFocus();
+        }
+    }
+
+    private void emit() {
+        String metric = random.nextDouble() < 0.8 ? "price" : "volume";
+        boolean hourly = hourBuckets > 0 && random.nextDouble() < 0.15;
+        String bucket = hourly ? "hour" : "day";
+        String at = hourly
+                ? NjSummarySeeder.DAY.atTime(random.nextInt(hourBuckets), 0).toString()
+                : NjSummarySeeder.DAY.toString();
+        double latSpan = span(STATE_LAT_SPAN);
+        double lonSpan = span(STATE_LON_SPAN);
+        String bbox = String.format(Locale.ROOT, "%.4f,%.4f,%.4f,%.4f",
+                centerLat - latSpan / 2, centerLon - lonSpan / 2, centerLat + latSpan / 2, centerLon + lonSpan / 2);
+        pending.add(new Request(Endpoint.V2_H3, Endpoint.V2_H3.path + "?metric=" + metric + "&resolution=" + resolution
+                + "&bucket=" + bucket + "&at=" + at + "&bbox=" + bbox));
+        if (random.nextDouble() < 0.25) {
+            pending.add(new Request(Endpoint.V1_H3, Endpoint.V1_H3.path + "?metric=" + metric + "&resolution=" + resolution
+                    + "&bucket=" + bucket + "&at=" + at));
+        }
+        if (random.nextDouble() < 0.05) {
+            pending.add(new Request(Endpoint.STATE, Endpoint.STATE.path + "?metric=" + metric + "&period=last30d"));
+        }
+    }
+
+    private void pan() {
+        centerLat += (random.nextDouble() - 0.5) * 0.8 * span(STATE_LAT_SPAN);
+        centerLon += (random.nextDouble() - 0.5) * 0.8 * span(STATE_LON_SPAN);
+    }
+
+    private double span(double stateSpan) {
+        return stateSpan / (1 << (resolution - MIN_RESOLUTION));
+    }
+
+    private void pickFocus() {
+        centerLat = NjSummarySeeder.MIN_LAT + random.nextDouble() * STATE_LAT_SPAN;
+        centerLon = NjSummarySeeder.MIN_LON + random.nextDouble() * STATE_LON_SPAN;
+    }
+}
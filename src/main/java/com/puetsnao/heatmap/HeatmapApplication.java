@@ -14,7 +14,7 @@ import org.springframework.scheduling.annotation.EnableScheduling;
 @EntityScan(basePackages = "com.puetsnao")
 @EnableCaching
 @EnableScheduling
-@EnableConfigurationProperties({SummaryRefreshProperties.class, com.puetsnao.heatmap.infrastructure.security.RateLimitProperties.class, com.puetsnao.shared.http.CorsProperties.class, com.puetsnao.heatmap.dev.DevSeedProperties.class})
+@EnableConfigurationProperties({SummaryRefreshProperties.class, com.puetsnao.heatmap.infrastructure.summary.BboxPushdownProperties.class, com.puetsnao.heatmap.infrastructure.summary.LiveAggregationProperties.class, com.puetsnao.heatmap.infrastructure.summary.SummaryLimitProperties.class, com.puetsnao.heatmap.infrastructure.cache.CacheWarmupProperties.class, com.puetsnao.heatmap.infrastructure.security.RateLimitProperties.class, com.puetsnao.shared.http.CorsProperties.class, com.puetsnao.heatmap.dev.DevSeedProperties.class, com.puetsnao.ingest.infrastructure.IngestProperties.class})
 public class HeatmapApplication {
 
 	public static void main(String[] args) {
@@ -4,6 +4,9 @@ import com.puetsnao.heatmap.application.H3HeatmapService;
 import com.puetsnao.heatmap.domain.BucketGranularity;
 import com.puetsnao.heatmap.domain.H3CellPoint;
 import com.puetsnao.heatmap.domain.Metric;
+import com.puetsnao.heatmap.infrastructure.cache.DataVersions;
+import com.puetsnao.heatmap.infrastructure.cache.HotKeys;
+import com.puetsnao.heatmap.infrastructure.cache.WarmupKey;
 import com.puetsnao.shared.http.EtagService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -22,7 +25,7 @@ import org.springframework.web.bind.annotation.RestController;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 
 @RestController
@@ -32,10 +35,14 @@ public class H3HeatmapController {
 
     private final H3HeatmapService service;
     private final EtagService etagService;
+    private final DataVersions dataVersions;
+    private final HotKeys hotKeys;
 
-    public H3HeatmapController(H3HeatmapService service, EtagService etagService) {
+    public H3HeatmapController(H3HeatmapService service, EtagService etagService, DataVersions dataVersions, HotKeys hotKeys) {
         this.service = service;
         this.etagService = etagService;
+        this.dataVersions = dataVersions;
+        this.hotKeys = hotKeys;
     }
 
     @GetMapping
@@ -53,6 +60,7 @@ public class H3HeatmapController {
     )
     @ApiResponse(responseCode = "400", description = "Invalid parameters", content = @Content)
     @ApiResponse(responseCode = "500", description = "Unexpected error", content = @Content)
+    @ApiResponse(responseCode = "503", description = "Overloaded; retry after Retry-After seconds", content = @Content)
     public ResponseEntity<List<H3CellPoint>> heatmap(
             @Parameter(description = "Aggregation metric", schema = @Schema(allowableValues = {"price", "volume"}), example = "price")
             @RequestParam(name = "metric") String metric,
@@ -66,19 +74,24 @@ public class H3HeatmapController {
     ) {
         Metric m = Metric.from(metric);
         BucketGranularity b = BucketGranularity.from(bucket);
+        // bucket plus the version of its summary data, so a refresh changes the tag and a 304 needs no query
         String version = switch (b) {
-            case DAY -> (at == null || at.isBlank()) ? LocalDate.now().toString() : at;
+            case DAY -> {
+                LocalDate day = H3HeatmapService.parseDayOrDefault(at);
+                yield day + "@" + dataVersions.h3Day(day);
+            }
             case HOUR -> {
-                if (at == null || at.isBlank()) {
-                    yield LocalDateTime.now().withMinute(0).withSecond(0).withNano(0).format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
-                }
-                yield at;
+                LocalDateTime hour = H3HeatmapService.parseHourOrDefault(at).truncatedTo(ChronoUnit.HOURS);
+                yield hour + "@" + dataVersions.h3Day(hour.toLocalDate());
             }
         };
         String etag = etagService.buildWeak("heatmap:h3", m.name().toLowerCase(), String.valueOf(resolution), b.name().toLowerCase(), version);
         if (etagService.matches(ifNoneMatch, etag)) {
             return ResponseEntity.status(304).eTag(etag).build();
         }
+        if (b == BucketGranularity.DAY) {
+            hotKeys.record(WarmupKey.h3(m, resolution, H3HeatmapService.parseDayOrDefault(at)));
+        }
         return ResponseEntity.ok().eTag(etag).body(service.query(m, resolution, b, at));
     }
 }
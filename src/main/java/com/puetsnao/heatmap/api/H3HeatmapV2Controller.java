@@ -1,8 +1,15 @@
 package com.puetsnao.heatmap.api;
 
+import com.puetsnao.heatmap.application.H3HeatmapService;
 import com.puetsnao.heatmap.application.H3HeatmapV2Service;
 import com.puetsnao.heatmap.domain.BucketGranularity;
+import com.puetsnao.heatmap.domain.BucketRange;
+import com.puetsnao.heatmap.domain.H3CellSeries;
+import com.puetsnao.heatmap.domain.H3CellValues;
 import com.puetsnao.heatmap.domain.Metric;
+import com.puetsnao.heatmap.infrastructure.cache.DataVersions;
+import com.puetsnao.heatmap.infrastructure.cache.HotKeys;
+import com.puetsnao.heatmap.infrastructure.cache.WarmupKey;
 import com.puetsnao.shared.http.EtagService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -12,6 +19,9 @@ import io.swagger.v3.oas.annotations.media.ExampleObject;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestHeader;
@@ -21,8 +31,7 @@ import org.springframework.web.bind.annotation.RestController;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.List;
+import java.time.temporal.ChronoUnit;
 
 @RestController
 @RequestMapping("/api/v2/heatmap/h3")
@@ -31,28 +40,38 @@ public class H3HeatmapV2Controller {
 
     private final H3HeatmapV2Service service;
     private final EtagService etagService;
+    private final DataVersions dataVersions;
+    private final HotKeys hotKeys;
 
-    public H3HeatmapV2Controller(H3HeatmapV2Service service, EtagService etagService) {
+    public H3HeatmapV2Controller(H3HeatmapV2Service service, EtagService etagService, DataVersions dataVersions, HotKeys hotKeys) {
         this.service = service;
         this.etagService = etagService;
+        this.dataVersions = dataVersions;
+        this.hotKeys = hotKeys;
     }
 
     @GetMapping
     @Operation(
             summary = "Heatmap aggregation by H3 cell (v2)",
-            description = "Aggregates from H10 cells to requested resolution using AVG (price) or SUM (volume), filters by bbox, and returns minimal [cell,value] pairs."
+            description = "Aggregates from H10 cells to requested resolution using AVG (price) or SUM (volume), filters by bbox, and returns minimal [cell,value] pairs. "
+                    + "With Accept: application/x-h3-cells the body is columnar binary: 16-byte header, then little-endian i64 cells and f32 values."
     )
     @ApiResponse(
             responseCode = "200",
             description = "OK",
-            content = @Content(
-                    array = @ArraySchema(schema = @Schema(implementation = Object[].class)),
-                    examples = @ExampleObject(value = "[[\"85283473fffffff\", 2.15]]")
-            )
+            content = {
+                    @Content(
+                            mediaType = "application/json",
+                            array = @ArraySchema(schema = @Schema(implementation = Object[].class)),
+                            examples = @ExampleObject(value = "[[\"85283473fffffff\", 2.15]]")
+                    ),
+                    @Content(mediaType = H3CellValuesBinaryConverter.MEDIA_TYPE_VALUE, schema = @Schema(type = "string", format = "binary"))
+            }
     )
     @ApiResponse(responseCode = "400", description = "Invalid parameters", content = @Content)
     @ApiResponse(responseCode = "500", description = "Unexpected error", content = @Content)
-    public ResponseEntity<List<Object[]>> heatmap(
+    @ApiResponse(responseCode = "503", description = "Overloaded; retry after Retry-After seconds", content = @Content)
+    public ResponseEntity<H3CellValues> heatmap(
             @Parameter(description = "Aggregation metric", schema = @Schema(allowableValues = {"price", "volume"}), example = "price")
             @RequestParam(name = "metric") String metric,
             @Parameter(description = "H3 resolution (<= 10; aggregated from H10)", example = "7")
@@ -63,24 +82,100 @@ public class H3HeatmapV2Controller {
             @RequestParam(name = "at", required = false) String at,
             @Parameter(description = "Bounding box: minLat,minLon,maxLat,maxLon", example = "39.0,-75.8,41.4,-73.9")
             @RequestParam(name = "bbox") String bbox,
-            @RequestHeader(name = "If-None-Match", required = false) String ifNoneMatch
+            @RequestHeader(name = "If-None-Match", required = false) String ifNoneMatch,
+            @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept
     ) {
         Metric m = Metric.from(metric);
         BucketGranularity b = BucketGranularity.from(bucket);
+        // bucket plus the version of its summary data, so a refresh changes the tag and a 304 needs no query
         String version = switch (b) {
-            case DAY -> (at == null || at.isBlank()) ? LocalDate.now().toString() : at;
+            case DAY -> {
+                LocalDate day = H3HeatmapService.parseDayOrDefault(at);
+                yield day + "@" + dataVersions.h3Day(day);
+            }
             case HOUR -> {
-                if (at == null || at.isBlank()) {
-                    yield LocalDateTime.now().withMinute(0).withSecond(0).withNano(0).format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
-                }
-                yield at;
+                LocalDateTime hour = H3HeatmapService.parseHourOrDefault(at).truncatedTo(ChronoUnit.HOURS);
+                yield hour + "@" + dataVersions.h3Day(hour.toLocalDate());
             }
         };
-        String etag = etagService.buildWeak("heatmap:h3:v2", m.name().toLowerCase(), String.valueOf(resolution), b.name().toLowerCase(), version, bbox);
+        boolean binary = acceptsBinary(accept);
+        // each representation gets its own validator
+        String namespace = binary ? "heatmap:h3:v2:bin" : "heatmap:h3:v2";
+        String etag = etagService.buildWeak(namespace, m.name().toLowerCase(), String.valueOf(resolution), b.name().toLowerCase(), version, bbox);
+        if (etagService.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(304).eTag(etag).varyBy(HttpHeaders.ACCEPT).build();
+        }
+        if (b == BucketGranularity.DAY) {
+            hotKeys.record(WarmupKey.h3V2(m, resolution, H3HeatmapService.parseDayOrDefault(at)));
+        }
+        H3CellValues payload = service.queryPairs(m, resolution, b, at, bbox);
+        // set explicitly: the binary converter can write H3CellValues too and must not win on Accept: */*
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .varyBy(HttpHeaders.ACCEPT)
+                .contentType(binary ? H3CellValuesBinaryConverter.MEDIA_TYPE : MediaType.APPLICATION_JSON)
+                .body(payload);
+    }
+
+    @GetMapping("/series")
+    @Operation(
+            summary = "Heatmap time series by H3 cell (v2)",
+            description = "Returns every hour or day bucket of [from, to) for the cells in the bbox as one payload, read with a single range scan. "
+                    + "Cell-major: each cell string once, then its per-frame values delta-encoded in units of 1/scale (null = no data)."
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "OK",
+            content = @Content(
+                    mediaType = "application/json",
+                    examples = @ExampleObject(value = "{\"bucket\": \"hour\", \"start\": \"2025-09-01T00:00\", \"frames\": 24, \"resolution\": 7, \"scale\": 1000, "
+                            + "\"cells\": [\"87283473fffffff\"], \"values\": [[3459, 0, -12, null, 4]]}")
+            )
+    )
+    @ApiResponse(responseCode = "400", description = "Invalid parameters", content = @Content)
+    @ApiResponse(responseCode = "500", description = "Unexpected error", content = @Content)
+    @ApiResponse(responseCode = "503", description = "Overloaded; retry after Retry-After seconds", content = @Content)
+    public ResponseEntity<H3CellSeries> series(
+            @Parameter(description = "Aggregation metric", schema = @Schema(allowableValues = {"price", "volume"}), example = "price")
+            @RequestParam(name = "metric") String metric,
+            @Parameter(description = "H3 resolution (5 to 10)", example = "7")
+            @RequestParam(name = "resolution") int resolution,
+            @Parameter(description = "Frame granularity: hour or day", schema = @Schema(allowableValues = {"day", "hour"}), example = "hour")
+            @RequestParam(name = "bucket", defaultValue = "hour") String bucket,
+            @Parameter(description = "First bucket: YYYY-MM-DD, or YYYY-MM-DDTHH:00 for hours", example = "2025-09-01")
+            @RequestParam(name = "from") String from,
+            @Parameter(description = "End of the range, exclusive (default: one day of hours, one week of days)", example = "2025-09-02")
+            @RequestParam(name = "to", required = false) String to,
+            @Parameter(description = "Bounding box: minLat,minLon,maxLat,maxLon", example = "39.0,-75.8,41.4,-73.9")
+            @RequestParam(name = "bbox") String bbox,
+            @RequestHeader(name = "If-None-Match", required = false) String ifNoneMatch
+    ) {
+        Metric m = Metric.from(metric);
+        BucketRange range = BucketRange.parse(BucketGranularity.from(bucket), from, to);
+        StringBuilder versions = new StringBuilder();
+        for (LocalDate day : range.days()) {
+            versions.append(dataVersions.h3Day(day)).append('.');
+        }
+        String etag = etagService.buildWeak("heatmap:h3:v2:series", m.name().toLowerCase(), String.valueOf(resolution),
+                range.granularity().name().toLowerCase(), range.start().toString(), String.valueOf(range.frames()),
+                versions.toString(), bbox);
         if (etagService.matches(ifNoneMatch, etag)) {
             return ResponseEntity.status(304).eTag(etag).build();
         }
-        List<Object[]> payload = service.queryPairs(m, resolution, b, at, bbox);
-        return ResponseEntity.ok().eTag(etag).body(payload);
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(service.querySeries(m, resolution, range, bbox));
+    }
+
+    // binary only when asked for explicitly; */* and browsers keep getting JSON
+    private static boolean acceptsBinary(String accept) {
+        if (accept == null || accept.isBlank()) return false;
+        try {
+            return MediaType.parseMediaTypes(accept).stream()
+                    .anyMatch(t -> t.getQualityValue() > 0 && H3CellValuesBinaryConverter.MEDIA_TYPE.equalsTypeAndSubtype(t));
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
     }
 }
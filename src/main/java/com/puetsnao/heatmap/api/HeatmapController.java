@@ -4,6 +4,9 @@ import com.puetsnao.heatmap.application.HeatmapService;
 import com.puetsnao.heatmap.domain.HeatPoint;
 import com.puetsnao.heatmap.domain.Metric;
 import com.puetsnao.heatmap.domain.Period;
+import com.puetsnao.heatmap.infrastructure.cache.DataVersions;
+import com.puetsnao.heatmap.infrastructure.cache.HotKeys;
+import com.puetsnao.heatmap.infrastructure.cache.WarmupKey;
 import com.puetsnao.shared.http.EtagService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -30,16 +33,21 @@ public class HeatmapController {
 
     private final HeatmapService heatmapService;
     private final EtagService etagService;
+    private final DataVersions dataVersions;
+    private final HotKeys hotKeys;
 
-    public HeatmapController(HeatmapService heatmapService, EtagService etagService) {
+    public HeatmapController(HeatmapService heatmapService, EtagService etagService, DataVersions dataVersions, HotKeys hotKeys) {
         this.heatmapService = heatmapService;
         this.etagService = etagService;
+        this.dataVersions = dataVersions;
+        this.hotKeys = hotKeys;
     }
 
     @GetMapping
     @Operation(
             summary = "Heatmap aggregation by state",
-            description = "Returns a list of heat points aggregated by state for the given metric and period."
+            description = "Returns a list of heat points aggregated by state for the given metric and period, "
+                    + "or for a custom from/to day range when 'from' is given."
     )
     @ApiResponse(
             responseCode = "200",
@@ -60,19 +68,35 @@ public class HeatmapController {
             @RequestParam(name = "metric") String metric,
             @Parameter(
                     description = "Aggregation period",
-                    schema = @Schema(allowableValues = {"last30d"}),
+                    schema = @Schema(allowableValues = {"last7d", "last30d", "last90d", "last365d"}),
                     example = "last30d"
             )
             @RequestParam(name = "period", defaultValue = "last30d") String period,
+            @Parameter(description = "First day of a custom range (yyyy-MM-dd); overrides period", example = "2025-01-01")
+            @RequestParam(name = "from", required = false) String from,
+            @Parameter(description = "Last day of a custom range (yyyy-MM-dd), inclusive; defaults to today", example = "2025-03-31")
+            @RequestParam(name = "to", required = false) String to,
             @RequestHeader(name = "If-None-Match", required = false) String ifNoneMatch
     ) {
         Metric m = Metric.from(metric);
+        if (from != null && !from.isBlank()) {
+            LocalDate fromDate = LocalDate.parse(from.trim());
+            LocalDate toDate = to != null && !to.isBlank() ? LocalDate.parse(to.trim()) : LocalDate.now();
+            // fixed days: only a refresh rewriting the state summary changes the answer
+            String etag = etagService.buildWeak("heatmap", m.name().toLowerCase(), fromDate + ".." + toDate, dataVersions.stateSummary());
+            if (etagService.matches(ifNoneMatch, etag)) {
+                return ResponseEntity.status(304).eTag(etag).build();
+            }
+            return ResponseEntity.ok().eTag(etag).body(heatmapService.heatmap(m, fromDate, toDate));
+        }
         Period p = Period.from(period);
-        String version = LocalDate.now().toString();
+        // the window moves daily; within a day the tag changes when a refresh rewrites the state summary
+        String version = LocalDate.now() + "@" + dataVersions.stateSummary();
         String etag = etagService.buildWeak("heatmap", m.name().toLowerCase(), p.name().toLowerCase(), version);
         if (etagService.matches(ifNoneMatch, etag)) {
             return ResponseEntity.status(304).eTag(etag).build();
         }
+        hotKeys.record(WarmupKey.state(m, p));
         return ResponseEntity.ok().eTag(etag).body(heatmapService.heatmap(m, p));
     }
 }
@@ -0,0 +1,163 @@
+package com.puetsnao.heatmap.application;
+
+import com.puetsnao.heatmap.domain.Metric;
+import com.puetsnao.heatmap.domain.Period;
+import com.puetsnao.heatmap.infrastructure.cache.CacheWarmupProperties;
+import com.puetsnao.heatmap.infrastructure.cache.HeatmapCacheEvicted;
+import com.puetsnao.heatmap.infrastructure.cache.HotKeys;
+import com.puetsnao.heatmap.infrastructure.cache.WarmupKey;
+import com.puetsnao.heatmap.infrastructure.summary.H3CellSums;
+import com.puetsnao.heatmap.infrastructure.summary.LiveH3Aggregator;
+import com.puetsnao.shared.concurrency.OverloadedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * Loads the configured and the most requested cache keys through the cached services once the application is
+ * ready and after every summary refresh, so the first user of a bucket after a deploy or a refresh gets a hit.
+ * <p>
+ * Loads run on {@code heatmap.cache.warmup.concurrency} threads and go through the summary concurrency limit like
+ * any read, so warming never takes more than that from live traffic; a key that is already queued is not queued
+ * again. Buckets served from the live aggregation are skipped, they are not cached.
+ */
+@Component
+@ConditionalOnProperty(name = "heatmap.cache.warmup.enabled", havingValue = "true")
+public class CacheWarmer implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheWarmer.class);
+    private static final int H10 = 10;
+
+    private final CacheWarmupProperties properties;
+    private final HotKeys hotKeys;
+    private final HeatmapService heatmapService;
+    private final H3HeatmapService h3Service;
+    private final H3BucketSums bucketSums;
+    private final LiveH3Aggregator liveAggregator;
+    private final Executor executor;
+    private final Set<WarmupKey> pending = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public CacheWarmer(CacheWarmupProperties properties, HotKeys hotKeys, HeatmapService heatmapService,
+                       H3HeatmapService h3Service, H3BucketSums bucketSums, LiveH3Aggregator liveAggregator) {
+        this(properties, hotKeys, heatmapService, h3Service, bucketSums, liveAggregator, warmupPool(properties.concurrency()));
+    }
+
+    CacheWarmer(CacheWarmupProperties properties, HotKeys hotKeys, HeatmapService heatmapService,
+                H3HeatmapService h3Service, H3BucketSums bucketSums, LiveH3Aggregator liveAggregator, Executor executor) {
+        this.properties = properties;
+        this.hotKeys = hotKeys;
+        this.heatmapService = heatmapService;
+        this.h3Service = h3Service;
+        this.bucketSums = bucketSums;
+        this.liveAggregator = liveAggregator;
+        this.executor = executor;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        warm(key -> true);
+    }
+
+    @EventListener
+    public void onEvicted(HeatmapCacheEvicted event) {
+        Set<LocalDate> days = Set.copyOf(event.h3Days());
+        warm(key -> key.kind() == WarmupKey.Kind.STATE ? event.stateSummary() : days.contains(key.day()));
+    }
+
+    @Override
+    public void destroy() {
+        if (executor instanceof ExecutorService service) service.shutdownNow();
+    }
+
+    /**
+     * Configured keys first, then the most requested ones.
+     */
+    Collection<WarmupKey> keys() {
+        Set<WarmupKey> keys = new LinkedHashSet<>();
+        LocalDate today = LocalDate.now();
+        for (Metric metric : Metric.values()) {
+            for (Period period : properties.periods()) {
+                keys.add(WarmupKey.state(metric, period));
+            }
+            for (int back = 0; back < properties.days(); back++) {
+                LocalDate day = today.minusDays(back);
+                for (int resolution : properties.resolutions()) {
+                    keys.add(WarmupKey.h3(metric, resolution, day));
+                    keys.add(WarmupKey.h3V2(metric, resolution, day));
+                }
+            }
+        }
+        keys.addAll(hotKeys.top(properties.topObserved()));
+        return keys;
+    }
+
+    private void warm(Predicate<WarmupKey> affected) {
+        List<WarmupKey> keys = keys().stream()
+                .filter(affected)
+                .filter(key -> key.day() == null || !liveAggregator.covers(key.day()))
+                .toList();
+        int queued = 0;
+        for (WarmupKey key : keys) {
+            if (!pending.add(key)) continue;
+            try {
+                executor.execute(() -> {
+                    try {
+                        load(key);
+                    } catch (OverloadedException e) {
+                        log.debug("Warm-up of {} shed by the concurrency limit", key);
+                    } catch (RuntimeException e) {
+                        log.warn("Warm-up failed for {}", key, e);
+                    } finally {
+                        pending.remove(key);
+                    }
+                });
+                queued++;
+            } catch (RejectedExecutionException e) {
+                pending.remove(key);
+            }
+        }
+        log.info("Queued {} of {} cache keys for warm-up", queued, keys.size());
+    }
+
+    // through the proxies, so the results land in the cache
+    private void load(WarmupKey key) {
+        switch (key.kind()) {
+            case STATE -> heatmapService.heatmap(key.metric(), key.period());
+            case H3 -> h3Service.byDay(key.metric(), key.resolution(), key.day());
+            case H3_V2 -> {
+                H3CellSums base = bucketSums.baseByDay(key.metric(), key.day());
+                if (key.resolution() < H10) {
+                    bucketSums.rollupByDay(key.metric(), key.resolution(), key.day(), base);
+                }
+            }
+        }
+    }
+
+    private static ExecutorService warmupPool(int threads) {
+        AtomicInteger threadIds = new AtomicInteger();
+        return Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "cache-warmup-" + threadIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
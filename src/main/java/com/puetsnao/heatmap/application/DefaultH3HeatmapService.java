@@ -1,43 +1,47 @@
 package com.puetsnao.heatmap.application;
 
+import com.puetsnao.heatmap.domain.BucketGranularity;
 import com.puetsnao.heatmap.domain.H3CellPoint;
+import com.puetsnao.heatmap.domain.H3CellPointList;
 import com.puetsnao.heatmap.domain.Metric;
 import com.puetsnao.heatmap.infrastructure.summary.H3SummaryRepository;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
 
 @Service
 public class DefaultH3HeatmapService implements H3HeatmapService {
 
     private final H3SummaryRepository repository;
+    private final H3HeatmapService self;
 
-    public DefaultH3HeatmapService(H3SummaryRepository repository) {
+    // query() dispatches through the proxy so byDay/byHour hit the cache
+    public DefaultH3HeatmapService(H3SummaryRepository repository, @Lazy H3HeatmapService self) {
         this.repository = repository;
+        this.self = self;
     }
 
     @Override
-    @Cacheable(cacheNames = "heatmap", key = "'heatmap:h3:day:' + #metric.name().toLowerCase() + ':' + #resolution + ':' + #day")
+    public List<H3CellPoint> query(Metric metric, int resolution, BucketGranularity bucket, String at) {
+        return switch (bucket) {
+            case DAY -> self.byDay(metric, resolution, H3HeatmapService.parseDayOrDefault(at));
+            case HOUR -> self.byHour(metric, resolution, H3HeatmapService.parseHourOrDefault(at));
+        };
+    }
+
+    @Override
+    @Cacheable(cacheNames = "heatmap", sync = true, condition = "!@liveH3Aggregator.covers(#day)", key = "'heatmap:h3:day:' + #metric.name().toLowerCase() + ':' + #resolution + ':' + #day")
     public List<H3CellPoint> byDay(Metric metric, int resolution, LocalDate day) {
-        Map<String, Double> values = repository.byDay(day, resolution, metric);
-        return values.entrySet().stream()
-                .map(e -> new H3CellPoint(e.getKey(), resolution, e.getValue()))
-                .sorted(Comparator.comparing(H3CellPoint::cell))
-                .toList();
+        return new H3CellPointList(resolution, repository.byDay(day, resolution, metric));
     }
 
     @Override
-    @Cacheable(cacheNames = "heatmap", key = "'heatmap:h3:hour:' + #metric.name().toLowerCase() + ':' + #resolution + ':' + #hour")
+    @Cacheable(cacheNames = "heatmap", sync = true, condition = "!@liveH3Aggregator.covers(#hour)", key = "'heatmap:h3:hour:' + #metric.name().toLowerCase() + ':' + #resolution + ':' + #hour")
     public List<H3CellPoint> byHour(Metric metric, int resolution, LocalDateTime hour) {
-        Map<String, Double> values = repository.byHour(hour, resolution, metric);
-        return values.entrySet().stream()
-                .map(e -> new H3CellPoint(e.getKey(), resolution, e.getValue()))
-                .sorted(Comparator.comparing(H3CellPoint::cell))
-                .toList();
+        return new H3CellPointList(resolution, repository.byHour(hour, resolution, metric));
     }
 }
@@ -1,9 +1,17 @@
 package com.puetsnao.heatmap.application;
 
 import com.puetsnao.heatmap.domain.BucketGranularity;
+import com.puetsnao.heatmap.domain.BucketRange;
+import com.puetsnao.heatmap.domain.H3CellSeries;
+import com.puetsnao.heatmap.domain.H3CellValues;
+import com.puetsnao.heatmap.domain.H3Cells;
 import com.puetsnao.heatmap.domain.Metric;
+import com.puetsnao.heatmap.infrastructure.summary.BboxPushdownProperties;
+import com.puetsnao.heatmap.infrastructure.summary.CellCover;
+import com.puetsnao.heatmap.infrastructure.summary.H3CellSums;
+import com.puetsnao.heatmap.infrastructure.summary.H3CentroidIndex;
 import com.puetsnao.heatmap.infrastructure.summary.H3SummaryRepository;
-import com.puetsnao.heatmap.infrastructure.summary.PriceInputs;
+import com.uber.h3core.AreaUnit;
 import com.uber.h3core.H3Core;
 import com.uber.h3core.util.GeoCoord;
 import org.springframework.stereotype.Service;
@@ -11,16 +19,33 @@ import org.springframework.stereotype.Service;
 import java.io.IOException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 @Service
 public class DefaultH3HeatmapV2Service implements H3HeatmapV2Service {
 
+    private static final int H10 = 10;
+    private static final int MIN_SUMMARY_RESOLUTION = 5;
+    private static final int MIN_COVER_RESOLUTION = 5;
+    private static final int MAX_COVER_RESOLUTION = 9;
+    private static final double KM_PER_DEGREE = 111.32;
+
     private final H3SummaryRepository repository;
+    private final H3BucketSums bucketSums;
+    private final H3CentroidIndex centroidIndex;
+    private final BboxPushdownProperties pushdown;
     private final H3Core h3;
 
-    public DefaultH3HeatmapV2Service(H3SummaryRepository repository) {
+    public DefaultH3HeatmapV2Service(H3SummaryRepository repository,
+                                     H3BucketSums bucketSums,
+                                     H3CentroidIndex centroidIndex,
+                                     BboxPushdownProperties pushdown) {
         this.repository = repository;
+        this.bucketSums = bucketSums;
+        this.centroidIndex = centroidIndex;
+        this.pushdown = pushdown;
         try {
             this.h3 = H3Core.newInstance();
         } catch (IOException e) {
@@ -28,65 +53,167 @@ public class DefaultH3HeatmapV2Service implements H3HeatmapV2Service {
         }
     }
 
+    /**
+     * Returns every cell at the requested resolution that has an H10 child inside the bbox. Values cover
+     * the whole cell, not just the part inside the bbox, so they stay stable while the map pans.
+     * <p>
+     * With bbox pushdown the bucket is read from the summary table on every call and bypasses the cached
+     * {@link H3BucketSums}. Both agree once a refresh's eviction has reached this instance, but a cached load that
+     * raced the eviction can keep serving the previous bucket until its TTL while pushdown reads already see the
+     * new one.
+     */
     @Override
-    public List<Object[]> queryPairs(Metric metric, int resolution, BucketGranularity bucket, String at, String bbox) {
+    public H3CellValues queryPairs(Metric metric, int resolution, BucketGranularity bucket, String at, String bbox) {
         double[] bounds = parseBbox(bbox);
-        return switch (bucket) {
-            case DAY -> byDay(metric, resolution, at == null || at.isBlank() ? LocalDate.now() : LocalDate.parse(at), bounds);
-            case HOUR -> byHour(metric, resolution, parseHourOrDefault(at), bounds);
-        };
+        CellCover cover = cover(bounds, resolution);
+        H3CellSums sliced;
+        if (cover != null) {
+            H3CellSums base = switch (bucket) {
+                case DAY -> byDay(metric, parseDayOrDefault(at), cover);
+                case HOUR -> byHour(metric, parseHourOrDefault(at), cover);
+            };
+            sliced = base.rollup(resolution).retain(cellsInBbox(base, bounds, resolution));
+        } else {
+            sliced = switch (bucket) {
+                case DAY -> {
+                    LocalDate day = parseDayOrDefault(at);
+                    H3CellSums base = bucketSums.baseByDay(metric, day);
+                    H3CellSums rolled = resolution >= H10
+                            ? base
+                            : bucketSums.rollupByDay(metric, resolution, day, base);
+                    yield rolled.retain(cellsInBbox(base, bounds, resolution));
+                }
+                case HOUR -> {
+                    LocalDateTime hour = parseHourOrDefault(at);
+                    H3CellSums base = bucketSums.baseByHour(metric, hour);
+                    H3CellSums rolled = resolution >= H10
+                            ? base
+                            : bucketSums.rollupByHour(metric, resolution, hour, base);
+                    yield rolled.retain(cellsInBbox(base, bounds, resolution));
+                }
+            };
+        }
+        return metric == Metric.PRICE ? averages(sliced) : totals(sliced);
     }
 
-    private List<Object[]> byDay(Metric metric, int resolution, LocalDate day, double[] bounds) {
-        if (metric == Metric.PRICE) {
-            Map<String, PriceInputs> base = repository.h10PriceByDay(day);
-            return aggregatePrice(base, resolution, bounds);
+    /**
+     * Reads the stored summaries of the requested resolution for the whole range at once, then keeps the cells
+     * that have an H10 child inside the bbox, as {@link #queryPairs} does for a single bucket.
+     */
+    @Override
+    public H3CellSeries querySeries(Metric metric, int resolution, BucketRange range, String bbox) {
+        if (resolution < MIN_SUMMARY_RESOLUTION || resolution > H10) {
+            throw new IllegalArgumentException("Series resolution must be between " + MIN_SUMMARY_RESOLUTION + " and " + H10);
+        }
+        double[] bounds = parseBbox(bbox);
+        H3CellSeries series = repository.series(range, resolution, metric);
+        long[] inside;
+        if (centroidIndex.isEmpty()) {
+            inside = new long[series.size()];
+            int n = 0;
+            for (int i = 0; i < series.size(); i++) {
+                if (inBbox(series.cell(i), bounds)) inside[n++] = series.cell(i);
+            }
+            inside = Arrays.copyOf(inside, n);
         } else {
-            Map<String, Double> base = repository.h10VolumeByDay(day);
-            return aggregateVolume(base, resolution, bounds);
+            inside = parents(centroidIndex.cellsWithin(bounds[0], bounds[1], bounds[2], bounds[3]), resolution);
         }
+        return series.retain(inside);
     }
 
-    private List<Object[]> byHour(Metric metric, int resolution, LocalDateTime hour, double[] bounds) {
-        if (metric == Metric.PRICE) {
-            Map<String, PriceInputs> base = repository.h10PriceByHour(hour);
-            return aggregatePrice(base, resolution, bounds);
-        } else {
-            Map<String, Double> base = repository.h10VolumeByHour(hour);
-            return aggregateVolume(base, resolution, bounds);
+    private H3CellSums byDay(Metric metric, LocalDate day, CellCover cover) {
+        return metric == Metric.PRICE ? repository.h10PriceByDay(day, cover) : repository.h10VolumeByDay(day, cover);
+    }
+
+    private H3CellSums byHour(Metric metric, LocalDateTime hour, CellCover cover) {
+        return metric == Metric.PRICE ? repository.h10PriceByHour(hour, cover) : repository.h10VolumeByHour(hour, cover);
+    }
+
+    /**
+     * Polyfills the bbox at the configured coarse resolution, stepping coarser until the cover fits max-cells.
+     * Each cell is padded with its k=1 ring because H3 children are not strictly contained by their parents.
+     * The cover is never finer than the requested resolution: a requested cell crossing the bbox edge is rolled
+     * up from all of its H10 children, and those reach as far beyond the bbox as the cell does.
+     * Returns null (read the whole bucket) when pushdown is disabled or the bbox is too large to cover.
+     */
+    private CellCover cover(double[] bbox, int resolution) {
+        if (!pushdown.enabled()) return null;
+        List<GeoCoord> ring = List.of(
+                new GeoCoord(bbox[0], bbox[1]),
+                new GeoCoord(bbox[0], bbox[3]),
+                new GeoCoord(bbox[2], bbox[3]),
+                new GeoCoord(bbox[2], bbox[1])
+        );
+        double midLat = (bbox[0] + bbox[2]) / 2;
+        double areaKm2 = (bbox[2] - bbox[0]) * KM_PER_DEGREE
+                * (bbox[3] - bbox[1]) * KM_PER_DEGREE * Math.cos(Math.toRadians(midLat));
+        int finest = Math.min(Math.max(Math.min(pushdown.resolution(), resolution), MIN_COVER_RESOLUTION), MAX_COVER_RESOLUTION);
+        for (int res = finest; res >= MIN_COVER_RESOLUTION; res--) {
+            if (areaKm2 / h3.hexArea(res, AreaUnit.km2) > pushdown.maxCells()) continue;
+            List<Long> seeds = new ArrayList<>(h3.polyfill(ring, List.of(), res));
+            for (GeoCoord corner : ring) {
+                seeds.add(h3.geoToH3(corner.lat, corner.lng, res));
+            }
+            seeds.add(h3.geoToH3(midLat, (bbox[1] + bbox[3]) / 2, res));
+            long[] cells = seeds.stream()
+                    .flatMap(c -> h3.kRing(c, 1).stream())
+                    .mapToLong(Long::longValue)
+                    .distinct()
+                    .toArray();
+            if (cells.length <= pushdown.maxCells()) {
+                return new CellCover(res, cells);
+            }
         }
+        return null;
     }
 
-    private List<Object[]> aggregatePrice(Map<String, PriceInputs> h10, int resolution, double[] bbox) {
-        Map<String, PriceInputs> agg = new HashMap<>();
-        for (Map.Entry<String, PriceInputs> e : h10.entrySet()) {
-            String cell = e.getKey();
-            if (!inBbox(cell, bbox)) continue;
-            String parent = resolution >= 10 ? cell : h3.h3ToParentAddress(cell, resolution);
-            agg.merge(parent, e.getValue(), PriceInputs::add);
+    private static H3CellValues averages(H3CellSums sums) {
+        long[] cells = new long[sums.size()];
+        double[] values = new double[sums.size()];
+        int n = 0;
+        for (int i = 0; i < sums.size(); i++) {
+            if (sums.count(i) <= 0) continue;
+            cells[n] = sums.cell(i);
+            values[n] = sums.sum(i) / sums.count(i);
+            n++;
         }
-        return agg.entrySet().stream()
-                .filter(en -> en.getValue().priceCount() > 0)
-                .map(en -> new Object[]{en.getKey(), en.getValue().priceSum() / en.getValue().priceCount()})
-                .sorted(Comparator.comparing(o -> (String) o[0]))
-                .toList();
+        return new H3CellValues(Arrays.copyOf(cells, n), Arrays.copyOf(values, n));
     }
 
-    private List<Object[]> aggregateVolume(Map<String, Double> h10, int resolution, double[] bbox) {
-        Map<String, Double> agg = new HashMap<>();
-        for (Map.Entry<String, Double> e : h10.entrySet()) {
-            String cell = e.getKey();
-            if (!inBbox(cell, bbox)) continue;
-            String parent = resolution >= 10 ? cell : h3.h3ToParentAddress(cell, resolution);
-            agg.merge(parent, e.getValue(), Double::sum);
+    private static H3CellValues totals(H3CellSums sums) {
+        long[] cells = new long[sums.size()];
+        double[] values = new double[sums.size()];
+        for (int i = 0; i < sums.size(); i++) {
+            cells[i] = sums.cell(i);
+            values[i] = sums.sum(i);
+        }
+        return new H3CellValues(cells, values);
+    }
+
+    /**
+     * Cells at the target resolution whose H10 children have a centroid inside the bbox.
+     */
+    private long[] cellsInBbox(H3CellSums base, double[] bbox, int resolution) {
+        long[] h10;
+        if (centroidIndex.isEmpty()) {
+            // index not populated yet (no station_h3_index rows): fall back to per-cell centroids
+            H3CellSums inside = base.filter(cell -> inBbox(cell, bbox));
+            h10 = new long[inside.size()];
+            for (int i = 0; i < h10.length; i++) h10[i] = inside.cell(i);
+        } else {
+            h10 = centroidIndex.cellsWithin(bbox[0], bbox[1], bbox[2], bbox[3]);
         }
-        return agg.entrySet().stream()
-                .map(en -> new Object[]{en.getKey(), en.getValue()})
-                .sorted(Comparator.comparing(o -> (String) o[0]))
-                .toList();
+        return parents(h10, resolution);
     }
 
-    private boolean inBbox(String h3Cell, double[] bbox) {
+    private static long[] parents(long[] h10, int resolution) {
+        if (resolution >= H10) return h10;
+        long[] parents = new long[h10.length];
+        for (int i = 0; i < h10.length; i++) parents[i] = H3Cells.parent(h10[i], resolution);
+        return parents;
+    }
+
+    private boolean inBbox(long h3Cell, double[] bbox) {
         GeoCoord coord = h3.h3ToGeo(h3Cell);
         double lat = coord.lat;
         double lon = coord.lng;
@@ -105,6 +232,10 @@ public class DefaultH3HeatmapV2Service implements H3HeatmapV2Service {
         return new double[]{minLat, minLon, maxLat, maxLon};
     }
 
+    private static LocalDate parseDayOrDefault(String at) {
+        return at == null || at.isBlank() ? LocalDate.now() : LocalDate.parse(at);
+    }
+
     private static LocalDateTime parseHourOrDefault(String at) {
         if (at == null || at.isBlank()) {
             return LocalDateTime.now().withMinute(0).withSecond(0).withNano(0);
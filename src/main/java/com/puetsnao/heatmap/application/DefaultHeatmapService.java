@@ -7,14 +7,13 @@ import com.puetsnao.heatmap.infrastructure.summary.SummaryRepository;
 import com.puetsnao.price.app.PriceQueryPort;
 import com.puetsnao.sales.app.SalesQueryPort;
 import com.puetsnao.station.app.StationQueryPort;
+import com.puetsnao.station.app.StationSnapshot;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 public class DefaultHeatmapService implements HeatmapService {
@@ -48,14 +47,24 @@ public class DefaultHeatmapService implements HeatmapService {
 
     @Override
     @Transactional(readOnly = true)
-    @org.springframework.cache.annotation.Cacheable(cacheNames = "heatmap", key = "'heatmap:v2:' + #metric.name().toLowerCase() + ':' + #period.name().toLowerCase()")
+    @org.springframework.cache.annotation.Cacheable(cacheNames = "heatmap", sync = true, key = "'heatmap:v2:' + #metric.name().toLowerCase() + ':' + #period.name().toLowerCase()")
     public List<HeatPoint> heatmap(Metric metric, Period period) {
-        LocalDateTime toTs = LocalDateTime.now();
-        LocalDateTime fromTs = switch (period) { case LAST30D -> toTs.minusDays(30); };
-        LocalDate fromDate = fromTs.toLocalDate();
-        LocalDate toDate = toTs.toLocalDate();
+        LocalDate toDate = LocalDate.now();
+        return aggregate(metric, period.fromDate(toDate), toDate);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @org.springframework.cache.annotation.Cacheable(cacheNames = "heatmap", sync = true, key = "'heatmap:v2:' + #metric.name().toLowerCase() + ':' + #fromDate + ':' + #toDate")
+    public List<HeatPoint> heatmap(Metric metric, LocalDate fromDate, LocalDate toDate) {
+        if (toDate.isBefore(fromDate)) {
+            throw new IllegalArgumentException("to must not be before from");
+        }
+        return aggregate(metric, fromDate, toDate);
+    }
 
-        Map<String, StateCentroid> centroids = computeStateCentroids();
+    private List<HeatPoint> aggregate(Metric metric, LocalDate fromDate, LocalDate toDate) {
+        Map<String, StationSnapshot.Centroid> centroids = stationQuery.snapshot().stateCentroids();
 
         Map<String, Double> aggregated = switch (metric) {
             case PRICE -> readAveragePriceByState(fromDate, toDate);
@@ -83,27 +92,8 @@ public class DefaultHeatmapService implements HeatmapService {
         return salesQuery.totalVolumeByState(fromDate, toDate);
     }
 
-    private HeatPoint toHeatPoint(String state, StateCentroid centroid, double value) {
+    private HeatPoint toHeatPoint(String state, StationSnapshot.Centroid centroid, double value) {
         if (centroid == null) return null;
-        return new HeatPoint(state, centroid.lat(), centroid.lon(), value);
+        return new HeatPoint(state, centroid.latitude(), centroid.longitude(), value);
     }
-
-    private Map<String, StateCentroid> computeStateCentroids() {
-        return stationQuery.stations().stream()
-                .collect(Collectors.groupingBy(StationQueryPort.StationLocation::state))
-                .entrySet().stream()
-                .collect(Collectors.toMap(Map.Entry::getKey, e -> centroid(e.getValue())));
-    }
-
-    private StateCentroid centroid(List<StationQueryPort.StationLocation> stations) {
-        double avgLat = stations.stream()
-                .mapToDouble(StationQueryPort.StationLocation::latitude)
-                .average().orElse(0.0);
-        double avgLon = stations.stream()
-                .mapToDouble(StationQueryPort.StationLocation::longitude)
-                .average().orElse(0.0);
-        return new StateCentroid(avgLat, avgLon);
-    }
-
-    private record StateCentroid(double lat, double lon) {}
 }
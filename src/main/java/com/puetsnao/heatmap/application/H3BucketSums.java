@@ -0,0 +1,49 @@
+package com.puetsnao.heatmap.application;
+
+import com.puetsnao.heatmap.domain.Metric;
+import com.puetsnao.heatmap.infrastructure.summary.H3CellSums;
+import com.puetsnao.heatmap.infrastructure.summary.H3SummaryRepository;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Cached per-bucket H10 sums and their per-resolution rollups for the v2 endpoint. Keys carry only
+ * metric, resolution and bucket, so every bbox over the same bucket is served from the same entries.
+ * Rollups take the already loaded base as an argument that is left out of the key, so a rollup miss rolls it up
+ * without reading the summary table again.
+ * <p>
+ * Reads with bbox pushdown go to the repository directly and never see these entries; see
+ * {@link DefaultH3HeatmapV2Service#queryPairs}.
+ */
+@Component
+public class H3BucketSums {
+
+    private final H3SummaryRepository repository;
+
+    public H3BucketSums(H3SummaryRepository repository) {
+        this.repository = repository;
+    }
+
+    @Cacheable(cacheNames = "h3sums", sync = true, condition = "!@liveH3Aggregator.covers(#day)", key = "'h3sums:day:' + #metric.name().toLowerCase() + ':10:' + #day")
+    public H3CellSums baseByDay(Metric metric, LocalDate day) {
+        return metric == Metric.PRICE ? repository.h10PriceByDay(day) : repository.h10VolumeByDay(day);
+    }
+
+    @Cacheable(cacheNames = "h3sums", sync = true, condition = "!@liveH3Aggregator.covers(#hour)", key = "'h3sums:hour:' + #metric.name().toLowerCase() + ':10:' + #hour")
+    public H3CellSums baseByHour(Metric metric, LocalDateTime hour) {
+        return metric == Metric.PRICE ? repository.h10PriceByHour(hour) : repository.h10VolumeByHour(hour);
+    }
+
+    @Cacheable(cacheNames = "h3sums", sync = true, condition = "!@liveH3Aggregator.covers(#day)", key = "'h3sums:day:' + #metric.name().toLowerCase() + ':' + #resolution + ':' + #day")
+    public H3CellSums rollupByDay(Metric metric, int resolution, LocalDate day, H3CellSums base) {
+        return base.rollup(resolution);
+    }
+
+    @Cacheable(cacheNames = "h3sums", sync = true, condition = "!@liveH3Aggregator.covers(#hour)", key = "'h3sums:hour:' + #metric.name().toLowerCase() + ':' + #resolution + ':' + #hour")
+    public H3CellSums rollupByHour(Metric metric, int resolution, LocalDateTime hour, H3CellSums base) {
+        return base.rollup(resolution);
+    }
+}
@@ -14,12 +14,16 @@ public interface H3HeatmapService {
 
     default List<H3CellPoint> query(Metric metric, int resolution, BucketGranularity bucket, String at) {
         return switch (bucket) {
-            case DAY -> byDay(metric, resolution, (at == null || at.isBlank()) ? LocalDate.now() : LocalDate.parse(at));
+            case DAY -> byDay(metric, resolution, parseDayOrDefault(at));
             case HOUR -> byHour(metric, resolution, parseHourOrDefault(at));
         };
     }
 
-    private static LocalDateTime parseHourOrDefault(String at) {
+    static LocalDate parseDayOrDefault(String at) {
+        return (at == null || at.isBlank()) ? LocalDate.now() : LocalDate.parse(at);
+    }
+
+    static LocalDateTime parseHourOrDefault(String at) {
         if (at == null || at.isBlank()) {
             return LocalDateTime.now().withMinute(0).withSecond(0).withNano(0);
         }
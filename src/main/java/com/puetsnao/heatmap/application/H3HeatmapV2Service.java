@@ -1,11 +1,15 @@
 package com.puetsnao.heatmap.application;
 
 import com.puetsnao.heatmap.domain.BucketGranularity;
+import com.puetsnao.heatmap.domain.BucketRange;
+import com.puetsnao.heatmap.domain.H3CellSeries;
+import com.puetsnao.heatmap.domain.H3CellValues;
 import com.puetsnao.heatmap.domain.Metric;
 
-import java.util.List;
-
 public interface H3HeatmapV2Service {
-    // Returns minimal payload pairs [cell, value]
-    List<Object[]> queryPairs(Metric metric, int resolution, BucketGranularity bucket, String at, String bbox);
+    // Returns minimal payload pairs [cell, value], serialized from packed cell indexes
+    H3CellValues queryPairs(Metric metric, int resolution, BucketGranularity bucket, String at, String bbox);
+
+    // Same cells and values for every bucket of a range, for playback in one round trip
+    H3CellSeries querySeries(Metric metric, int resolution, BucketRange range, String bbox);
 }
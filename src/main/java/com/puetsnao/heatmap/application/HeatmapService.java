@@ -4,8 +4,12 @@ import com.puetsnao.heatmap.domain.HeatPoint;
 import com.puetsnao.heatmap.domain.Metric;
 import com.puetsnao.heatmap.domain.Period;
 
+import java.time.LocalDate;
 import java.util.List;
 
 public interface HeatmapService {
     List<HeatPoint> heatmap(Metric metric, Period period);
+
+    // Custom range, both days inclusive
+    List<HeatPoint> heatmap(Metric metric, LocalDate fromDate, LocalDate toDate);
 }
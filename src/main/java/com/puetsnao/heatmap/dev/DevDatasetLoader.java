@@ -1,5 +1,6 @@
 package com.puetsnao.heatmap.dev;
 
+import com.puetsnao.station.app.StationQueryPort;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -25,7 +26,7 @@ public class DevDatasetLoader {
     private static final int BATCH_SIZE = 1000;
 
     @Bean
-    CommandLineRunner seedDevData(JdbcTemplate jdbc, DevSeedProperties seedProps) {
+    CommandLineRunner seedDevData(JdbcTemplate jdbc, DevSeedProperties seedProps, StationQueryPort stationQuery) {
         return args -> {
             Long stationCount = jdbc.queryForObject("select count(*) from station", Long.class);
             Long productCount = jdbc.queryForObject("select count(*) from product", Long.class);
@@ -72,6 +73,8 @@ public class DevDatasetLoader {
                         jdbc.batchUpdate("INSERT INTO station (code, name, state, latitude, longitude) VALUES (?,?,?,?,?)", stationBatch);
                         stationBatch.clear();
                     }
+                    // stations are insert-only; readers only need to drop their snapshot
+                    stationQuery.invalidate();
                     System.out.println("[DEBUG_LOG] Seeded NJ stations: +" + missing + " (total target=" + target + ")");
                 }
 
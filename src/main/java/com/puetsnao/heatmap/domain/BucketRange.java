@@ -0,0 +1,79 @@
+package com.puetsnao.heatmap.domain;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Consecutive day or hour buckets {@code [start, start + frames)}, the frames of a time-series response.
+ */
+public record BucketRange(BucketGranularity granularity, LocalDateTime start, int frames) {
+
+    public static final int MAX_HOUR_FRAMES = 168;
+    public static final int MAX_DAY_FRAMES = 92;
+
+    public BucketRange {
+        int max = granularity == BucketGranularity.HOUR ? MAX_HOUR_FRAMES : MAX_DAY_FRAMES;
+        if (frames < 1 || frames > max) {
+            throw new IllegalArgumentException("Range must cover 1 to " + max + " " + granularity.name().toLowerCase() + " buckets");
+        }
+    }
+
+    /**
+     * Parses a half-open {@code [from, to)} range. Without {@code to} an hour range covers one day and a day range
+     * one week. Hour bounds accept {@code yyyy-MM-dd} or {@code yyyy-MM-ddTHH[:mm[:ss]]} and are truncated to the hour.
+     */
+    public static BucketRange parse(BucketGranularity granularity, String from, String to) {
+        if (from == null || from.isBlank()) throw new IllegalArgumentException("'from' is required");
+        LocalDateTime start = bucketStart(granularity, from);
+        LocalDateTime end = (to == null || to.isBlank())
+                ? (granularity == BucketGranularity.HOUR ? start.plusDays(1) : start.plusDays(7))
+                : bucketStart(granularity, to);
+        long frames = granularity == BucketGranularity.HOUR
+                ? ChronoUnit.HOURS.between(start, end)
+                : ChronoUnit.DAYS.between(start, end);
+        if (frames < 1) throw new IllegalArgumentException("'to' must be after 'from'");
+        return new BucketRange(granularity, start, (int) Math.min(frames, Integer.MAX_VALUE));
+    }
+
+    public LocalDateTime end() {
+        return frameStart(frames);
+    }
+
+    public LocalDateTime frameStart(int frame) {
+        return granularity == BucketGranularity.HOUR ? start.plusHours(frame) : start.plusDays(frame);
+    }
+
+    /**
+     * Index of the frame containing {@code time}; out-of-range times give an index outside {@code [0, frames)}.
+     */
+    public int frameOf(LocalDateTime time) {
+        long index = granularity == BucketGranularity.HOUR
+                ? ChronoUnit.HOURS.between(start, time.truncatedTo(ChronoUnit.HOURS))
+                : ChronoUnit.DAYS.between(start.toLocalDate(), time.toLocalDate());
+        return (int) index;
+    }
+
+    /**
+     * Calendar days touched by the range, in order.
+     */
+    public List<LocalDate> days() {
+        return start.toLocalDate().datesUntil(end().minusNanos(1).toLocalDate().plusDays(1)).toList();
+    }
+
+    private static LocalDateTime bucketStart(BucketGranularity granularity, String raw) {
+        if (granularity == BucketGranularity.DAY) {
+            return LocalDate.parse(raw.trim()).atStartOfDay();
+        }
+        try {
+            return LocalDateTime.parse(raw.trim()).truncatedTo(ChronoUnit.HOURS);
+        } catch (Exception ignored) {
+        }
+        try {
+            return LocalDate.parse(raw.trim()).atStartOfDay();
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid hour bound. Expected 'yyyy-MM-dd' or 'yyyy-MM-ddTHH[:mm[:ss]]'", e);
+        }
+    }
+}
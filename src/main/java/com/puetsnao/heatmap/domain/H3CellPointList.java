@@ -0,0 +1,67 @@
+package com.puetsnao.heatmap.domain;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * {@link H3CellPoint} list view over {@link H3CellValues} columns of one resolution. Points are only materialized
+ * on {@link #get(int)}; serialization streams {@code [{"cell", "resolution", "value"}, ...]} from the columns.
+ */
+@JsonSerialize(using = H3CellPointList.ObjectsSerializer.class)
+public final class H3CellPointList extends AbstractList<H3CellPoint> implements RandomAccess {
+
+    private final int resolution;
+    private final H3CellValues values;
+
+    public H3CellPointList(int resolution, H3CellValues values) {
+        this.resolution = resolution;
+        this.values = values;
+    }
+
+    public int resolution() {
+        return resolution;
+    }
+
+    public H3CellValues values() {
+        return values;
+    }
+
+    @Override
+    public H3CellPoint get(int index) {
+        return new H3CellPoint(H3Cells.format(values.cell(index)), resolution, values.value(index));
+    }
+
+    @Override
+    public int size() {
+        return values.size();
+    }
+
+    public static final class ObjectsSerializer extends StdSerializer<H3CellPointList> {
+
+        public ObjectsSerializer() {
+            super(H3CellPointList.class);
+        }
+
+        @Override
+        public void serialize(H3CellPointList list, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            H3CellValues columns = list.values;
+            char[] hex = new char[16];
+            gen.writeStartArray();
+            for (int i = 0; i < columns.size(); i++) {
+                gen.writeStartObject();
+                gen.writeFieldName("cell");
+                gen.writeString(hex, 0, H3Cells.formatTo(columns.cell(i), hex));
+                gen.writeNumberField("resolution", list.resolution);
+                gen.writeNumberField("value", columns.value(i));
+                gen.writeEndObject();
+            }
+            gen.writeEndArray();
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.puetsnao.heatmap.domain;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Values of H3 cells over the frames of a {@link BucketRange}, cell-major: one row of {@code frames} values per cell,
+ * cells sorted by index. A frame without data for a cell holds {@code NaN}.
+ * <p>
+ * Serialized with each cell string written once and each row delta-encoded in fixed-point units of
+ * {@code 1/scale}, so a value that barely moves between frames costs a byte or two:
+ * <pre>
+ * {"bucket": "hour", "start": "2025-09-01T00:00", "frames": 24, "resolution": 7, "scale": 1000,
+ *  "cells": ["87...", ...],
+ *  "values": [[3459, 0, -12, null, 4, ...], ...]}
+ * </pre>
+ * Each number is the change from the previous frame that had data, starting from 0, so the first one is the
+ * absolute value; {@code null} marks a frame without data.
+ */
+@JsonSerialize(using = H3CellSeries.DeltaSerializer.class)
+public final class H3CellSeries {
+
+    public static final int SCALE = 1000;
+
+    private final BucketRange range;
+    private final int resolution;
+    private final long[] cells;
+    private final double[] values;
+
+    private H3CellSeries(BucketRange range, int resolution, long[] cells, double[] values) {
+        this.range = range;
+        this.resolution = resolution;
+        this.cells = cells;
+        this.values = values;
+    }
+
+    public static Builder builder(BucketRange range, int resolution) {
+        return new Builder(range, resolution);
+    }
+
+    public BucketRange range() {
+        return range;
+    }
+
+    public int resolution() {
+        return resolution;
+    }
+
+    public int size() {
+        return cells.length;
+    }
+
+    public long cell(int i) {
+        return cells[i];
+    }
+
+    /**
+     * Value of cell {@code i} in {@code frame}, {@code NaN} when the bucket has no data for it.
+     */
+    public double value(int i, int frame) {
+        return values[i * range.frames() + frame];
+    }
+
+    /**
+     * Keeps only the candidate cells; candidates may be unsorted and repeat.
+     */
+    public H3CellSeries retain(long[] candidates) {
+        long[] sortedCells = candidates.clone();
+        Arrays.sort(sortedCells);
+        int frames = range.frames();
+        long[] keptCells = new long[cells.length];
+        double[] keptValues = new double[values.length];
+        int n = 0;
+        for (int i = 0; i < cells.length; i++) {
+            if (Arrays.binarySearch(sortedCells, cells[i]) < 0) continue;
+            keptCells[n] = cells[i];
+            System.arraycopy(values, i * frames, keptValues, n * frames, frames);
+            n++;
+        }
+        return new H3CellSeries(range, resolution, Arrays.copyOf(keptCells, n), Arrays.copyOf(keptValues, n * frames));
+    }
+
+    /**
+     * Builder for a copy of this series, e.g. to replace some frames.
+     */
+    public Builder toBuilder() {
+        Builder builder = new Builder(range, resolution);
+        int frames = range.frames();
+        for (int i = 0; i < cells.length; i++) {
+            builder.rows.put(cells[i], Arrays.copyOfRange(values, i * frames, (i + 1) * frames));
+        }
+        return builder;
+    }
+
+    public static final class Builder {
+
+        private final BucketRange range;
+        private final int resolution;
+        private final Map<Long, double[]> rows = new HashMap<>();
+
+        private Builder(BucketRange range, int resolution) {
+            this.range = range;
+            this.resolution = resolution;
+        }
+
+        public Builder put(long cell, int frame, double value) {
+            rows.computeIfAbsent(cell, c -> {
+                double[] row = new double[range.frames()];
+                Arrays.fill(row, Double.NaN);
+                return row;
+            })[frame] = value;
+            return this;
+        }
+
+        /**
+         * Replaces everything in {@code frame} with the given values.
+         */
+        public Builder frame(int frame, H3CellValues frameValues) {
+            for (double[] row : rows.values()) row[frame] = Double.NaN;
+            for (int i = 0; i < frameValues.size(); i++) {
+                put(frameValues.cell(i), frame, frameValues.value(i));
+            }
+            return this;
+        }
+
+        public H3CellSeries build() {
+            int frames = range.frames();
+            long[] cells = new long[rows.size()];
+            int n = 0;
+            for (Map.Entry<Long, double[]> row : rows.entrySet()) {
+                if (hasData(row.getValue())) cells[n++] = row.getKey();
+            }
+            cells = Arrays.copyOf(cells, n);
+            Arrays.sort(cells);
+            double[] values = new double[n * frames];
+            for (int i = 0; i < n; i++) {
+                System.arraycopy(rows.get(cells[i]), 0, values, i * frames, frames);
+            }
+            return new H3CellSeries(range, resolution, cells, values);
+        }
+
+        private static boolean hasData(double[] row) {
+            for (double v : row) {
+                if (!Double.isNaN(v)) return true;
+            }
+            return false;
+        }
+    }
+
+    public static final class DeltaSerializer extends StdSerializer<H3CellSeries> {
+
+        public DeltaSerializer() {
+            super(H3CellSeries.class);
+        }
+
+        @Override
+        public void serialize(H3CellSeries series, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            BucketRange range = series.range;
+            int frames = range.frames();
+            gen.writeStartObject();
+            gen.writeStringField("bucket", range.granularity().name().toLowerCase());
+            gen.writeStringField("start", range.granularity() == BucketGranularity.DAY
+                    ? range.start().toLocalDate().toString()
+                    : range.start().toString());
+            gen.writeNumberField("frames", frames);
+            gen.writeNumberField("resolution", series.resolution);
+            gen.writeNumberField("scale", SCALE);
+
+            char[] hex = new char[16];
+            gen.writeArrayFieldStart("cells");
+            for (long cell : series.cells) {
+                gen.writeString(hex, 0, H3Cells.formatTo(cell, hex));
+            }
+            gen.writeEndArray();
+
+            gen.writeArrayFieldStart("values");
+            for (int i = 0; i < series.cells.length; i++) {
+                gen.writeStartArray();
+                long previous = 0;
+                for (int f = 0; f < frames; f++) {
+                    double value = series.values[i * frames + f];
+                    if (Double.isNaN(value)) {
+                        gen.writeNull();
+                        continue;
+                    }
+                    long units = Math.round(value * SCALE);
+                    gen.writeNumber(units - previous);
+                    previous = units;
+                }
+                gen.writeEndArray();
+            }
+            gen.writeEndArray();
+            gen.writeEndObject();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.puetsnao.heatmap.domain;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * Aggregated values per H3 cell, sorted by cell index. Cells stay as 64-bit indexes until serialization,
+ * which writes the minimal {@code [["<hex cell>", value], ...]} payload.
+ */
+@JsonSerialize(using = H3CellValues.PairsSerializer.class)
+public final class H3CellValues {
+
+    private final long[] cells;
+    private final double[] values;
+
+    public H3CellValues(long[] cells, double[] values) {
+        if (cells.length != values.length) {
+            throw new IllegalArgumentException("cells and values must have the same length");
+        }
+        this.cells = cells;
+        this.values = values;
+    }
+
+    /**
+     * Wraps unsorted columns (e.g. straight from a result set), sorting both arrays in place by cell.
+     */
+    public static H3CellValues sortByCell(long[] cells, double[] values) {
+        H3CellValues result = new H3CellValues(cells, values);
+        for (int i = 1; i < cells.length; i++) {
+            if (cells[i - 1] > cells[i]) {
+                result.sort(0, cells.length - 1);
+                break;
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        return cells.length;
+    }
+
+    public long cell(int i) {
+        return cells[i];
+    }
+
+    public double value(int i) {
+        return values[i];
+    }
+
+    private void sort(int lo, int hi) {
+        while (lo < hi) {
+            long pivot = cells[(lo + hi) >>> 1];
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (cells[i] < pivot) i++;
+                while (cells[j] > pivot) j--;
+                if (i <= j) swap(i++, j--);
+            }
+            // recurse into the smaller half to bound stack depth
+            if (j - lo < hi - i) {
+                sort(lo, j);
+                lo = i;
+            } else {
+                sort(i, hi);
+                hi = j;
+            }
+        }
+    }
+
+    private void swap(int a, int b) {
+        long cell = cells[a];
+        cells[a] = cells[b];
+        cells[b] = cell;
+        double value = values[a];
+        values[a] = values[b];
+        values[b] = value;
+    }
+
+    public static final class PairsSerializer extends StdSerializer<H3CellValues> {
+
+        public PairsSerializer() {
+            super(H3CellValues.class);
+        }
+
+        @Override
+        public void serialize(H3CellValues payload, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            char[] hex = new char[16];
+            gen.writeStartArray();
+            for (int i = 0; i < payload.cells.length; i++) {
+                gen.writeStartArray();
+                gen.writeString(hex, 0, H3Cells.formatTo(payload.cells[i], hex));
+                gen.writeNumber(payload.values[i]);
+                gen.writeEndArray();
+            }
+            gen.writeEndArray();
+        }
+    }
+}
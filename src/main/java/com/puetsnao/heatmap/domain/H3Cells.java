@@ -0,0 +1,54 @@
+package com.puetsnao.heatmap.domain;
+
+/**
+ * Bit-level helpers for 64-bit H3 cell indexes so hot paths never round-trip through hex strings or JNI.
+ */
+public final class H3Cells {
+
+    private static final int RES_OFFSET = 52;
+    private static final long RES_MASK = 0xFL << RES_OFFSET;
+    private static final int MAX_RES = 15;
+    private static final int DIGIT_BITS = 3;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private H3Cells() {
+    }
+
+    public static long parse(String address) {
+        return Long.parseUnsignedLong(address, 16);
+    }
+
+    public static String format(long cell) {
+        return Long.toHexString(cell);
+    }
+
+    /**
+     * Writes the digits of {@link #format(long)} into {@code dest} (16 chars suffice) and returns their count,
+     * so serializers can emit cells without allocating a string per cell.
+     */
+    public static int formatTo(long cell, char[] dest) {
+        int digits = Math.max(1, (Long.SIZE - Long.numberOfLeadingZeros(cell) + 3) / 4);
+        for (int i = digits - 1; i >= 0; i--) {
+            dest[i] = HEX[(int) (cell & 0xF)];
+            cell >>>= 4;
+        }
+        return digits;
+    }
+
+    public static int resolution(long cell) {
+        return (int) ((cell & RES_MASK) >>> RES_OFFSET);
+    }
+
+    /**
+     * Same result as {@code H3Core.h3ToParent}: sets the resolution and fills every finer digit with 7.
+     */
+    public static long parent(long cell, int resolution) {
+        int current = resolution(cell);
+        if (resolution == current) return cell;
+        if (resolution < 0 || resolution > current) {
+            throw new IllegalArgumentException("Parent resolution " + resolution + " is not coarser than " + current);
+        }
+        long unusedDigits = (1L << ((MAX_RES - resolution) * DIGIT_BITS)) - 1;
+        return (cell & ~RES_MASK) | ((long) resolution << RES_OFFSET) | unusedDigits;
+    }
+}
@@ -1,11 +1,30 @@
 package com.puetsnao.heatmap.domain;
 
+import java.time.LocalDate;
+
 public enum Period {
-    LAST30D;
+    LAST7D(7),
+    LAST30D(30),
+    LAST90D(90),
+    LAST365D(365);
+
+    private final int days;
+
+    Period(int days) {
+        this.days = days;
+    }
+
+    public int days() {
+        return days;
+    }
+
+    // First day of the period ending today; the range is inclusive of both ends
+    public LocalDate fromDate(LocalDate today) {
+        return today.minusDays(days);
+    }
 
     public static Period from(String raw) {
         String normalized = raw.trim().toUpperCase().replace("-", "");
-        if (normalized.equals("LAST30D")) return LAST30D;
         return Period.valueOf(normalized);
     }
 }
@@ -0,0 +1,224 @@
+package com.puetsnao.heatmap.infrastructure.batch;
+
+import com.puetsnao.heatmap.infrastructure.cache.HeatmapCacheInvalidator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Day partitions of the range-partitioned H3 summaries (PostgreSQL, see {@code db/vendor/postgresql/V8}).
+ * <p>
+ * A refreshed day is built into a staging table outside any lock on the summary, then swapped in with a short
+ * DETACH/ATTACH transaction, so readers see the old or the new day and the old rows are dropped as a whole table
+ * instead of leaving dead tuples and index bloat behind. Partitions older than the retention are detached
+ * concurrently and dropped.
+ * <p>
+ * Several instances may refresh the same day: staging tables carry the pid of the backend that built them, so
+ * builds never share one, and a day is swapped or dropped under a PostgreSQL advisory lock on (table, day); an
+ * instance that does not get it fails the attempt and retries later.
+ * <p>
+ * The tables have no DEFAULT partition (see {@code db/vendor/postgresql/V12}): it would forbid the concurrent
+ * detach and cost every ATTACH a scan of it. A row for a day without a partition is rejected, so this class is
+ * the only writer.
+ */
+@Component
+@ConditionalOnProperty(name = "heatmap.summary-refresh.enabled", havingValue = "true")
+public class H3SummaryPartitions {
+
+    private static final Logger log = LoggerFactory.getLogger(H3SummaryPartitions.class);
+
+    static final String DAILY = "daily_h3_product_summary";
+    static final String HOURLY = "hourly_h3_product_summary";
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SummaryRefreshProperties properties;
+    private final HeatmapCacheInvalidator cacheInvalidator;
+
+    public H3SummaryPartitions(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                               SummaryRefreshProperties properties, HeatmapCacheInvalidator cacheInvalidator) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+        this.cacheInvalidator = cacheInvalidator;
+    }
+
+    /**
+     * Replaces the partition of {@code day} with a staging table that {@code fill} populates; {@code fill}
+     * receives the staging table name.
+     */
+    public void swapIn(String table, LocalDate day, Consumer<String> fill) {
+        String partition = partitionName(table, day);
+
+        String staging = transactionTemplate.execute(status -> {
+            dropOrphanedStaging(table, day);
+            String name = stagingPrefix(table, day) + jdbcTemplate.queryForObject("SELECT pg_backend_pid()", Integer.class);
+            jdbcTemplate.execute("CREATE TABLE " + name + " (LIKE " + table + " INCLUDING DEFAULTS INCLUDING INDEXES)");
+            fill.accept(name);
+            // a matching CHECK lets ATTACH skip the validation scan while it holds the lock
+            jdbcTemplate.execute("ALTER TABLE " + name + " ADD CONSTRAINT " + name + "_bounds CHECK (" + checkOf(table, day) + ")");
+            jdbcTemplate.execute("ANALYZE " + name);
+            return name;
+        });
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Boolean locked = jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(hashtext(?), ?)",
+                        Boolean.class, table, lockKey(day));
+                if (!Boolean.TRUE.equals(locked)) {
+                    throw new IllegalStateException(partition + " is being swapped by another instance");
+                }
+                // queueing behind a long read would block every reader queued behind the swap; fail and retry instead
+                jdbcTemplate.execute("SET LOCAL lock_timeout = '" + properties.swapLockTimeoutMs() + "ms'");
+                // A plain DETACH holds ACCESS EXCLUSIVE on the parent until commit, on purpose: DETACH CONCURRENTLY
+                // cannot run in a transaction, so the day would read (and be cached) as empty until the ATTACH, for
+                // as long as the concurrent detach waits out older reads. The lock covers catalog updates only: the
+                // CHECK spares ATTACH its scan and the old rows go with a DROP rather than a DELETE.
+                if (exists(partition)) {
+                    jdbcTemplate.execute("ALTER TABLE " + table + " DETACH PARTITION " + partition);
+                    jdbcTemplate.execute("DROP TABLE " + partition);
+                }
+                jdbcTemplate.execute("ALTER TABLE " + staging + " RENAME TO " + partition);
+                jdbcTemplate.execute("ALTER TABLE " + table + " ATTACH PARTITION " + partition + " FOR VALUES FROM ('" + day + "') TO ('" + day.plusDays(1) + "')");
+                jdbcTemplate.execute("ALTER TABLE " + partition + " DROP CONSTRAINT " + staging + "_bounds");
+            });
+        } catch (RuntimeException e) {
+            jdbcTemplate.execute("DROP TABLE IF EXISTS " + staging);
+            throw e;
+        }
+        log.info("Swapped in {}", partition);
+    }
+
+    /**
+     * Detaches and drops day partitions older than {@code heatmap.summary-refresh.retention-days}; 0 keeps all.
+     */
+    @Scheduled(fixedDelayString = "${heatmap.summary-refresh.retention-check-ms:3600000}",
+            initialDelayString = "${heatmap.summary-refresh.initial-delay-ms:15000}")
+    public void dropExpired() {
+        int retentionDays = properties.retentionDays();
+        if (retentionDays <= 0) return;
+        LocalDate oldestKept = LocalDate.now().minusDays(retentionDays);
+        List<LocalDate> dropped = new ArrayList<>();
+        for (String table : List.of(DAILY, HOURLY)) {
+            for (LocalDate day : days(table)) {
+                if (!day.isBefore(oldestKept)) continue;
+                if (detachAndDrop(table, day)) dropped.add(day);
+            }
+        }
+        if (dropped.isEmpty()) return;
+        cacheInvalidator.h3BucketsRewritten(dropped.stream().distinct().toList());
+        log.info("Dropped {} H3 summary partitions older than {}", dropped.size(), oldestKept);
+    }
+
+    /**
+     * Days that currently have a partition in {@code table}, oldest first.
+     */
+    List<LocalDate> days(String table) {
+        return jdbcTemplate.queryForList(
+                        """
+                        SELECT c.relname
+                        FROM pg_inherits i
+                        JOIN pg_class c ON c.oid = i.inhrelid
+                        JOIN pg_class p ON p.oid = i.inhparent
+                        WHERE p.relname = ?
+                        ORDER BY c.relname
+                        """,
+                        String.class, table)
+                .stream()
+                .map(name -> LocalDate.parse(name.substring(name.length() - 8), SUFFIX))
+                .toList();
+    }
+
+    static String partitionName(String table, LocalDate day) {
+        return table + "_p" + day.format(SUFFIX);
+    }
+
+    /**
+     * Detaches the partition of {@code day} concurrently, outside a transaction, so readers of the other days are
+     * never blocked (this one is going away anyway), then drops it. A detach interrupted earlier, for instance by
+     * the lock timeout, left the partition pending and is finalized instead. Returns false when another instance
+     * holds the day; the next check retries.
+     */
+    private boolean detachAndDrop(String table, LocalDate day) {
+        String partition = partitionName(table, day);
+        String key = "hashtext('" + table + "'), " + lockKey(day);
+        Boolean done = jdbcTemplate.execute((ConnectionCallback<Boolean>) con -> {
+            try (Statement st = con.createStatement()) {
+                if (!queryBoolean(st, "SELECT pg_try_advisory_lock(" + key + ")")) return false;
+                try {
+                    boolean pending = queryBoolean(st,
+                            "SELECT inhdetachpending FROM pg_inherits WHERE inhrelid = to_regclass('" + partition + "')");
+                    st.execute("SET lock_timeout = '" + properties.swapLockTimeoutMs() + "ms'");
+                    st.execute("ALTER TABLE " + table + " DETACH PARTITION " + partition + (pending ? " FINALIZE" : " CONCURRENTLY"));
+                    st.execute("DROP TABLE " + partition);
+                    return true;
+                } finally {
+                    // the connection goes back to the pool
+                    st.execute("RESET lock_timeout");
+                    queryBoolean(st, "SELECT pg_advisory_unlock(" + key + ")");
+                }
+            }
+        });
+        return Boolean.TRUE.equals(done);
+    }
+
+    /**
+     * Drops staging tables of {@code day} whose building backend is gone: an instance died between build and swap.
+     */
+    private void dropOrphanedStaging(String table, LocalDate day) {
+        String prefix = stagingPrefix(table, day);
+        List<String> orphans = jdbcTemplate.queryForList(
+                """
+                SELECT c.relname
+                FROM pg_class c
+                WHERE c.relkind = 'r'
+                  AND left(c.relname, ?) = ?
+                  AND NOT EXISTS (SELECT 1 FROM pg_stat_activity a WHERE a.pid::text = substr(c.relname, ?))
+                """,
+                String.class, prefix.length(), prefix, prefix.length() + 1);
+        for (String orphan : orphans) {
+            jdbcTemplate.execute("DROP TABLE IF EXISTS " + orphan);
+            log.warn("Dropped orphaned staging table {}", orphan);
+        }
+    }
+
+    // followed by the pid of the backend building it
+    private static String stagingPrefix(String table, LocalDate day) {
+        return table + "_s" + day.format(SUFFIX) + "_";
+    }
+
+    private static int lockKey(LocalDate day) {
+        return (int) day.toEpochDay();
+    }
+
+    private static boolean queryBoolean(Statement st, String sql) throws SQLException {
+        try (ResultSet rs = st.executeQuery(sql)) {
+            return rs.next() && rs.getBoolean(1);
+        }
+    }
+
+    private boolean exists(String partition) {
+        Boolean exists = jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, partition);
+        return Boolean.TRUE.equals(exists);
+    }
+
+    private static String checkOf(String table, LocalDate day) {
+        String column = HOURLY.equals(table) ? "bucket_hour" : "bucket_date";
+        return column + " IS NOT NULL AND " + column + " >= '" + day + "' AND " + column + " < '" + day.plusDays(1) + "'";
+    }
+}
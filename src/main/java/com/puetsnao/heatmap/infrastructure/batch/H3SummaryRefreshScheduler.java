@@ -1,88 +1,373 @@
 package com.puetsnao.heatmap.infrastructure.batch;
 
+import com.puetsnao.heatmap.domain.H3Cells;
+import com.puetsnao.heatmap.infrastructure.cache.HeatmapCacheInvalidator;
+import com.puetsnao.heatmap.infrastructure.summary.H3CentroidIndex;
+import com.puetsnao.station.app.StationQueryPort;
+import com.puetsnao.station.app.StationSnapshot;
 import com.uber.h3core.H3Core;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongBinaryOperator;
 
 @Component
 @ConditionalOnProperty(name = "heatmap.summary-refresh.enabled", havingValue = "true")
-public class H3SummaryRefreshScheduler {
+public class H3SummaryRefreshScheduler implements DisposableBean {
 
     private static final Logger log = LoggerFactory.getLogger(H3SummaryRefreshScheduler.class);
 
     private static final int[] RESOLUTIONS = new int[]{5, 6, 7, 8, 9, 10};
+    private static final int[] COARSE_RESOLUTIONS = new int[]{5, 6, 7, 8, 9};
+    private static final String SUMMARY = "h3";
+    private static final String PRICE = "price";
+    private static final String SALES = "sales";
+    private static final long RETRY_BACKOFF_MS = 500;
 
     private final JdbcTemplate jdbcTemplate;
+    private final H3CentroidIndex centroidIndex;
+    private final HeatmapCacheInvalidator cacheInvalidator;
+    private final StationQueryPort stationQuery;
+    private final TransactionTemplate transactionTemplate;
     private final SummaryRefreshProperties properties;
+    private final H3SummaryPartitions summaryPartitions;
+    // owned by the bean: runs never overlap (fixed delay), so partitions of one run share the parallelism threads
+    private final ExecutorService executor;
 
-    public H3SummaryRefreshScheduler(JdbcTemplate jdbcTemplate, SummaryRefreshProperties properties) {
+    public H3SummaryRefreshScheduler(JdbcTemplate jdbcTemplate, H3CentroidIndex centroidIndex,
+                                     HeatmapCacheInvalidator cacheInvalidator, StationQueryPort stationQuery,
+                                     TransactionTemplate transactionTemplate, SummaryRefreshProperties properties,
+                                     H3SummaryPartitions summaryPartitions) {
         this.jdbcTemplate = jdbcTemplate;
+        this.summaryPartitions = summaryPartitions;
+        this.transactionTemplate = transactionTemplate;
         this.properties = properties;
+        this.centroidIndex = centroidIndex;
+        this.cacheInvalidator = cacheInvalidator;
+        this.stationQuery = stationQuery;
+        AtomicInteger threadIds = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, properties.parallelism()), runnable -> {
+            Thread thread = new Thread(runnable, "h3-refresh-" + threadIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
     }
 
+    /**
+     * Re-aggregates only the days that received {@code price}/{@code sales} rows since the last run (ids above
+     * the per-source watermark), plus days holding rows of newly indexed stations. A station is indexed and marked
+     * pending in one transaction and stays pending until the watermarks advance, so its history is rebuilt by a
+     * later run if a partition of this one fails.
+     * <p>
+     * Ids are assigned at insert but rows become visible at commit, so a batch committing after a later one can
+     * land below {@code MAX(id)} of a run that already passed it. The ids scanned by the last run therefore stay
+     * open for one more run: their rows are counted again and, if more have appeared, rescanned. Transactions that
+     * stay open longer than the refresh interval are not covered.
+     * <p>
+     * Each touched (day, granularity) pair is one day partition of the summary table: it is rebuilt into a staging
+     * table and swapped in by {@link H3SummaryPartitions}, in parallel on a bounded pool and retried on failure, so
+     * a reader sees a day either before or after its refresh and locks are held for one short swap only. The
+     * watermarks advance once every partition has been swapped in; otherwise the next run rebuilds the same days.
+     */
     @Scheduled(fixedDelayString = "${heatmap.summary-refresh.fixed-delay-ms:600000}",
             initialDelayString = "${heatmap.summary-refresh.initial-delay-ms:15000}")
-    @Transactional
     public void refreshH3() {
-        LocalDate base = properties.targetDate() != null ? properties.targetDate() : LocalDate.now();
-        int windowDays = Math.max(properties.windowDays(), 1);
-        LocalDate fromDate;
-        LocalDate toDate;
-        if (properties.targetDate() != null) {
-            fromDate = base;
-            toDate = base;
-        } else {
-            // inclusive window of 'windowDays' ending at 'base'
-            fromDate = base.minusDays(windowDays - 1L);
-            toDate = base;
+        boolean[] indexed = {false};
+        List<Long> pending = transactionTemplate.execute(status -> {
+            indexed[0] = indexNewStations();
+            mapNewCellParents();
+            return pendingStations();
+        });
+        // once committed: a rolled-back index must not reach the centroid index
+        if (indexed[0]) centroidIndex.reload();
+
+        // both counts are taken before the scan: a row committing in between is scanned and counted next time
+        Watermark price = watermark(PRICE);
+        Watermark sales = watermark(SALES);
+        long priceFrom = scanFrom(PRICE, price, ids(PRICE));
+        long salesFrom = scanFrom(SALES, sales, ids(SALES));
+        long priceTo = maxId(PRICE, price.scannedId());
+        long salesTo = maxId(SALES, sales.scannedId());
+        if (priceTo == priceFrom && salesTo == salesFrom && pending.isEmpty()) {
+            log.debug("H3 summary refresh: no new price/sales rows since price.id={} sales.id={}", priceFrom, salesFrom);
+            return;
         }
+        Watermark priceScanned = scanned(price, priceTo, ids(PRICE));
+        Watermark salesScanned = scanned(sales, salesTo, ids(SALES));
 
-        log.info("Starting H3 summary refresh windowDays={} from={} to={} (targetDate={})", windowDays, fromDate, toDate, properties.targetDate());
+        SortedSet<LocalDate> days = new TreeSet<>();
+        collectTouchedDays(PRICE, "effective_at", priceFrom, priceTo, pending, days);
+        collectTouchedDays(SALES, "sold_at", salesFrom, salesTo, pending, days);
 
-        upsertStationH3Index();
-        refreshDailyH3(fromDate, toDate);
-        refreshHourlyH3(fromDate, toDate);
+        List<Partition> partitions = partitions(days);
+        log.info("Starting H3 summary refresh price.id=({}..{}] sales.id=({}..{}] pending={} days={} partitions={}",
+                priceFrom, priceTo, salesFrom, salesTo, pending.size(), days.size(), partitions.size());
 
-        log.info("H3 summary refresh done for window [{}..{}]", fromDate, toDate);
+        Outcome outcome = runPartitions(partitions);
+        // committed partitions are visible to readers whether or not the others made it
+        cacheInvalidator.h3BucketsRewritten(outcome.rewrittenDays());
+        if (outcome.failed() > 0) {
+            log.error("H3 summary refresh left {} of {} partitions failed; watermarks stay at price.id={} sales.id={}",
+                    outcome.failed(), partitions.size(), priceFrom, salesFrom);
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            saveWatermark(PRICE, priceScanned);
+            saveWatermark(SALES, salesScanned);
+            clearPendingStations(pending);
+        });
+
+        log.info("H3 summary refresh done for {} days", days.size());
     }
 
-    private void upsertStationH3Index() {
-        List<StationRow> stations = jdbcTemplate.query(
-                "SELECT id, latitude, longitude FROM station WHERE state = 'NJ'",
-                (rs, rowNum) -> new StationRow(rs.getLong("id"), rs.getDouble("latitude"), rs.getDouble("longitude"))
-        );
-        if (stations.isEmpty()) return;
+    /**
+     * One partition per touched day and granularity; each maps to one day partition of the summary table.
+     */
+    static List<Partition> partitions(SortedSet<LocalDate> days) {
+        List<Partition> partitions = new ArrayList<>();
+        for (LocalDate day : days) {
+            partitions.add(new Partition(day, false));
+            partitions.add(new Partition(day, true));
+        }
+        return partitions;
+    }
+
+    private Outcome runPartitions(List<Partition> partitions) {
+        List<Future<Boolean>> results = new ArrayList<>(partitions.size());
+        for (Partition partition : partitions) {
+            results.add(executor.submit(() -> refreshPartition(partition)));
+        }
+        Set<LocalDate> rewritten = new TreeSet<>();
+        int failed = 0;
+        for (int i = 0; i < partitions.size(); i++) {
+            if (await(results.get(i))) {
+                rewritten.add(partitions.get(i).day());
+            } else {
+                failed++;
+            }
+        }
+        return new Outcome(rewritten, failed);
+    }
+
+    private boolean refreshPartition(Partition partition) {
+        int maxAttempts = properties.partitionMaxAttempts();
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                List<TimeRange> day = List.of(new TimeRange(partition.day().atStartOfDay(), partition.day().plusDays(1).atStartOfDay()));
+                if (partition.hourly()) {
+                    summaryPartitions.swapIn(H3SummaryPartitions.HOURLY, partition.day(), staging -> {
+                        insertHourlyH10(staging, day);
+                        rollupFromH10(staging, "bucket_hour", day);
+                    });
+                } else {
+                    summaryPartitions.swapIn(H3SummaryPartitions.DAILY, partition.day(), staging -> {
+                        insertDailyH10(staging, day);
+                        rollupFromH10(staging, "bucket_date", day);
+                    });
+                }
+                return true;
+            } catch (RuntimeException e) {
+                log.warn("H3 refresh of {} {} failed (attempt {}/{})",
+                        partition.hourly() ? "hours of" : "day", partition.day(), attempt, maxAttempts, e);
+                if (attempt == maxAttempts) break;
+                try {
+                    Thread.sleep(RETRY_BACKOFF_MS * attempt);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
 
-        jdbcTemplate.update("DELETE FROM station_h3_index");
+    private static boolean await(Future<Boolean> result) {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            log.warn("H3 refresh partition failed", e.getCause());
+            return false;
+        }
+    }
+
+    /**
+     * Indexes stations that have no {@code station_h3_index} rows yet and marks them pending; returns whether any
+     * were indexed.
+     */
+    private boolean indexNewStations() {
+        List<Long> ids = jdbcTemplate.queryForList(
+                """
+                SELECT s.id
+                FROM station s
+                WHERE s.state = 'NJ'
+                  AND NOT EXISTS (SELECT 1 FROM station_h3_index i WHERE i.station_id = s.id)
+                """,
+                Long.class
+        );
+        if (ids.isEmpty()) {
+            return false;
+        }
 
+        // coordinates come from the shared station snapshot rather than a second read of the station rows
+        StationSnapshot cached = stationQuery.snapshot();
+        if (ids.stream().anyMatch(id -> cached.indexOf(id) < 0)) {
+            // inserted after the snapshot was read, by another instance or outside the application
+            stationQuery.invalidate();
+        }
+        StationSnapshot stations = stationQuery.snapshot();
+        List<Long> indexed = new ArrayList<>(ids.size());
         try {
             H3Core h3 = H3Core.newInstance();
             List<IndexRow> indexRows = new ArrayList<>();
-            for (StationRow s : stations) {
+            for (long id : ids) {
+                int i = stations.indexOf(id);
+                if (i < 0) continue;
+                // coarse cells are the H10 cell's parents, the cells its summary rows roll up into
+                long h10 = h3.geoToH3(stations.latitude(i), stations.longitude(i), 10);
                 for (int res : RESOLUTIONS) {
-                    String cell = h3.geoToH3Address(s.lat(), s.lon(), res);
-                    indexRows.add(new IndexRow(s.id(), res, cell));
+                    indexRows.add(new IndexRow(id, res, H3Cells.format(res == 10 ? h10 : h3.h3ToParent(h10, res))));
                 }
+                indexed.add(id);
             }
             batchInsertIndex(indexRows);
         } catch (Exception e) {
             throw new IllegalStateException("Failed to build H3 index", e);
         }
+        jdbcTemplate.batchUpdate("INSERT INTO summary_pending_station (summary, station_id) VALUES (?, ?)",
+                indexed.stream().map(id -> new Object[]{SUMMARY, id}).toList());
+        return !indexed.isEmpty();
+    }
+
+    /**
+     * Indexed stations whose buckets have not been rebuilt yet: the ones just indexed and those of failed runs.
+     */
+    private List<Long> pendingStations() {
+        return jdbcTemplate.queryForList(
+                "SELECT station_id FROM summary_pending_station WHERE summary = ? ORDER BY station_id",
+                Long.class, SUMMARY);
+    }
+
+    private void clearPendingStations(List<Long> stationIds) {
+        if (stationIds.isEmpty()) return;
+        jdbcTemplate.update(
+                "DELETE FROM summary_pending_station WHERE summary = ? AND station_id IN (" + placeholders(stationIds.size()) + ")",
+                ps -> {
+                    ps.setString(1, SUMMARY);
+                    for (int i = 0; i < stationIds.size(); i++) {
+                        ps.setLong(i + 2, stationIds.get(i));
+                    }
+                });
+    }
+
+    private Watermark watermark(String source) {
+        List<Watermark> marks = jdbcTemplate.query(
+                "SELECT last_id, scanned_id, scanned_rows FROM summary_source_watermark WHERE summary = ? AND source = ?",
+                (rs, i) -> {
+                    long lastId = rs.getLong("last_id");
+                    long scannedId = rs.getLong("scanned_id");
+                    // rows written before scanned_id existed: nothing is left open
+                    return rs.wasNull() ? new Watermark(lastId, lastId, 0) : new Watermark(lastId, scannedId, rs.getLong("scanned_rows"));
+                },
+                SUMMARY, source);
+        return marks.isEmpty() ? new Watermark(0, 0, 0) : marks.get(0);
+    }
+
+    /**
+     * The id this run scans {@code source} from: the last run's {@code scanned_id}, or its {@code last_id} when rows
+     * showed up in the ids the last run scanned after it counted them. {@code countIds} counts the visible rows in
+     * {@code (fromId..toId]}.
+     */
+    static long scanFrom(String source, Watermark mark, LongBinaryOperator countIds) {
+        if (mark.scannedId() == mark.lastId()) return mark.scannedId();
+        long rows = countIds.applyAsLong(mark.lastId(), mark.scannedId());
+        if (rows == mark.scannedRows()) return mark.scannedId();
+        log.info("H3 summary refresh: {} {} rows committed late in id range ({}..{}], rescanning it",
+                rows - mark.scannedRows(), source, mark.lastId(), mark.scannedId());
+        return mark.lastId();
+    }
+
+    /**
+     * The watermark once a run has scanned up to {@code toId}: the ids above the last run's {@code scanned_id}
+     * stay open for the next run, with the rows counted in them now.
+     */
+    static Watermark scanned(Watermark mark, long toId, LongBinaryOperator countIds) {
+        long rows = toId > mark.scannedId() ? countIds.applyAsLong(mark.scannedId(), toId) : 0;
+        return new Watermark(mark.scannedId(), toId, rows);
+    }
+
+    private LongBinaryOperator ids(String source) {
+        return (fromId, toId) -> countIds(source, fromId, toId);
+    }
+
+    private long countIds(String source, long fromId, long toId) {
+        if (toId <= fromId) return 0;
+        Long rows = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM " + source + " WHERE id > ? AND id <= ?", Long.class, fromId, toId);
+        return rows != null ? rows : 0;
+    }
+
+    private long maxId(String source, long fallback) {
+        Long max = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + source, Long.class);
+        return max != null ? Math.max(max, fallback) : fallback;
+    }
+
+    private void saveWatermark(String source, Watermark mark) {
+        jdbcTemplate.update(
+                """
+                INSERT INTO summary_source_watermark (summary, source, last_id, scanned_id, scanned_rows, updated_at)
+                VALUES (?, ?, ?, ?, ?, CURRENT_TIMESTAMP)
+                ON CONFLICT (summary, source) DO UPDATE
+                SET last_id = EXCLUDED.last_id, scanned_id = EXCLUDED.scanned_id,
+                    scanned_rows = EXCLUDED.scanned_rows, updated_at = EXCLUDED.updated_at
+                """,
+                SUMMARY, source, mark.lastId(), mark.scannedId(), mark.scannedRows());
+    }
+
+    private void collectTouchedDays(String source, String timeColumn, long fromId, long toId, List<Long> pendingStations,
+                                    SortedSet<LocalDate> days) {
+        List<Object> args = new ArrayList<>(List.of(fromId, toId));
+        String where = "(id > ? AND id <= ?)";
+        if (!pendingStations.isEmpty()) {
+            where += " OR station_id IN (" + placeholders(pendingStations.size()) + ")";
+            args.addAll(pendingStations);
+        }
+        jdbcTemplate.query(
+                "SELECT DISTINCT CAST(" + timeColumn + " AS DATE) AS bucket_date FROM " + source + " WHERE " + where,
+                rs -> {
+                    days.add(rs.getDate("bucket_date").toLocalDate());
+                },
+                args.toArray());
     }
 
     private void batchInsertIndex(List<IndexRow> rows) {
@@ -105,16 +390,49 @@ public class H3SummaryRefreshScheduler {
         );
     }
 
-    private void refreshDailyH3(LocalDate fromDate, LocalDate toDate) {
-        int del = jdbcTemplate.update(
-                "DELETE FROM daily_h3_product_summary WHERE bucket_date BETWEEN ? AND ?",
-                ps -> {
-                    ps.setDate(1, Date.valueOf(fromDate));
-                    ps.setDate(2, Date.valueOf(toDate));
+    /**
+     * Stores the coarse parents of H10 cells not mapped yet, so coarse summaries can be derived in SQL.
+     */
+    private void mapNewCellParents() {
+        List<String> unmapped = jdbcTemplate.queryForList(
+                """
+                SELECT DISTINCT i.h3_cell
+                FROM station_h3_index i
+                WHERE i.resolution = 10
+                  AND NOT EXISTS (SELECT 1 FROM h3_cell_parent m WHERE m.h3_cell = i.h3_cell)
+                """,
+                String.class);
+        if (unmapped.isEmpty()) return;
+
+        List<ParentRow> rows = new ArrayList<>(unmapped.size() * COARSE_RESOLUTIONS.length);
+        for (String cell : unmapped) {
+            long h10 = H3Cells.parse(cell);
+            for (int res : COARSE_RESOLUTIONS) {
+                rows.add(new ParentRow(cell, res, H3Cells.format(H3Cells.parent(h10, res))));
+            }
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO h3_cell_parent (h3_cell, resolution, parent_cell) VALUES (?, ?, ?)",
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        ParentRow r = rows.get(i);
+                        ps.setString(1, r.h3Cell());
+                        ps.setInt(2, r.resolution());
+                        ps.setString(3, r.parentCell());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return rows.size();
+                    }
                 }
         );
-        log.info("Deleted {} rows from daily_h3_product_summary for window", del);
+        log.info("Mapped parents of {} new H10 cells", unmapped.size());
+    }
 
+    private void insertDailyH10(String target, List<TimeRange> ranges) {
+        if (ranges.isEmpty()) return;
         String insertSql = """
                 WITH price_daily AS (
                     SELECT CAST(p.effective_at AS DATE) AS bucket_date,
@@ -124,8 +442,8 @@ public class H3SummaryRefreshScheduler {
                            SUM(p.amount) AS price_sum,
                            COUNT(*) AS price_count
                     FROM price p
-                    JOIN station_h3_index i ON i.station_id = p.station_id
-                    WHERE CAST(p.effective_at AS DATE) BETWEEN ? AND ?
+                    JOIN station_h3_index i ON i.station_id = p.station_id AND i.resolution = 10
+                    WHERE %s
                     GROUP BY CAST(p.effective_at AS DATE), i.resolution, i.h3_cell, p.product_id
                 ),
                 sales_daily AS (
@@ -136,11 +454,11 @@ public class H3SummaryRefreshScheduler {
                            SUM(sa.volume) AS volume_sum,
                            COUNT(*) AS sale_count
                     FROM sales sa
-                    JOIN station_h3_index i ON i.station_id = sa.station_id
-                    WHERE CAST(sa.sold_at AS DATE) BETWEEN ? AND ?
+                    JOIN station_h3_index i ON i.station_id = sa.station_id AND i.resolution = 10
+                    WHERE %s
                     GROUP BY CAST(sa.sold_at AS DATE), i.resolution, i.h3_cell, sa.product_id
                 )
-                INSERT INTO daily_h3_product_summary (
+                INSERT INTO %s (
                     bucket_date, resolution, h3_cell, product_id, price_sum, price_count, volume_sum, sale_count
                 )
                 SELECT pd.bucket_date, pd.resolution, pd.h3_cell, pd.product_id, pd.price_sum, pd.price_count, sd.volume_sum, sd.sale_count
@@ -160,31 +478,14 @@ public class H3SummaryRefreshScheduler {
                  AND pd.h3_cell = sd.h3_cell
                  AND pd.product_id = sd.product_id
                 WHERE pd.bucket_date IS NULL AND pd.resolution IS NULL AND pd.h3_cell IS NULL AND pd.product_id IS NULL
-                """;
+                """.formatted(rangeFilter("p.effective_at", ranges.size()), rangeFilter("sa.sold_at", ranges.size()), target);
 
-        int ins = jdbcTemplate.update(insertSql, ps -> {
-            ps.setDate(1, Date.valueOf(fromDate));
-            ps.setDate(2, Date.valueOf(toDate));
-            ps.setDate(3, Date.valueOf(fromDate));
-            ps.setDate(4, Date.valueOf(toDate));
-        });
-        log.info("Inserted {} rows into daily_h3_product_summary", ins);
+        int inserted = jdbcTemplate.update(insertSql, ps -> bindRanges(ps, ranges, 2));
+        log.info("Inserted {} H10 rows into {}", inserted, target);
     }
 
-    private void refreshHourlyH3(LocalDate fromDate, LocalDate toDate) {
-        // compute full-hour window [fromDate 00:00, toDate 23:00]
-        LocalDateTime fromHour = fromDate.atStartOfDay();
-        LocalDateTime toHour = toDate.atTime(23, 0).truncatedTo(ChronoUnit.HOURS);
-
-        int del = jdbcTemplate.update(
-                "DELETE FROM hourly_h3_product_summary WHERE bucket_hour BETWEEN ? AND ?",
-                ps -> {
-                    ps.setTimestamp(1, java.sql.Timestamp.valueOf(fromHour));
-                    ps.setTimestamp(2, java.sql.Timestamp.valueOf(toHour));
-                }
-        );
-        log.info("Deleted {} rows from hourly_h3_product_summary for window", del);
-
+    private void insertHourlyH10(String target, List<TimeRange> ranges) {
+        if (ranges.isEmpty()) return;
         String insertSql = """
                 WITH price_hourly AS (
                     SELECT DATE_TRUNC('hour', p.effective_at) AS bucket_hour,
@@ -194,8 +495,8 @@ public class H3SummaryRefreshScheduler {
                            SUM(p.amount) AS price_sum,
                            COUNT(*) AS price_count
                     FROM price p
-                    JOIN station_h3_index i ON i.station_id = p.station_id
-                    WHERE DATE_TRUNC('hour', p.effective_at) BETWEEN ? AND ?
+                    JOIN station_h3_index i ON i.station_id = p.station_id AND i.resolution = 10
+                    WHERE %s
                     GROUP BY DATE_TRUNC('hour', p.effective_at), i.resolution, i.h3_cell, p.product_id
                 ),
                 sales_hourly AS (
@@ -206,11 +507,11 @@ public class H3SummaryRefreshScheduler {
                            SUM(sa.volume) AS volume_sum,
                            COUNT(*) AS sale_count
                     FROM sales sa
-                    JOIN station_h3_index i ON i.station_id = sa.station_id
-                    WHERE DATE_TRUNC('hour', sa.sold_at) BETWEEN ? AND ?
+                    JOIN station_h3_index i ON i.station_id = sa.station_id AND i.resolution = 10
+                    WHERE %s
                     GROUP BY DATE_TRUNC('hour', sa.sold_at), i.resolution, i.h3_cell, sa.product_id
                 )
-                INSERT INTO hourly_h3_product_summary (
+                INSERT INTO %s (
                     bucket_hour, resolution, h3_cell, product_id, price_sum, price_count, volume_sum, sale_count
                 )
                 SELECT ph.bucket_hour, ph.resolution, ph.h3_cell, ph.product_id, ph.price_sum, ph.price_count, sh.volume_sum, sh.sale_count
@@ -230,17 +531,56 @@ public class H3SummaryRefreshScheduler {
                  AND ph.h3_cell = sh.h3_cell
                  AND ph.product_id = sh.product_id
                 WHERE ph.bucket_hour IS NULL AND ph.resolution IS NULL AND ph.h3_cell IS NULL AND ph.product_id IS NULL
-                """;
+                """.formatted(rangeFilter("p.effective_at", ranges.size()), rangeFilter("sa.sold_at", ranges.size()), target);
 
-        int ins = jdbcTemplate.update(insertSql, ps -> {
-            ps.setTimestamp(1, java.sql.Timestamp.valueOf(fromHour));
-            ps.setTimestamp(2, java.sql.Timestamp.valueOf(toHour));
-            ps.setTimestamp(3, java.sql.Timestamp.valueOf(fromHour));
-            ps.setTimestamp(4, java.sql.Timestamp.valueOf(toHour));
-        });
-        log.info("Inserted {} rows into hourly_h3_product_summary", ins);
+        int inserted = jdbcTemplate.update(insertSql, ps -> bindRanges(ps, ranges, 2));
+        log.info("Inserted {} H10 rows into {}", inserted, target);
+    }
+
+    /**
+     * Derives resolutions 5..9 of the touched buckets from their H10 rows, so the fact tables are read once.
+     */
+    private void rollupFromH10(String table, String bucketColumn, List<TimeRange> ranges) {
+        if (ranges.isEmpty()) return;
+        String sql = """
+                INSERT INTO %1$s (
+                    %2$s, resolution, h3_cell, product_id, price_sum, price_count, volume_sum, sale_count
+                )
+                SELECT s.%2$s, m.resolution, m.parent_cell, s.product_id,
+                       SUM(s.price_sum), SUM(s.price_count), SUM(s.volume_sum), SUM(s.sale_count)
+                FROM %1$s s
+                JOIN h3_cell_parent m ON m.h3_cell = s.h3_cell
+                WHERE s.resolution = 10 AND %3$s
+                GROUP BY s.%2$s, m.resolution, m.parent_cell, s.product_id
+                """.formatted(table, bucketColumn, rangeFilter("s." + bucketColumn, ranges.size()));
+
+        int inserted = jdbcTemplate.update(sql, ps -> bindRanges(ps, ranges, 1));
+        log.info("Rolled up {} coarse rows into {}", inserted, table);
+    }
+
+    private static String rangeFilter(String column, int count) {
+        return "(" + String.join(" OR ", Collections.nCopies(count, "(" + column + " >= ? AND " + column + " < ?)")) + ")";
+    }
+
+    // the H10 inserts filter both CTEs on the same ranges: price first, then sales
+    private static void bindRanges(PreparedStatement ps, List<TimeRange> ranges, int passes) throws SQLException {
+        int idx = 1;
+        for (int pass = 0; pass < passes; pass++) {
+            for (TimeRange r : ranges) {
+                ps.setTimestamp(idx++, Timestamp.valueOf(r.from()));
+                ps.setTimestamp(idx++, Timestamp.valueOf(r.to()));
+            }
+        }
+    }
+
+    private static String placeholders(int count) {
+        return String.join(",", Collections.nCopies(count, "?"));
     }
 
-    private record StationRow(long id, double lat, double lon) { }
+    record Watermark(long lastId, long scannedId, long scannedRows) { }
     private record IndexRow(long stationId, int resolution, String h3Cell) { }
+    private record ParentRow(String h3Cell, int resolution, String parentCell) { }
+    record TimeRange(LocalDateTime from, LocalDateTime to) { }
+    record Partition(LocalDate day, boolean hourly) { }
+    private record Outcome(Set<LocalDate> rewrittenDays, int failed) { }
 }
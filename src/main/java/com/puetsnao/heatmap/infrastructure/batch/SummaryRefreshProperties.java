@@ -2,20 +2,27 @@ package com.puetsnao.heatmap.infrastructure.batch;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
-import java.time.LocalDate;
-
 @ConfigurationProperties(prefix = "heatmap.summary-refresh")
 public record SummaryRefreshProperties(
         Boolean enabled,
         Integer windowDays,
         Long fixedDelayMs,
         Long initialDelayMs,
-        LocalDate targetDate
+        Integer parallelism,
+        Integer partitionMaxAttempts,
+        Integer retentionDays,
+        Long retentionCheckMs,
+        Long swapLockTimeoutMs
 ) {
     public SummaryRefreshProperties {
         if (enabled == null) enabled = false;
         if (windowDays == null) windowDays = 7;
         if (fixedDelayMs == null) fixedDelayMs = 600_000L;
         if (initialDelayMs == null) initialDelayMs = 10_000L;
+        if (parallelism == null || parallelism < 1) parallelism = 4;
+        if (partitionMaxAttempts == null || partitionMaxAttempts < 1) partitionMaxAttempts = 3;
+        if (retentionDays == null || retentionDays < 0) retentionDays = 0;
+        if (retentionCheckMs == null) retentionCheckMs = 3_600_000L;
+        if (swapLockTimeoutMs == null) swapLockTimeoutMs = 5_000L;
     }
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package com.puetsnao.heatmap.infrastructure.batch;
 
+import com.puetsnao.heatmap.infrastructure.cache.HeatmapCacheInvalidator;
+import com.puetsnao.heatmap.infrastructure.summary.PrefixSumSummaryRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -19,10 +21,15 @@ public class SummaryRefreshScheduler {
 
     private final JdbcTemplate jdbcTemplate;
     private final SummaryRefreshProperties properties;
+    private final HeatmapCacheInvalidator cacheInvalidator;
+    private final PrefixSumSummaryRepository prefixSums;
 
-    public SummaryRefreshScheduler(JdbcTemplate jdbcTemplate, SummaryRefreshProperties properties) {
+    public SummaryRefreshScheduler(JdbcTemplate jdbcTemplate, SummaryRefreshProperties properties,
+                                   HeatmapCacheInvalidator cacheInvalidator, PrefixSumSummaryRepository prefixSums) {
         this.jdbcTemplate = jdbcTemplate;
         this.properties = properties;
+        this.cacheInvalidator = cacheInvalidator;
+        this.prefixSums = prefixSums;
     }
 
     @Scheduled(fixedDelayString = "${heatmap.summary-refresh.fixed-delay-ms:600000}",
@@ -105,6 +112,14 @@ public class SummaryRefreshScheduler {
             );
         }
 
+        summaryRewritten();
+
         log.info("Summary refresh done: deleted={}, inserted={}, watermark={}.", deleted, inserted, today);
     }
+
+    void summaryRewritten() {
+        // registered before the invalidation: the evicted keys must not be loaded again from the previous sums
+        prefixSums.rebuildAfterCommit();
+        cacheInvalidator.stateSummaryRewritten();
+    }
 }
@@ -0,0 +1,30 @@
+package com.puetsnao.heatmap.infrastructure.cache;
+
+import com.puetsnao.heatmap.domain.Period;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.List;
+
+/**
+ * Cache warm-up at startup and after summary refreshes. The configured keys are both metrics for the last
+ * {@code days} day buckets at {@code resolutions} (v1 and v2) and the state map for {@code periods}; the
+ * {@code topObserved} most requested keys are added to them. {@code concurrency} threads run the loads.
+ */
+@ConfigurationProperties(prefix = "heatmap.cache.warmup")
+public record CacheWarmupProperties(
+        Boolean enabled,
+        Integer days,
+        List<Integer> resolutions,
+        List<Period> periods,
+        Integer topObserved,
+        Integer concurrency
+) {
+    public CacheWarmupProperties {
+        if (enabled == null) enabled = false;
+        if (days == null) days = 2;
+        if (resolutions == null) resolutions = List.of(5, 6, 7, 8, 9, 10);
+        if (periods == null) periods = List.of(Period.LAST30D);
+        if (topObserved == null) topObserved = 100;
+        if (concurrency == null) concurrency = 2;
+    }
+}
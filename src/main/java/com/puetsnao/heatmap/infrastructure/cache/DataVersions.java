@@ -0,0 +1,46 @@
+package com.puetsnao.heatmap.infrastructure.cache;
+
+import com.puetsnao.shared.cache.VersionStore;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Versions of the summary data behind each response, for ETags that change exactly when the data does and can be
+ * checked without reading the summaries or the cache. H3 data is versioned per day bucket; the hour buckets of a
+ * day share its version, matching how refreshes evict them.
+ */
+@Component
+public class DataVersions {
+
+    private static final String STATE_SUMMARY = "state";
+
+    private final VersionStore store;
+
+    public DataVersions(VersionStore store) {
+        this.store = store;
+    }
+
+    public String h3Day(LocalDate day) {
+        return Long.toString(store.version(h3Key(day)), 36);
+    }
+
+    public String stateSummary() {
+        return Long.toString(store.version(STATE_SUMMARY), 36);
+    }
+
+    public void h3DaysChanged(Collection<LocalDate> days) {
+        if (days.isEmpty()) return;
+        store.bump(days.stream().map(DataVersions::h3Key).toList());
+    }
+
+    public void stateSummaryChanged() {
+        store.bump(List.of(STATE_SUMMARY));
+    }
+
+    private static String h3Key(LocalDate day) {
+        return "h3:" + day;
+    }
+}
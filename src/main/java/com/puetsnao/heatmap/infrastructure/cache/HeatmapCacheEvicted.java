@@ -0,0 +1,11 @@
+package com.puetsnao.heatmap.infrastructure.cache;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Published by {@link HeatmapCacheInvalidator} once a refresh's evictions are done and the versions bumped:
+ * the H3 days that were rewritten, and whether the state summary was.
+ */
+public record HeatmapCacheEvicted(List<LocalDate> h3Days, boolean stateSummary) {
+}
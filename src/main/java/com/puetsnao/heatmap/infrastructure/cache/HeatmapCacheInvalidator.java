@@ -0,0 +1,103 @@
+package com.puetsnao.heatmap.infrastructure.cache;
+
+import com.puetsnao.shared.cache.CacheEvictions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Evicts "heatmap" and "h3sums" cache entries for buckets a summary refresh has rewritten. Key patterns mirror the
+ * {@code @Cacheable} keys in the application services. When called inside a transaction the eviction runs
+ * after commit, so a concurrent miss cannot re-cache the pre-refresh rows. The buckets' {@link DataVersions} are
+ * bumped after eviction, so a new ETag is never paired with a cached pre-refresh body; then
+ * {@link HeatmapCacheEvicted} is published so the evicted buckets can be warmed again.
+ */
+@Component
+public class HeatmapCacheInvalidator {
+
+    private static final Logger log = LoggerFactory.getLogger(HeatmapCacheInvalidator.class);
+    private static final String HEATMAP = "heatmap";
+    private static final String H3_SUMS = "h3sums";
+
+    private final CacheManager cacheManager;
+    private final DataVersions dataVersions;
+    private final ApplicationEventPublisher events;
+
+    public HeatmapCacheInvalidator(CacheManager cacheManager, DataVersions dataVersions, ApplicationEventPublisher events) {
+        this.cacheManager = cacheManager;
+        this.dataVersions = dataVersions;
+        this.events = events;
+    }
+
+    public void h3BucketsRewritten(Collection<LocalDate> days) {
+        List<Target> targets = new ArrayList<>();
+        for (LocalDate d : days) {
+            targets.add(new Target(HEATMAP, "heatmap:h3:day:*:*:" + d));
+            targets.add(new Target(HEATMAP, "heatmap:h3:hour:*:*:" + d + "T*"));
+            targets.add(new Target(H3_SUMS, "h3sums:day:*:*:" + d));
+            targets.add(new Target(H3_SUMS, "h3sums:hour:*:*:" + d + "T*"));
+        }
+        List<LocalDate> rewritten = List.copyOf(days);
+        afterCommit(() -> {
+            evict(targets);
+            dataVersions.h3DaysChanged(rewritten);
+            publish(new HeatmapCacheEvicted(rewritten, false));
+        });
+    }
+
+    public void stateSummaryRewritten() {
+        afterCommit(() -> {
+            evict(List.of(new Target(HEATMAP, "heatmap:v2:*")));
+            dataVersions.stateSummaryChanged();
+            publish(new HeatmapCacheEvicted(List.of(), true));
+        });
+    }
+
+    private record Target(String cacheName, String pattern) {
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void publish(HeatmapCacheEvicted event) {
+        try {
+            events.publishEvent(event);
+        } catch (RuntimeException e) {
+            log.warn("HeatmapCacheEvicted listener failed", e);
+        }
+    }
+
+    private void evict(List<Target> targets) {
+        for (Target target : targets) {
+            Cache cache = cacheManager.getCache(target.cacheName());
+            if (cache == null) continue;
+            try {
+                CacheEvictions.evictMatching(cache, target.pattern());
+            } catch (RuntimeException e) {
+                // a failed eviction only delays freshness until the TTL expires
+                log.warn("Cache eviction failed for pattern {}", target.pattern(), e);
+            }
+        }
+        log.info("Evicted {} heatmap cache key patterns after summary refresh", targets.size());
+    }
+}
@@ -0,0 +1,52 @@
+package com.puetsnao.heatmap.infrastructure.cache;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Request counts per {@link WarmupKey}, recorded by the controllers so the warm-up follows what users actually
+ * open. Counts are halved each time the top keys are read, so the ranking follows shifts in traffic, and at most
+ * {@value #MAX_TRACKED} keys are tracked; a new key beyond that waits until decay has dropped some.
+ */
+@Component
+public class HotKeys {
+
+    static final int MAX_TRACKED = 4096;
+
+    private final ConcurrentHashMap<WarmupKey, LongAdder> counts = new ConcurrentHashMap<>();
+
+    public void record(WarmupKey key) {
+        LongAdder count = counts.get(key);
+        if (count == null) {
+            if (counts.size() >= MAX_TRACKED) return;
+            count = counts.computeIfAbsent(key, k -> new LongAdder());
+        }
+        count.increment();
+    }
+
+    /**
+     * The {@code n} most requested keys, most requested first; halves every count afterwards.
+     */
+    public List<WarmupKey> top(int n) {
+        List<WarmupKey> top = counts.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<WarmupKey, LongAdder> e) -> e.getValue().sum()).reversed())
+                .limit(n)
+                .map(Map.Entry::getKey)
+                .toList();
+        counts.forEach((key, count) -> {
+            // increments racing the halving may be lost; the ranking only needs to be roughly right
+            long half = count.sumThenReset() / 2;
+            if (half == 0) {
+                counts.remove(key, count);
+            } else {
+                count.add(half);
+            }
+        });
+        return top;
+    }
+}
@@ -0,0 +1,27 @@
+package com.puetsnao.heatmap.infrastructure.cache;
+
+import com.puetsnao.heatmap.domain.Metric;
+import com.puetsnao.heatmap.domain.Period;
+
+import java.time.LocalDate;
+
+/**
+ * A cache entry the warm-up can compute: a state map for a period, or an H3 day bucket at one resolution as
+ * served by the v1 ({@code heatmap} cache) or v2 ({@code h3sums} cache) endpoint.
+ */
+public record WarmupKey(Kind kind, Metric metric, int resolution, LocalDate day, Period period) {
+
+    public enum Kind { STATE, H3, H3_V2 }
+
+    public static WarmupKey state(Metric metric, Period period) {
+        return new WarmupKey(Kind.STATE, metric, 0, null, period);
+    }
+
+    public static WarmupKey h3(Metric metric, int resolution, LocalDate day) {
+        return new WarmupKey(Kind.H3, metric, resolution, day, null);
+    }
+
+    public static WarmupKey h3V2(Metric metric, int resolution, LocalDate day) {
+        return new WarmupKey(Kind.H3_V2, metric, resolution, day, null);
+    }
+}
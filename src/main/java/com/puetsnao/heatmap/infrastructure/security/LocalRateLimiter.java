@@ -0,0 +1,58 @@
+package com.puetsnao.heatmap.infrastructure.security;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets kept as one {@link AtomicLong} per client holding the bucket's theoretical arrival time: the
+ * instant at which it would be full again. Taking {@code cost} tokens moves that instant {@code cost} token
+ * intervals later, and is allowed while it stays within {@code capacity} intervals of now. One CAS per request,
+ * no locks; the map itself is striped by {@link ConcurrentHashMap}. Buckets that have been full for
+ * {@code idleEvictSeconds} are dropped, since a full bucket is the same as no bucket.
+ */
+class LocalRateLimiter implements RateLimiter {
+
+    private final long nanosPerToken;
+    private final long burstNanos;
+    private final long idleEvictNanos;
+    private final LongSupplier nanoTime;
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong nextSweep;
+
+    LocalRateLimiter(RateLimitProperties properties, LongSupplier nanoTime) {
+        this.nanosPerToken = properties.nanosPerToken();
+        this.burstNanos = properties.capacity() * nanosPerToken;
+        this.idleEvictNanos = properties.idleEvictSeconds() * 1_000_000_000L;
+        this.nanoTime = nanoTime;
+        this.nextSweep = new AtomicLong(nanoTime.getAsLong() + idleEvictNanos);
+    }
+
+    @Override
+    public long tryAcquire(String client, int cost) {
+        long now = nanoTime.getAsLong();
+        sweepIfDue(now);
+        AtomicLong bucket = buckets.computeIfAbsent(client, c -> new AtomicLong(now));
+        while (true) {
+            long tat = bucket.get();
+            long next = Math.max(tat, now) + cost * nanosPerToken;
+            long wait = next - now - burstNanos;
+            if (wait > 0) return wait;
+            if (bucket.compareAndSet(tat, next)) return 0;
+        }
+    }
+
+    int size() {
+        return buckets.size();
+    }
+
+    private void sweepIfDue(long now) {
+        long due = nextSweep.get();
+        if (now - due < 0 || !nextSweep.compareAndSet(due, now + idleEvictNanos)) return;
+        buckets.forEach((client, bucket) -> {
+            long tat = bucket.get();
+            // a request racing the sweep may spend from the dropped bucket; it was full, so at most that cost is forgiven
+            if (now - tat > idleEvictNanos) buckets.remove(client, bucket);
+        });
+    }
+}
@@ -0,0 +1,34 @@
+package com.puetsnao.heatmap.infrastructure.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+@Configuration
+@ConditionalOnProperty(name = "rate-limit.enabled", havingValue = "true")
+public class RateLimitConfig {
+
+    @Bean
+    public RateLimiter rateLimiter(RateLimitProperties properties, ObjectProvider<StringRedisTemplate> redisTemplate) {
+        if ("redis".equalsIgnoreCase(properties.mode())) {
+            return new RedisRateLimiter(redisTemplate.getObject(), properties);
+        }
+        return new LocalRateLimiter(properties, System::nanoTime);
+    }
+
+    // ahead of everything else, so a rejected request costs no more than the bucket check
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilter(RateLimiter rateLimiter, RateLimitProperties properties,
+                                                                   MeterRegistry registry) {
+        FilterRegistrationBean<RateLimitFilter> registration =
+                new FilterRegistrationBean<>(new RateLimitFilter(rateLimiter, new RequestCost(properties), registry));
+        registration.addUrlPatterns("/api/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+}
@@ -0,0 +1,52 @@
+package com.puetsnao.heatmap.infrastructure.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Charges each {@code /api} request its {@link RequestCost} against the client's bucket and answers 429 with
+ * {@code Retry-After} once the bucket runs dry. Clients are keyed by remote address; behind a proxy set
+ * {@code server.forward-headers-strategy} so that is the real client. Health checks are never limited.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimiter rateLimiter;
+    private final RequestCost requestCost;
+    private final Counter rejected;
+
+    RateLimitFilter(RateLimiter rateLimiter, RequestCost requestCost, MeterRegistry registry) {
+        this.rateLimiter = rateLimiter;
+        this.requestCost = requestCost;
+        this.rejected = Counter.builder("heatmap.ratelimit.rejected")
+                .description("Requests answered 429 because the client's token bucket was empty")
+                .register(registry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        return !path.startsWith("/api/") || path.startsWith("/api/health") || "OPTIONS".equals(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long waitNanos = rateLimiter.tryAcquire(request.getRemoteAddr(), requestCost.of(request));
+        if (waitNanos > 0) {
+            rejected.increment();
+            long retryAfterSeconds = Math.max(1, (waitNanos + 999_999_999L) / 1_000_000_000L);
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader("Retry-After", Long.toString(retryAfterSeconds));
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+}
@@ -2,17 +2,42 @@ package com.puetsnao.heatmap.infrastructure.security;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+/**
+ * Per-client token bucket for {@code /api/**}: {@code capacity} tokens of burst, refilled at {@code refillTokens}
+ * per {@code refillPeriodSeconds}. H3 requests cost one token per {@code cellsPerToken} cells they can return,
+ * estimated from the bbox area (or {@code unboundedAreaKm2} without one) and the resolution, up to {@code maxCost}.
+ * {@code mode} is {@code local} (per pod) or {@code redis} (budgets shared across pods).
+ */
 @ConfigurationProperties(prefix = "rate-limit")
 public record RateLimitProperties(
         Boolean enabled,
         Integer capacity,
         Integer refillTokens,
-        Integer refillPeriodSeconds
+        Integer refillPeriodSeconds,
+        String mode,
+        Integer cellsPerToken,
+        Integer maxCost,
+        Double unboundedAreaKm2,
+        Long idleEvictSeconds,
+        String redisKeyPrefix
 ) {
     public RateLimitProperties {
         if (enabled == null) enabled = false;
         if (capacity == null) capacity = 100;
         if (refillTokens == null) refillTokens = 50;
         if (refillPeriodSeconds == null) refillPeriodSeconds = 60;
+        if (mode == null || mode.isBlank()) mode = "local";
+        if (cellsPerToken == null || cellsPerToken < 1) cellsPerToken = 500;
+        if (maxCost == null || maxCost < 1) maxCost = 20;
+        if (unboundedAreaKm2 == null) unboundedAreaKm2 = 25_000.0;
+        if (idleEvictSeconds == null) idleEvictSeconds = 600L;
+        if (redisKeyPrefix == null || redisKeyPrefix.isBlank()) redisKeyPrefix = "heatmap:ratelimit:";
+    }
+
+    /**
+     * Nanoseconds it takes to earn back one token.
+     */
+    public long nanosPerToken() {
+        return refillPeriodSeconds * 1_000_000_000L / Math.max(refillTokens, 1);
     }
 }
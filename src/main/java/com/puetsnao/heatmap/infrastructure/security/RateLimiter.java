@@ -0,0 +1,10 @@
+package com.puetsnao.heatmap.infrastructure.security;
+
+public interface RateLimiter {
+
+    /**
+     * Takes {@code cost} tokens from the client's bucket. Returns 0 when granted, otherwise the nanoseconds until
+     * the bucket holds enough tokens; a denied request takes nothing.
+     */
+    long tryAcquire(String client, int cost);
+}
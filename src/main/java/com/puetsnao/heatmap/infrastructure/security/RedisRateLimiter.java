@@ -0,0 +1,60 @@
+package com.puetsnao.heatmap.infrastructure.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+
+import java.util.List;
+
+/**
+ * The same arrival-time bucket as {@link LocalRateLimiter}, kept in one Redis key per client so every pod draws
+ * from the same budget. The script reads Redis {@code TIME}, so pod clocks do not matter, and expires the key
+ * once the bucket would be full again. Redis errors fail open.
+ */
+class RedisRateLimiter implements RateLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(RedisRateLimiter.class);
+    // times in microseconds; returns 0 when granted, otherwise the wait
+    private static final DefaultRedisScript<Long> ACQUIRE = new DefaultRedisScript<>(
+            """
+            local t = redis.call('TIME')
+            local now = tonumber(t[1]) * 1000000 + tonumber(t[2])
+            local interval = tonumber(ARGV[1])
+            local burst = tonumber(ARGV[2])
+            local tat = tonumber(redis.call('GET', KEYS[1]) or now)
+            if tat < now then tat = now end
+            local new_tat = tat + tonumber(ARGV[3]) * interval
+            local wait = new_tat - now - burst
+            if wait > 0 then return math.ceil(wait) end
+            redis.call('SET', KEYS[1], string.format('%.0f', new_tat), 'PX', math.ceil((new_tat - now) / 1000) + 1)
+            return 0
+            """,
+            Long.class
+    );
+
+    private final StringRedisTemplate redisTemplate;
+    private final String keyPrefix;
+    private final String microsPerToken;
+    private final String burstMicros;
+
+    RedisRateLimiter(StringRedisTemplate redisTemplate, RateLimitProperties properties) {
+        this.redisTemplate = redisTemplate;
+        this.keyPrefix = properties.redisKeyPrefix();
+        long micros = Math.max(properties.nanosPerToken() / 1_000, 1);
+        this.microsPerToken = Long.toString(micros);
+        this.burstMicros = Long.toString(properties.capacity() * micros);
+    }
+
+    @Override
+    public long tryAcquire(String client, int cost) {
+        try {
+            Long wait = redisTemplate.execute(ACQUIRE, List.of(keyPrefix + client),
+                    microsPerToken, burstMicros, Integer.toString(cost));
+            return wait == null ? 0 : wait * 1_000;
+        } catch (RuntimeException e) {
+            log.warn("Rate limit check failed for {}; allowing the request", client, e);
+            return 0;
+        }
+    }
+}
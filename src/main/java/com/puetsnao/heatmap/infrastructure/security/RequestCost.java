@@ -0,0 +1,78 @@
+package com.puetsnao.heatmap.infrastructure.security;
+
+import com.puetsnao.heatmap.domain.BucketGranularity;
+import com.puetsnao.heatmap.domain.BucketRange;
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Tokens a request costs. State-level and other small responses cost 1; H3 requests cost one token per
+ * {@code cellsPerToken} cells the bbox can hold at the requested resolution, so a res-10 viewport drains the
+ * budget far faster than a res-5 one. A time series pays that per frame, since it reads every bucket of its range.
+ */
+final class RequestCost {
+
+    private static final double KM_PER_DEGREE = 111.32;
+    // average hexagon area in km² by resolution (H3 documentation), index = resolution
+    private static final double[] CELL_AREA_KM2 = {
+            4_357_449.416, 609_788.441, 86_801.780, 12_393.434, 1_770.348, 252.903,
+            36.129, 5.161, 0.737, 0.105, 0.015, 0.002, 0.0003, 0.00004, 0.000006, 0.0000009
+    };
+
+    private final int cellsPerToken;
+    private final int maxCost;
+    private final double unboundedAreaKm2;
+
+    RequestCost(RateLimitProperties properties) {
+        this.cellsPerToken = properties.cellsPerToken();
+        this.maxCost = properties.maxCost();
+        this.unboundedAreaKm2 = properties.unboundedAreaKm2();
+    }
+
+    int of(HttpServletRequest request) {
+        if (!request.getRequestURI().contains("/h3")) return 1;
+        int resolution = parseInt(request.getParameter("resolution"), 7);
+        if (resolution < 0 || resolution >= CELL_AREA_KM2.length) return maxCost;
+        double cells = areaKm2(request.getParameter("bbox")) / CELL_AREA_KM2[resolution];
+        double perFrame = Math.max(1, Math.ceil(cells / cellsPerToken));
+        return (int) Math.min(maxCost, perFrame * frames(request));
+    }
+
+    private static int frames(HttpServletRequest request) {
+        if (!request.getRequestURI().endsWith("/series")) return 1;
+        String bucket = request.getParameter("bucket");
+        try {
+            BucketGranularity granularity = bucket == null ? BucketGranularity.HOUR : BucketGranularity.from(bucket);
+            return BucketRange.parse(granularity, request.getParameter("from"), request.getParameter("to")).frames();
+        } catch (RuntimeException e) {
+            // the endpoint rejects it anyway; charge like the longest range
+            return BucketRange.MAX_HOUR_FRAMES;
+        }
+    }
+
+    private double areaKm2(String bbox) {
+        if (bbox == null || bbox.isBlank()) return unboundedAreaKm2;
+        String[] parts = bbox.split(",");
+        if (parts.length != 4) return unboundedAreaKm2;
+        try {
+            double minLat = Double.parseDouble(parts[0].trim());
+            double minLon = Double.parseDouble(parts[1].trim());
+            double maxLat = Double.parseDouble(parts[2].trim());
+            double maxLon = Double.parseDouble(parts[3].trim());
+            double midLat = Math.toRadians((minLat + maxLat) / 2);
+            double area = Math.abs(maxLat - minLat) * KM_PER_DEGREE * Math.abs(maxLon - minLon) * KM_PER_DEGREE * Math.cos(midLat);
+            return Double.isFinite(area) ? Math.min(area, unboundedAreaKm2) : unboundedAreaKm2;
+        } catch (NumberFormatException e) {
+            // the endpoint rejects it anyway; charge like an unbounded query
+            return unboundedAreaKm2;
+        }
+    }
+
+    private static int parseInt(String raw, int fallback) {
+        if (raw == null || raw.isBlank()) return fallback;
+        try {
+            return Integer.parseInt(raw.trim());
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+}
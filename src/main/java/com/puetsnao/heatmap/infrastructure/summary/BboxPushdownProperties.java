@@ -0,0 +1,16 @@
+package com.puetsnao.heatmap.infrastructure.summary;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "heatmap.v2.bbox-pushdown")
+public record BboxPushdownProperties(
+        Boolean enabled,
+        Integer resolution,
+        Integer maxCells
+) {
+    public BboxPushdownProperties {
+        if (enabled == null) enabled = false;
+        if (resolution == null) resolution = 6;
+        if (maxCells == null) maxCells = 500;
+    }
+}
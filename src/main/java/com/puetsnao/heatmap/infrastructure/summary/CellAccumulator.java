@@ -0,0 +1,105 @@
+package com.puetsnao.heatmap.infrastructure.summary;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing map from H3 cell index to (sum, count) backed by parallel primitive arrays.
+ * Cell 0 is H3_NULL and never a valid index, so it marks empty slots.
+ */
+final class CellAccumulator {
+
+    private static final long EMPTY = 0L;
+
+    private long[] keys;
+    private double[] sums;
+    private long[] counts;
+    private int mask;
+    private int size;
+
+    CellAccumulator(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 8) * 2 - 1) << 1;
+        allocate(capacity);
+    }
+
+    void add(long cell, double sum, long count) {
+        int slot = mix(cell) & mask;
+        while (true) {
+            long key = keys[slot];
+            if (key == cell) {
+                sums[slot] += sum;
+                counts[slot] += count;
+                return;
+            }
+            if (key == EMPTY) {
+                keys[slot] = cell;
+                sums[slot] = sum;
+                counts[slot] = count;
+                if (++size * 2 > keys.length) grow();
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Adds every (cell, sum, count) entry of this accumulator into {@code target}.
+     */
+    void addTo(CellAccumulator target) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) target.add(keys[i], sums[i], counts[i]);
+        }
+    }
+
+    H3CellSums toSorted() {
+        if (size == 0) return H3CellSums.empty();
+        long[] sortedCells = new long[size];
+        int n = 0;
+        for (long key : keys) {
+            if (key != EMPTY) sortedCells[n++] = key;
+        }
+        Arrays.sort(sortedCells);
+        double[] sortedSums = new double[size];
+        long[] sortedCounts = new long[size];
+        for (int i = 0; i < size; i++) {
+            int slot = find(sortedCells[i]);
+            sortedSums[i] = sums[slot];
+            sortedCounts[i] = counts[slot];
+        }
+        return new H3CellSums(sortedCells, sortedSums, sortedCounts);
+    }
+
+    private int find(long cell) {
+        int slot = mix(cell) & mask;
+        while (keys[slot] != cell) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        double[] oldSums = sums;
+        long[] oldCounts = counts;
+        allocate(oldKeys.length * 2);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) add(oldKeys[i], oldSums[i], oldCounts[i]);
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        sums = new double[capacity];
+        counts = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    private static int mix(long cell) {
+        long h = cell * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
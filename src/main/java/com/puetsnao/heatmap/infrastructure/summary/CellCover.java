@@ -0,0 +1,9 @@
+package com.puetsnao.heatmap.infrastructure.summary;
+
+/**
+ * Coarse cells (resolution 5..9, as stored in {@code station_h3_index}: parents of the station's H10 cell) covering
+ * a viewport.
+ * H10 summary reads restricted by a cover only return rows of stations indexed into one of these cells.
+ */
+public record CellCover(int resolution, long[] cells) {
+}
@@ -1,28 +1,40 @@
 package com.puetsnao.heatmap.infrastructure.summary;
 
+import com.puetsnao.heatmap.domain.BucketGranularity;
+import com.puetsnao.heatmap.domain.BucketRange;
+import com.puetsnao.heatmap.domain.H3CellSeries;
+import com.puetsnao.heatmap.domain.H3CellValues;
+import com.puetsnao.heatmap.domain.H3Cells;
 import com.puetsnao.heatmap.domain.Metric;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.ResultSetExtractor;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
+import java.util.Collections;
 
 @Repository
 public class DefaultH3SummaryRepository implements H3SummaryRepository {
 
     private final JdbcTemplate jdbcTemplate;
+    private final SummaryReadLimiter limiter;
 
-    public DefaultH3SummaryRepository(JdbcTemplate jdbcTemplate) {
+    public DefaultH3SummaryRepository(JdbcTemplate jdbcTemplate, SummaryReadLimiter limiter) {
         this.jdbcTemplate = jdbcTemplate;
+        this.limiter = limiter;
     }
 
     @Override
-    public Map<String, Double> byDay(LocalDate bucketDate, int resolution, Metric metric) {
+    public H3CellValues byDay(LocalDate bucketDate, int resolution, Metric metric) {
         String sql = switch (metric) {
             case PRICE -> """
                 SELECT h3_cell,
@@ -40,22 +52,14 @@ public class DefaultH3SummaryRepository implements H3SummaryRepository {
                 GROUP BY h3_cell
                 """;
         };
-        return jdbcTemplate.query(sql, ps -> {
+        return query(sql, ps -> {
             ps.setDate(1, Date.valueOf(bucketDate));
             ps.setInt(2, resolution);
-        }, rs -> {
-            Map<String, Double> result = new HashMap<>();
-            while (rs.next()) {
-                String cell = rs.getString("h3_cell");
-                BigDecimal value = rs.getBigDecimal("value");
-                result.put(cell, value != null ? value.doubleValue() : 0.0);
-            }
-            return result;
-        });
+        }, DefaultH3SummaryRepository::cellValues);
     }
 
     @Override
-    public Map<String, Double> byHour(LocalDateTime bucketHour, int resolution, Metric metric) {
+    public H3CellValues byHour(LocalDateTime bucketHour, int resolution, Metric metric) {
         String sql = switch (metric) {
             case PRICE -> """
                 SELECT h3_cell,
@@ -73,22 +77,48 @@ public class DefaultH3SummaryRepository implements H3SummaryRepository {
                 GROUP BY h3_cell
                 """;
         };
-        return jdbcTemplate.query(sql, ps -> {
+        return query(sql, ps -> {
             ps.setTimestamp(1, Timestamp.valueOf(bucketHour));
             ps.setInt(2, resolution);
-        }, rs -> {
-            Map<String, Double> result = new HashMap<>();
-            while (rs.next()) {
-                String cell = rs.getString("h3_cell");
-                BigDecimal value = rs.getBigDecimal("value");
-                result.put(cell, value != null ? value.doubleValue() : 0.0);
+        }, DefaultH3SummaryRepository::cellValues);
+    }
+
+    @Override
+    public H3CellSeries series(BucketRange range, int resolution, Metric metric) {
+        boolean hourly = range.granularity() == BucketGranularity.HOUR;
+        String table = hourly ? "hourly_h3_product_summary" : "daily_h3_product_summary";
+        String bucket = hourly ? "bucket_hour" : "bucket_date";
+        String sql = switch (metric) {
+            case PRICE -> """
+                SELECT %2$s AS bucket, h3_cell,
+                       SUM(COALESCE(price_sum, 0)) / NULLIF(SUM(COALESCE(price_count, 0)), 0) AS cell_value
+                FROM %1$s
+                WHERE %2$s >= ? AND %2$s < ? AND resolution = ?
+                GROUP BY %2$s, h3_cell
+                HAVING SUM(COALESCE(price_count, 0)) > 0
+                """.formatted(table, bucket);
+            case VOLUME -> """
+                SELECT %2$s AS bucket, h3_cell,
+                       SUM(COALESCE(volume_sum, 0)) AS cell_value
+                FROM %1$s
+                WHERE %2$s >= ? AND %2$s < ? AND resolution = ?
+                GROUP BY %2$s, h3_cell
+                """.formatted(table, bucket);
+        };
+        return query(sql, ps -> {
+            if (hourly) {
+                ps.setTimestamp(1, Timestamp.valueOf(range.start()));
+                ps.setTimestamp(2, Timestamp.valueOf(range.end()));
+            } else {
+                ps.setDate(1, Date.valueOf(range.start().toLocalDate()));
+                ps.setDate(2, Date.valueOf(range.end().toLocalDate()));
             }
-            return result;
-        });
+            ps.setInt(3, resolution);
+        }, (ResultSetExtractor<H3CellSeries>) rs -> seriesValues(rs, range, resolution));
     }
 
     @Override
-    public Map<String, PriceInputs> h10PriceByDay(LocalDate bucketDate) {
+    public H3CellSums h10PriceByDay(LocalDate bucketDate) {
         String sql = """
             SELECT h3_cell,
                    SUM(COALESCE(price_sum, 0)) AS price_sum,
@@ -98,20 +128,11 @@ public class DefaultH3SummaryRepository implements H3SummaryRepository {
             GROUP BY h3_cell
             HAVING SUM(COALESCE(price_count, 0)) > 0
             """;
-        return jdbcTemplate.query(sql, ps -> ps.setDate(1, Date.valueOf(bucketDate)), rs -> {
-            Map<String, PriceInputs> result = new HashMap<>();
-            while (rs.next()) {
-                String cell = rs.getString("h3_cell");
-                BigDecimal sum = rs.getBigDecimal("price_sum");
-                long count = rs.getLong("price_count");
-                result.put(cell, new PriceInputs(sum != null ? sum.doubleValue() : 0.0, count));
-            }
-            return result;
-        });
+        return query(sql, ps -> ps.setDate(1, Date.valueOf(bucketDate)), DefaultH3SummaryRepository::priceSums);
     }
 
     @Override
-    public Map<String, PriceInputs> h10PriceByHour(LocalDateTime bucketHour) {
+    public H3CellSums h10PriceByHour(LocalDateTime bucketHour) {
         String sql = """
             SELECT h3_cell,
                    SUM(COALESCE(price_sum, 0)) AS price_sum,
@@ -121,20 +142,11 @@ public class DefaultH3SummaryRepository implements H3SummaryRepository {
             GROUP BY h3_cell
             HAVING SUM(COALESCE(price_count, 0)) > 0
             """;
-        return jdbcTemplate.query(sql, ps -> ps.setTimestamp(1, Timestamp.valueOf(bucketHour)), rs -> {
-            Map<String, PriceInputs> result = new HashMap<>();
-            while (rs.next()) {
-                String cell = rs.getString("h3_cell");
-                BigDecimal sum = rs.getBigDecimal("price_sum");
-                long count = rs.getLong("price_count");
-                result.put(cell, new PriceInputs(sum != null ? sum.doubleValue() : 0.0, count));
-            }
-            return result;
-        });
+        return query(sql, ps -> ps.setTimestamp(1, Timestamp.valueOf(bucketHour)), DefaultH3SummaryRepository::priceSums);
     }
 
     @Override
-    public Map<String, Double> h10VolumeByDay(LocalDate bucketDate) {
+    public H3CellSums h10VolumeByDay(LocalDate bucketDate) {
         String sql = """
             SELECT h3_cell,
                    SUM(COALESCE(volume_sum, 0)) AS volume_sum
@@ -142,19 +154,11 @@ public class DefaultH3SummaryRepository implements H3SummaryRepository {
             WHERE bucket_date = ? AND resolution = 10
             GROUP BY h3_cell
             """;
-        return jdbcTemplate.query(sql, ps -> ps.setDate(1, Date.valueOf(bucketDate)), rs -> {
-            Map<String, Double> result = new HashMap<>();
-            while (rs.next()) {
-                String cell = rs.getString("h3_cell");
-                BigDecimal sum = rs.getBigDecimal("volume_sum");
-                result.put(cell, sum != null ? sum.doubleValue() : 0.0);
-            }
-            return result;
-        });
+        return query(sql, ps -> ps.setDate(1, Date.valueOf(bucketDate)), DefaultH3SummaryRepository::volumeSums);
     }
 
     @Override
-    public Map<String, Double> h10VolumeByHour(LocalDateTime bucketHour) {
+    public H3CellSums h10VolumeByHour(LocalDateTime bucketHour) {
         String sql = """
             SELECT h3_cell,
                    SUM(COALESCE(volume_sum, 0)) AS volume_sum
@@ -162,14 +166,146 @@ public class DefaultH3SummaryRepository implements H3SummaryRepository {
             WHERE bucket_hour = ? AND resolution = 10
             GROUP BY h3_cell
             """;
-        return jdbcTemplate.query(sql, ps -> ps.setTimestamp(1, Timestamp.valueOf(bucketHour)), rs -> {
-            Map<String, Double> result = new HashMap<>();
-            while (rs.next()) {
-                String cell = rs.getString("h3_cell");
-                BigDecimal sum = rs.getBigDecimal("volume_sum");
-                result.put(cell, sum != null ? sum.doubleValue() : 0.0);
+        return query(sql, ps -> ps.setTimestamp(1, Timestamp.valueOf(bucketHour)), DefaultH3SummaryRepository::volumeSums);
+    }
+
+    @Override
+    public H3CellSums h10PriceByDay(LocalDate bucketDate, CellCover cover) {
+        String sql = """
+            SELECT s.h3_cell,
+                   SUM(COALESCE(s.price_sum, 0)) AS price_sum,
+                   SUM(COALESCE(s.price_count, 0)) AS price_count
+            FROM daily_h3_product_summary s
+            WHERE s.bucket_date = ? AND s.resolution = 10
+              AND s.h3_cell IN (%s)
+            GROUP BY s.h3_cell
+            HAVING SUM(COALESCE(s.price_count, 0)) > 0
+            """.formatted(coverSubquery(cover));
+        return query(sql, ps -> {
+            ps.setDate(1, Date.valueOf(bucketDate));
+            bindCover(ps, 2, cover);
+        }, DefaultH3SummaryRepository::priceSums);
+    }
+
+    @Override
+    public H3CellSums h10PriceByHour(LocalDateTime bucketHour, CellCover cover) {
+        String sql = """
+            SELECT s.h3_cell,
+                   SUM(COALESCE(s.price_sum, 0)) AS price_sum,
+                   SUM(COALESCE(s.price_count, 0)) AS price_count
+            FROM hourly_h3_product_summary s
+            WHERE s.bucket_hour = ? AND s.resolution = 10
+              AND s.h3_cell IN (%s)
+            GROUP BY s.h3_cell
+            HAVING SUM(COALESCE(s.price_count, 0)) > 0
+            """.formatted(coverSubquery(cover));
+        return query(sql, ps -> {
+            ps.setTimestamp(1, Timestamp.valueOf(bucketHour));
+            bindCover(ps, 2, cover);
+        }, DefaultH3SummaryRepository::priceSums);
+    }
+
+    @Override
+    public H3CellSums h10VolumeByDay(LocalDate bucketDate, CellCover cover) {
+        String sql = """
+            SELECT s.h3_cell,
+                   SUM(COALESCE(s.volume_sum, 0)) AS volume_sum
+            FROM daily_h3_product_summary s
+            WHERE s.bucket_date = ? AND s.resolution = 10
+              AND s.h3_cell IN (%s)
+            GROUP BY s.h3_cell
+            """.formatted(coverSubquery(cover));
+        return query(sql, ps -> {
+            ps.setDate(1, Date.valueOf(bucketDate));
+            bindCover(ps, 2, cover);
+        }, DefaultH3SummaryRepository::volumeSums);
+    }
+
+    @Override
+    public H3CellSums h10VolumeByHour(LocalDateTime bucketHour, CellCover cover) {
+        String sql = """
+            SELECT s.h3_cell,
+                   SUM(COALESCE(s.volume_sum, 0)) AS volume_sum
+            FROM hourly_h3_product_summary s
+            WHERE s.bucket_hour = ? AND s.resolution = 10
+              AND s.h3_cell IN (%s)
+            GROUP BY s.h3_cell
+            """.formatted(coverSubquery(cover));
+        return query(sql, ps -> {
+            ps.setTimestamp(1, Timestamp.valueOf(bucketHour));
+            bindCover(ps, 2, cover);
+        }, DefaultH3SummaryRepository::volumeSums);
+    }
+
+    // every summary read goes through the limiter so a burst sheds load instead of queueing on the pool
+    private <T> T query(String sql, PreparedStatementSetter setter, ResultSetExtractor<T> extractor) {
+        return limiter.call(() -> jdbcTemplate.query(sql, setter, extractor));
+    }
+
+    // H10 cells of every station whose coarse index cell is in the cover
+    private static String coverSubquery(CellCover cover) {
+        String placeholders = String.join(",", Collections.nCopies(Math.max(cover.cells().length, 1), "?"));
+        return """
+            SELECT i10.h3_cell
+            FROM station_h3_index i10
+            JOIN station_h3_index ic ON ic.station_id = i10.station_id AND ic.resolution = ?
+            WHERE i10.resolution = 10 AND ic.h3_cell IN (%s)""".formatted(placeholders);
+    }
+
+    private static void bindCover(PreparedStatement ps, int index, CellCover cover) throws SQLException {
+        ps.setInt(index++, cover.resolution());
+        if (cover.cells().length == 0) {
+            ps.setString(index, "");
+            return;
+        }
+        for (long cell : cover.cells()) {
+            ps.setString(index++, H3Cells.format(cell));
+        }
+    }
+
+    // extractors are package-private so the JMH benchmarks can drive them with a synthetic ResultSet
+    static H3CellValues cellValues(ResultSet rs) throws SQLException {
+        long[] cells = new long[256];
+        double[] values = new double[256];
+        int n = 0;
+        while (rs.next()) {
+            if (n == cells.length) {
+                cells = Arrays.copyOf(cells, n * 2);
+                values = Arrays.copyOf(values, n * 2);
             }
-            return result;
-        });
+            cells[n] = H3Cells.parse(rs.getString("h3_cell"));
+            BigDecimal value = rs.getBigDecimal("value");
+            values[n] = value != null ? value.doubleValue() : 0.0;
+            n++;
+        }
+        return H3CellValues.sortByCell(Arrays.copyOf(cells, n), Arrays.copyOf(values, n));
+    }
+
+    static H3CellSeries seriesValues(ResultSet rs, BucketRange range, int resolution) throws SQLException {
+        H3CellSeries.Builder builder = H3CellSeries.builder(range, resolution);
+        while (rs.next()) {
+            int frame = range.frameOf(rs.getTimestamp("bucket").toLocalDateTime());
+            BigDecimal value = rs.getBigDecimal("cell_value");
+            builder.put(H3Cells.parse(rs.getString("h3_cell")), frame, value != null ? value.doubleValue() : 0.0);
+        }
+        return builder.build();
+    }
+
+    static H3CellSums priceSums(ResultSet rs) throws SQLException {
+        H3CellSums.Builder builder = H3CellSums.builder(256);
+        while (rs.next()) {
+            long cell = H3Cells.parse(rs.getString("h3_cell"));
+            builder.add(cell, rs.getDouble("price_sum"), rs.getLong("price_count"));
+        }
+        return builder.build();
+    }
+
+    static H3CellSums volumeSums(ResultSet rs) throws SQLException {
+        H3CellSums.Builder builder = H3CellSums.builder(256);
+        while (rs.next()) {
+            long cell = H3Cells.parse(rs.getString("h3_cell"));
+            builder.add(cell, rs.getDouble("volume_sum"), 0L);
+        }
+        return builder.build();
     }
 }
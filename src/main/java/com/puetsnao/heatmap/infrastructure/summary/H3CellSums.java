@@ -0,0 +1,138 @@
+package com.puetsnao.heatmap.infrastructure.summary;
+
+import com.puetsnao.heatmap.domain.H3Cells;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.function.LongPredicate;
+
+/**
+ * Per-cell sum/count pairs stored as parallel primitive arrays sorted by cell index.
+ * For price the pair is (price_sum, price_count); for volume only the sum is meaningful.
+ */
+public final class H3CellSums implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+    private static final H3CellSums EMPTY = new H3CellSums(new long[0], new double[0], new long[0]);
+
+    private final long[] cells;
+    private final double[] sums;
+    private final long[] counts;
+
+    H3CellSums(long[] cells, double[] sums, long[] counts) {
+        this.cells = cells;
+        this.sums = sums;
+        this.counts = counts;
+    }
+
+    public static H3CellSums empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Wraps columns that are already sorted by cell with no duplicates, e.g. as decoded from a cache payload.
+     */
+    public static H3CellSums ofSorted(long[] cells, double[] sums, long[] counts) {
+        if (cells.length != sums.length || cells.length != counts.length) {
+            throw new IllegalArgumentException("cells, sums and counts must have the same length");
+        }
+        return new H3CellSums(cells, sums, counts);
+    }
+
+    public int size() {
+        return cells.length;
+    }
+
+    public long cell(int i) {
+        return cells[i];
+    }
+
+    public double sum(int i) {
+        return sums[i];
+    }
+
+    public long count(int i) {
+        return counts[i];
+    }
+
+    public int indexOf(long cell) {
+        return Arrays.binarySearch(cells, cell);
+    }
+
+    public H3CellSums filter(LongPredicate predicate) {
+        int[] kept = new int[cells.length];
+        int n = 0;
+        for (int i = 0; i < cells.length; i++) {
+            if (predicate.test(cells[i])) kept[n++] = i;
+        }
+        if (n == cells.length) return this;
+        long[] c = new long[n];
+        double[] s = new double[n];
+        long[] k = new long[n];
+        for (int j = 0; j < n; j++) {
+            c[j] = cells[kept[j]];
+            s[j] = sums[kept[j]];
+            k[j] = counts[kept[j]];
+        }
+        return new H3CellSums(c, s, k);
+    }
+
+    /**
+     * Keeps only the given cells, looking each one up instead of scanning the whole set.
+     */
+    public H3CellSums retain(long[] candidates) {
+        long[] sorted = candidates.clone();
+        Arrays.sort(sorted);
+        long[] c = new long[Math.min(sorted.length, cells.length)];
+        double[] s = new double[c.length];
+        long[] k = new long[c.length];
+        int n = 0;
+        long previous = 0L;
+        for (long cell : sorted) {
+            if (cell == previous) continue;
+            previous = cell;
+            int i = Arrays.binarySearch(cells, cell);
+            if (i < 0) continue;
+            c[n] = cell;
+            s[n] = sums[i];
+            k[n] = counts[i];
+            n++;
+        }
+        return new H3CellSums(Arrays.copyOf(c, n), Arrays.copyOf(s, n), Arrays.copyOf(k, n));
+    }
+
+    /**
+     * Merges every cell into its parent at the given resolution. Returns this instance when nothing coarser is requested.
+     */
+    public H3CellSums rollup(int resolution) {
+        if (cells.length == 0 || resolution >= H3Cells.resolution(cells[0])) return this;
+        CellAccumulator acc = new CellAccumulator(cells.length / 4);
+        for (int i = 0; i < cells.length; i++) {
+            acc.add(H3Cells.parent(cells[i], resolution), sums[i], counts[i]);
+        }
+        return acc.toSorted();
+    }
+
+    public static Builder builder(int expectedSize) {
+        return new Builder(expectedSize);
+    }
+
+    public static final class Builder {
+        private final CellAccumulator acc;
+
+        private Builder(int expectedSize) {
+            this.acc = new CellAccumulator(expectedSize);
+        }
+
+        public Builder add(long cell, double sum, long count) {
+            acc.add(cell, sum, count);
+            return this;
+        }
+
+        public H3CellSums build() {
+            return acc.size() == 0 ? EMPTY : acc.toSorted();
+        }
+    }
+}
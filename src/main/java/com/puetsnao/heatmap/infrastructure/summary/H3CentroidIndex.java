@@ -0,0 +1,163 @@
+package com.puetsnao.heatmap.infrastructure.summary;
+
+import com.puetsnao.heatmap.domain.H3Cells;
+import com.uber.h3core.H3Core;
+import com.uber.h3core.util.GeoCoord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * In-memory grid of H10 cell centroids taken from {@code station_h3_index}. Cells are bucketed into
+ * latitude rows and sorted by longitude inside each row, so a bbox query binary-searches each row it
+ * spans and never computes a centroid on the request path.
+ */
+@Component
+public class H3CentroidIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(H3CentroidIndex.class);
+
+    static final int BASE_RESOLUTION = 10;
+    private static final double ROW_HEIGHT_DEG = 0.01;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final H3Core h3;
+    private volatile Grid grid;
+
+    public H3CentroidIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        try {
+            this.h3 = H3Core.newInstance();
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot initialize H3Core", e);
+        }
+    }
+
+    /**
+     * Replaces the index with the given H10 cells. Called after {@code station_h3_index} is rewritten.
+     */
+    public void rebuild(long[] h10Cells) {
+        long[] distinct = Arrays.stream(h10Cells).distinct().toArray();
+        double[] lats = new double[distinct.length];
+        double[] lons = new double[distinct.length];
+        for (int i = 0; i < distinct.length; i++) {
+            GeoCoord c = h3.h3ToGeo(distinct[i]);
+            lats[i] = c.lat;
+            lons[i] = c.lng;
+        }
+        this.grid = Grid.of(distinct, lats, lons);
+        log.info("H3 centroid index rebuilt with {} H{} cells", distinct.length, BASE_RESOLUTION);
+    }
+
+    /**
+     * Rebuilds the index from the current {@code station_h3_index} rows.
+     */
+    public void reload() {
+        rebuild(loadFromStationIndex());
+    }
+
+    public boolean isEmpty() {
+        return grid().size() == 0;
+    }
+
+    /**
+     * Returns the H10 cells whose centroid lies inside the inclusive bbox, in no particular order.
+     */
+    public long[] cellsWithin(double minLat, double minLon, double maxLat, double maxLon) {
+        return grid().query(minLat, minLon, maxLat, maxLon);
+    }
+
+    private Grid grid() {
+        Grid current = grid;
+        if (current == null) {
+            synchronized (this) {
+                current = grid;
+                if (current == null) {
+                    rebuild(loadFromStationIndex());
+                    current = grid;
+                }
+            }
+        }
+        return current;
+    }
+
+    private long[] loadFromStationIndex() {
+        List<String> cells = jdbcTemplate.queryForList(
+                "SELECT DISTINCT h3_cell FROM station_h3_index WHERE resolution = ?",
+                String.class, BASE_RESOLUTION);
+        return cells.stream().mapToLong(H3Cells::parse).toArray();
+    }
+
+    private record Grid(int firstRow, int[] rowStart, long[] cells, double[] lats, double[] lons) {
+
+        static Grid of(long[] cells, double[] lats, double[] lons) {
+            int n = cells.length;
+            if (n == 0) return new Grid(0, new int[]{0}, cells, lats, lons);
+            Integer[] order = new Integer[n];
+            for (int i = 0; i < n; i++) order[i] = i;
+            Arrays.sort(order, (a, b) -> {
+                int byRow = Integer.compare(row(lats[a]), row(lats[b]));
+                return byRow != 0 ? byRow : Double.compare(lons[a], lons[b]);
+            });
+            long[] sortedCells = new long[n];
+            double[] sortedLats = new double[n];
+            double[] sortedLons = new double[n];
+            for (int i = 0; i < n; i++) {
+                sortedCells[i] = cells[order[i]];
+                sortedLats[i] = lats[order[i]];
+                sortedLons[i] = lons[order[i]];
+            }
+            int firstRow = row(sortedLats[0]);
+            int rows = row(sortedLats[n - 1]) - firstRow + 1;
+            int[] rowStart = new int[rows + 1];
+            for (double lat : sortedLats) {
+                rowStart[row(lat) - firstRow + 1]++;
+            }
+            for (int r = 0; r < rows; r++) {
+                rowStart[r + 1] += rowStart[r];
+            }
+            return new Grid(firstRow, rowStart, sortedCells, sortedLats, sortedLons);
+        }
+
+        int size() {
+            return cells.length;
+        }
+
+        long[] query(double minLat, double minLon, double maxLat, double maxLon) {
+            int rows = rowStart.length - 1;
+            int fromRow = Math.max(row(minLat) - firstRow, 0);
+            int toRow = Math.min(row(maxLat) - firstRow, rows - 1);
+            long[] out = new long[16];
+            int n = 0;
+            for (int r = fromRow; r <= toRow; r++) {
+                int i = lowerBound(lons, rowStart[r], rowStart[r + 1], minLon);
+                for (; i < rowStart[r + 1] && lons[i] <= maxLon; i++) {
+                    if (lats[i] < minLat || lats[i] > maxLat) continue;
+                    if (n == out.length) out = Arrays.copyOf(out, n * 2);
+                    out[n++] = cells[i];
+                }
+            }
+            return Arrays.copyOf(out, n);
+        }
+
+        private static int row(double lat) {
+            return (int) Math.floor(lat / ROW_HEIGHT_DEG);
+        }
+
+        private static int lowerBound(double[] values, int from, int to, double key) {
+            int lo = from;
+            int hi = to;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (values[mid] < key) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+    }
+}
@@ -1,18 +1,30 @@
 package com.puetsnao.heatmap.infrastructure.summary;
 
+import com.puetsnao.heatmap.domain.BucketRange;
+import com.puetsnao.heatmap.domain.H3CellSeries;
+import com.puetsnao.heatmap.domain.H3CellValues;
 import com.puetsnao.heatmap.domain.Metric;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.Map;
 
 public interface H3SummaryRepository {
-    Map<String, Double> byDay(LocalDate bucketDate, int resolution, Metric metric);
-    Map<String, Double> byHour(LocalDateTime bucketHour, int resolution, Metric metric);
+    // Average price or total volume per cell at the stored resolution, sorted by cell
+    H3CellValues byDay(LocalDate bucketDate, int resolution, Metric metric);
+    H3CellValues byHour(LocalDateTime bucketHour, int resolution, Metric metric);
+
+    // Same values for every bucket of a range, read with one range scan
+    H3CellSeries series(BucketRange range, int resolution, Metric metric);
 
     // Base resolution (10) inputs for v2 aggregation
-    Map<String, PriceInputs> h10PriceByDay(LocalDate bucketDate);
-    Map<String, PriceInputs> h10PriceByHour(LocalDateTime bucketHour);
-    Map<String, Double> h10VolumeByDay(LocalDate bucketDate);
-    Map<String, Double> h10VolumeByHour(LocalDateTime bucketHour);
+    H3CellSums h10PriceByDay(LocalDate bucketDate);
+    H3CellSums h10PriceByHour(LocalDateTime bucketHour);
+    H3CellSums h10VolumeByDay(LocalDate bucketDate);
+    H3CellSums h10VolumeByHour(LocalDateTime bucketHour);
+
+    // Same inputs restricted to stations indexed into the cover cells (bbox pushdown)
+    H3CellSums h10PriceByDay(LocalDate bucketDate, CellCover cover);
+    H3CellSums h10PriceByHour(LocalDateTime bucketHour, CellCover cover);
+    H3CellSums h10VolumeByDay(LocalDate bucketDate, CellCover cover);
+    H3CellSums h10VolumeByHour(LocalDateTime bucketHour, CellCover cover);
 }
@@ -0,0 +1,70 @@
+package com.puetsnao.heatmap.infrastructure.summary;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Id ranges a tail has moved past without seeing their rows. Identity values are handed out at insert but rows
+ * become visible at commit, so a batch that commits after a later one (another flusher, another instance) leaves
+ * a hole below the cursor until it lands. Holes are re-read until their rows show up or they are older than the
+ * grace period; ids that were never used (a rolled back batch) simply expire. At most {@code maxGaps} holes are
+ * kept, the oldest are dropped first.
+ */
+final class IdGaps {
+
+    private final long graceMillis;
+    private final int maxGaps;
+    // oldest first
+    private final ArrayDeque<Gap> gaps = new ArrayDeque<>();
+
+    IdGaps(long graceMillis, int maxGaps) {
+        this.graceMillis = graceMillis;
+        this.maxGaps = maxGaps;
+    }
+
+    /**
+     * Inclusive id range, missing since {@code sinceMillis}.
+     */
+    record Gap(long from, long to, long sinceMillis) {
+    }
+
+    /**
+     * Removes and returns the holes to re-read now, oldest first; holes past the grace period are dropped. Hand
+     * them back through {@link #scanned} before recording newer ranges, so the oldest stay first.
+     */
+    List<Gap> take(long nowMillis) {
+        List<Gap> open = new ArrayList<>(gaps.size());
+        for (Gap gap : gaps) {
+            if (nowMillis - gap.sinceMillis() <= graceMillis) open.add(gap);
+        }
+        gaps.clear();
+        return open;
+    }
+
+    /**
+     * Records the ids of {@code [from, to]} that are not in {@code seen} (sorted ascending; ids outside the range
+     * are ignored) as holes missing since {@code sinceMillis}.
+     */
+    void scanned(long from, long to, long[] seen, long sinceMillis) {
+        int i = Arrays.binarySearch(seen, from);
+        if (i < 0) i = -i - 1;
+        long next = from;
+        for (; i < seen.length && seen[i] <= to; i++) {
+            if (seen[i] > next) add(new Gap(next, seen[i] - 1, sinceMillis));
+            next = seen[i] + 1;
+        }
+        if (next <= to) add(new Gap(next, to, sinceMillis));
+    }
+
+    int size() {
+        return gaps.size();
+    }
+
+    private void add(Gap gap) {
+        gaps.addLast(gap);
+        // the oldest hole is the least likely to still be an open transaction
+        if (gaps.size() > maxGaps) gaps.pollFirst();
+    }
+}
@@ -0,0 +1,25 @@
+package com.puetsnao.heatmap.infrastructure.summary;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * In-memory aggregation of the open (current-day) buckets. {@code graceMinutes} keeps yesterday in memory
+ * after midnight until the batch refresh has had time to cover its last events. {@code lateCommitGraceMs} is how
+ * long ids the tail passed without seeing are re-read, waiting for a transaction that commits late.
+ */
+@ConfigurationProperties(prefix = "heatmap.live")
+public record LiveAggregationProperties(
+        Boolean enabled,
+        Long pollIntervalMs,
+        Integer graceMinutes,
+        Integer tailBatchRows,
+        Long lateCommitGraceMs
+) {
+    public LiveAggregationProperties {
+        if (enabled == null) enabled = false;
+        if (pollIntervalMs == null) pollIntervalMs = 2_000L;
+        if (graceMinutes == null) graceMinutes = 20;
+        if (tailBatchRows == null) tailBatchRows = 50_000;
+        if (lateCommitGraceMs == null) lateCommitGraceMs = 30_000L;
+    }
+}
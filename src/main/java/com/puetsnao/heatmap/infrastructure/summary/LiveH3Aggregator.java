@@ -0,0 +1,359 @@
+package com.puetsnao.heatmap.infrastructure.summary;
+
+import com.puetsnao.heatmap.domain.H3Cells;
+import com.puetsnao.heatmap.infrastructure.cache.DataVersions;
+import com.puetsnao.heatmap.infrastructure.cache.HeatmapCacheInvalidator;
+import com.puetsnao.ingest.app.EventsIngested;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.LongStream;
+
+/**
+ * Keeps per-hour (H10 cell, product) price and volume sums for the open days in memory, so maps for today
+ * and the current hour are near-real-time instead of lagging by one batch refresh.
+ * <p>
+ * On first use it seeds the open days from {@code price}/{@code sales}, then tails both tables by id, so rows
+ * written by any instance are picked up. Ingestion on this instance triggers a catch-up right after commit.
+ * Rows of stations without a {@code station_h3_index} entry cannot be placed in a cell and are skipped, but their
+ * stations are remembered: once the batch refresh has indexed one of them, the open days are seeded again, which
+ * picks up every row of theirs the tail had passed.
+ * <p>
+ * Ids the tail passed without seeing (a batch that committed after a later one) are re-read on every catch-up for
+ * {@code late-commit-grace-ms}; see {@link IdGaps}. The seed stops {@code tail-batch-rows} ids short of the
+ * newest row so that the most recent, possibly still committing, ids go through the tail as well. Tail batches
+ * are read without holding the lock, which is taken only to merge them.
+ */
+@Component
+public class LiveH3Aggregator {
+
+    private static final Logger log = LoggerFactory.getLogger(LiveH3Aggregator.class);
+    private static final int MAX_GAPS = 64;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LiveAggregationProperties properties;
+    private final HeatmapCacheInvalidator cacheInvalidator;
+    private final DataVersions dataVersions;
+    private final Clock clock;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // hour -> product -> sums; guarded by lock
+    private final Map<LocalDateTime, Map<Long, ProductSums>> hours = new HashMap<>();
+    private volatile LocalDate coveredFrom;
+    // tail state, only touched by catchUp
+    private long priceWatermark;
+    private long salesWatermark;
+    private final IdGaps priceGaps;
+    private final IdGaps salesGaps;
+    private final Set<Long> unindexedStations = new HashSet<>();
+
+    @Autowired
+    public LiveH3Aggregator(JdbcTemplate jdbcTemplate, LiveAggregationProperties properties,
+                            HeatmapCacheInvalidator cacheInvalidator, DataVersions dataVersions) {
+        this(jdbcTemplate, properties, cacheInvalidator, dataVersions, Clock.systemDefaultZone());
+    }
+
+    LiveH3Aggregator(JdbcTemplate jdbcTemplate, LiveAggregationProperties properties,
+                     HeatmapCacheInvalidator cacheInvalidator, DataVersions dataVersions, Clock clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+        this.cacheInvalidator = cacheInvalidator;
+        this.dataVersions = dataVersions;
+        this.clock = clock;
+        this.priceGaps = new IdGaps(properties.lateCommitGraceMs(), MAX_GAPS);
+        this.salesGaps = new IdGaps(properties.lateCommitGraceMs(), MAX_GAPS);
+    }
+
+    private record ProductSums(CellAccumulator price, CellAccumulator volume) {
+        static ProductSums create() {
+            return new ProductSums(new CellAccumulator(64), new CellAccumulator(64));
+        }
+    }
+
+    /**
+     * True when reads for the day are served from memory rather than from the summary tables.
+     */
+    public boolean covers(LocalDate day) {
+        LocalDate from = coveredFrom;
+        return from != null && !day.isBefore(from) && !day.isAfter(LocalDate.now(clock));
+    }
+
+    public boolean covers(LocalDateTime hour) {
+        return covers(hour.toLocalDate());
+    }
+
+    public H3CellSums h10PriceByDay(LocalDate day) {
+        return merge(day.atStartOfDay(), 24, true);
+    }
+
+    public H3CellSums h10VolumeByDay(LocalDate day) {
+        return merge(day.atStartOfDay(), 24, false);
+    }
+
+    public H3CellSums h10PriceByHour(LocalDateTime hour) {
+        return merge(hour.truncatedTo(ChronoUnit.HOURS), 1, true);
+    }
+
+    public H3CellSums h10VolumeByHour(LocalDateTime hour) {
+        return merge(hour.truncatedTo(ChronoUnit.HOURS), 1, false);
+    }
+
+    @Scheduled(fixedDelayString = "${heatmap.live.poll-interval-ms:2000}",
+            initialDelayString = "${heatmap.live.poll-interval-ms:2000}")
+    public void poll() {
+        if (!properties.enabled()) return;
+        try {
+            catchUp();
+        } catch (RuntimeException e) {
+            // keep serving what we have; the next poll retries from the same watermarks
+            log.warn("Live H3 aggregation catch-up failed", e);
+        }
+    }
+
+    @EventListener
+    public void onEventsIngested(EventsIngested event) {
+        poll();
+    }
+
+    synchronized void catchUp() {
+        LocalDateTime now = LocalDateTime.now(clock);
+        LocalDate firstOpen = now.minusMinutes(properties.graceMinutes()).toLocalDate();
+        if (coveredFrom == null) {
+            seed(firstOpen);
+        } else if (indexedSinceSkipped()) {
+            seed(coveredFrom);
+        }
+        Set<LocalDate> touched = new TreeSet<>();
+        tail(PRICE_TAIL, true, touched);
+        tail(SALES_TAIL, false, touched);
+        dataVersions.h3DaysChanged(touched);
+        if (firstOpen.isAfter(coveredFrom)) {
+            close(firstOpen);
+        }
+    }
+
+    private void seed(LocalDate from) {
+        long priceTo = Math.max(0, maxId("price") - properties.tailBatchRows());
+        long salesTo = Math.max(0, maxId("sales") - properties.tailBatchRows());
+        Timestamp start = Timestamp.valueOf(from.atStartOfDay());
+        Map<LocalDateTime, Map<Long, ProductSums>> seeded = new HashMap<>();
+        jdbcTemplate.query(PRICE_SEED, rs -> {
+            sums(seeded, rs.getTimestamp("bucket_hour").toLocalDateTime(), rs.getLong("product_id")).price()
+                    .add(H3Cells.parse(rs.getString("h3_cell")), rs.getDouble("amount_sum"), rs.getLong("n"));
+        }, start, priceTo);
+        jdbcTemplate.query(SALES_SEED, rs -> {
+            sums(seeded, rs.getTimestamp("bucket_hour").toLocalDateTime(), rs.getLong("product_id")).volume()
+                    .add(H3Cells.parse(rs.getString("h3_cell")), rs.getDouble("volume_sum"), 0L);
+        }, start, salesTo);
+
+        lock.writeLock().lock();
+        try {
+            hours.clear();
+            hours.putAll(seeded);
+            priceWatermark = priceTo;
+            salesWatermark = salesTo;
+            coveredFrom = from;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        // the seed has read everything below the watermarks; holes there would be counted twice
+        long now = clock.millis();
+        priceGaps.take(now);
+        salesGaps.take(now);
+        unindexedStations.clear();
+        dataVersions.h3DaysChanged(from.datesUntil(LocalDate.now(clock).plusDays(1)).toList());
+        log.info("Live H3 aggregation seeded from {} with {} hour buckets (price.id<={}, sales.id<={})",
+                from, seeded.size(), priceTo, salesTo);
+    }
+
+    private void tail(String sql, boolean price, Set<LocalDate> touched) {
+        IdGaps gaps = price ? priceGaps : salesGaps;
+        LocalDateTime start = coveredFrom.atStartOfDay();
+        long now = clock.millis();
+
+        // holes left by earlier batches first, so they keep their age
+        List<IdGaps.Gap> holes = gaps.take(now);
+        if (!holes.isEmpty()) {
+            List<Object> args = new ArrayList<>(holes.size() * 2);
+            for (IdGaps.Gap hole : holes) {
+                args.add(hole.from());
+                args.add(hole.to());
+            }
+            String where = String.join(" OR ", Collections.nCopies(holes.size(), "(id BETWEEN ? AND ?)"));
+            long[] seen = read(sql.formatted(where), price, start, touched, args.toArray());
+            for (IdGaps.Gap hole : holes) {
+                gaps.scanned(hole.from(), hole.to(), seen, hole.sinceMillis());
+            }
+            if (seen.length > 0) log.debug("Live H3 aggregation picked up {} late {} rows", seen.length, price ? "price" : "sales");
+        }
+
+        long from = price ? priceWatermark : salesWatermark;
+        long max = maxId(price ? "price" : "sales");
+        while (from < max) {
+            long to = Math.min(max, from + properties.tailBatchRows());
+            long[] seen = read(sql.formatted("id > ? AND id <= ?"), price, start, touched, from, to);
+            gaps.scanned(from + 1, to, seen, now);
+            if (price) priceWatermark = to;
+            else salesWatermark = to;
+            from = to;
+        }
+    }
+
+    /**
+     * True when a station whose rows the tail skipped has been indexed since. Stations deleted meanwhile (their
+     * rows went with them) are forgotten.
+     */
+    private boolean indexedSinceSkipped() {
+        if (unindexedStations.isEmpty()) return false;
+        String placeholders = String.join(",", Collections.nCopies(unindexedStations.size(), "?"));
+        Map<Long, Boolean> indexed = new HashMap<>();
+        jdbcTemplate.query("""
+                SELECT s.id, i.h3_cell
+                FROM station s
+                LEFT JOIN station_h3_index i ON i.station_id = s.id AND i.resolution = 10
+                WHERE s.id IN (%s)
+                """.formatted(placeholders), rs -> {
+            indexed.put(rs.getLong("id"), rs.getString("h3_cell") != null);
+        }, unindexedStations.toArray());
+        unindexedStations.retainAll(indexed.keySet());
+        return indexed.containsValue(true);
+    }
+
+    /**
+     * Reads one tail batch into a local delta, merges it under the write lock and returns the ids it saw, sorted.
+     */
+    private long[] read(String sql, boolean price, LocalDateTime start, Set<LocalDate> touched, Object... args) {
+        Map<LocalDateTime, Map<Long, ProductSums>> delta = new HashMap<>();
+        LongStream.Builder seen = LongStream.builder();
+        jdbcTemplate.query(sql, rs -> {
+            seen.add(rs.getLong("id"));
+            String h3Cell = rs.getString("h3_cell");
+            LocalDateTime at = rs.getTimestamp("event_at").toLocalDateTime();
+            if (at.isBefore(start)) return;
+            if (h3Cell == null) {
+                unindexedStations.add(rs.getLong("station_id"));
+                return;
+            }
+            LocalDateTime hour = at.truncatedTo(ChronoUnit.HOURS);
+            touched.add(hour.toLocalDate());
+            ProductSums sums = sums(delta, hour, rs.getLong("product_id"));
+            if (price) {
+                sums.price().add(H3Cells.parse(h3Cell), rs.getDouble("amount"), 1L);
+            } else {
+                sums.volume().add(H3Cells.parse(h3Cell), rs.getDouble("amount"), 0L);
+            }
+        }, args);
+
+        if (!delta.isEmpty()) {
+            lock.writeLock().lock();
+            try {
+                delta.forEach((hour, byProduct) -> byProduct.forEach((productId, sums) -> {
+                    ProductSums target = sums(hours, hour, productId);
+                    sums.price().addTo(target.price());
+                    sums.volume().addTo(target.volume());
+                }));
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        return seen.build().toArray();
+    }
+
+    private void close(LocalDate firstOpen) {
+        List<LocalDate> closed = coveredFrom.datesUntil(firstOpen).toList();
+        lock.writeLock().lock();
+        try {
+            LocalDateTime cutoff = firstOpen.atStartOfDay();
+            Iterator<LocalDateTime> it = hours.keySet().iterator();
+            while (it.hasNext()) {
+                if (it.next().isBefore(cutoff)) it.remove();
+            }
+            coveredFrom = firstOpen;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        // closed days are read from the summary tables (and cached) again; drop anything cached before seeding
+        cacheInvalidator.h3BucketsRewritten(closed);
+        log.info("Live H3 aggregation closed buckets before {}", firstOpen);
+    }
+
+    private H3CellSums merge(LocalDateTime start, int hourCount, boolean price) {
+        lock.readLock().lock();
+        try {
+            CellAccumulator merged = new CellAccumulator(1024);
+            for (int h = 0; h < hourCount; h++) {
+                Map<Long, ProductSums> byProduct = hours.get(start.plusHours(h));
+                if (byProduct == null) continue;
+                for (ProductSums sums : byProduct.values()) {
+                    (price ? sums.price() : sums.volume()).addTo(merged);
+                }
+            }
+            return merged.toSorted();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static ProductSums sums(Map<LocalDateTime, Map<Long, ProductSums>> target, LocalDateTime hour, long productId) {
+        return target.computeIfAbsent(hour, h -> new HashMap<>()).computeIfAbsent(productId, p -> ProductSums.create());
+    }
+
+    private long maxId(String table) {
+        Long max = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table, Long.class);
+        return max != null ? max : 0L;
+    }
+
+    private static final String PRICE_SEED = """
+            SELECT DATE_TRUNC('hour', p.effective_at) AS bucket_hour, i.h3_cell, p.product_id,
+                   SUM(p.amount) AS amount_sum, COUNT(*) AS n
+            FROM price p
+            JOIN station_h3_index i ON i.station_id = p.station_id AND i.resolution = 10
+            WHERE p.effective_at >= ? AND p.id <= ?
+            GROUP BY DATE_TRUNC('hour', p.effective_at), i.h3_cell, p.product_id
+            """;
+
+    private static final String SALES_SEED = """
+            SELECT DATE_TRUNC('hour', sa.sold_at) AS bucket_hour, i.h3_cell, sa.product_id,
+                   SUM(sa.volume) AS volume_sum
+            FROM sales sa
+            JOIN station_h3_index i ON i.station_id = sa.station_id AND i.resolution = 10
+            WHERE sa.sold_at >= ? AND sa.id <= ?
+            GROUP BY DATE_TRUNC('hour', sa.sold_at), i.h3_cell, sa.product_id
+            """;
+
+    // every id of the range comes back, so the ones that did not can be told apart from filtered rows
+    private static final String PRICE_TAIL = """
+            SELECT p.id, p.station_id, p.effective_at AS event_at, i.h3_cell, p.product_id, p.amount
+            FROM (SELECT * FROM price WHERE %s) p
+            LEFT JOIN station_h3_index i ON i.station_id = p.station_id AND i.resolution = 10
+            ORDER BY p.id
+            """;
+
+    private static final String SALES_TAIL = """
+            SELECT sa.id, sa.station_id, sa.sold_at AS event_at, i.h3_cell, sa.product_id, sa.volume AS amount
+            FROM (SELECT * FROM sales WHERE %s) sa
+            LEFT JOIN station_h3_index i ON i.station_id = sa.station_id AND i.resolution = 10
+            ORDER BY sa.id
+            """;
+}
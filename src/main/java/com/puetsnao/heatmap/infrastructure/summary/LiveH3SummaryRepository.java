@@ -0,0 +1,126 @@
+package com.puetsnao.heatmap.infrastructure.summary;
+
+import com.puetsnao.heatmap.domain.BucketGranularity;
+import com.puetsnao.heatmap.domain.BucketRange;
+import com.puetsnao.heatmap.domain.H3CellSeries;
+import com.puetsnao.heatmap.domain.H3CellValues;
+import com.puetsnao.heatmap.domain.H3Cells;
+import com.puetsnao.heatmap.domain.Metric;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * Serves buckets still open for writes from {@link LiveH3Aggregator} and everything else from the summary tables.
+ * Only resolutions up to 10 can be derived from the in-memory H10 sums; finer ones always come from the tables.
+ */
+@Primary
+@Repository
+public class LiveH3SummaryRepository implements H3SummaryRepository {
+
+    private static final int BASE_RESOLUTION = 10;
+
+    private final DefaultH3SummaryRepository tables;
+    private final LiveH3Aggregator live;
+
+    public LiveH3SummaryRepository(DefaultH3SummaryRepository tables, LiveH3Aggregator live) {
+        this.tables = tables;
+        this.live = live;
+    }
+
+    @Override
+    public H3CellValues byDay(LocalDate bucketDate, int resolution, Metric metric) {
+        if (resolution > BASE_RESOLUTION || !live.covers(bucketDate)) return tables.byDay(bucketDate, resolution, metric);
+        H3CellSums sums = metric == Metric.PRICE ? live.h10PriceByDay(bucketDate) : live.h10VolumeByDay(bucketDate);
+        return values(sums.rollup(resolution), metric);
+    }
+
+    @Override
+    public H3CellValues byHour(LocalDateTime bucketHour, int resolution, Metric metric) {
+        if (resolution > BASE_RESOLUTION || !live.covers(bucketHour)) return tables.byHour(bucketHour, resolution, metric);
+        H3CellSums sums = metric == Metric.PRICE ? live.h10PriceByHour(bucketHour) : live.h10VolumeByHour(bucketHour);
+        return values(sums.rollup(resolution), metric);
+    }
+
+    // closed buckets come from one range scan; the open ones at the end of the range are replaced from memory
+    @Override
+    public H3CellSeries series(BucketRange range, int resolution, Metric metric) {
+        H3CellSeries tableSeries = tables.series(range, resolution, metric);
+        if (resolution > BASE_RESOLUTION) return tableSeries;
+        H3CellSeries.Builder builder = null;
+        for (int frame = 0; frame < range.frames(); frame++) {
+            LocalDateTime start = range.frameStart(frame);
+            if (!live.covers(start)) continue;
+            if (builder == null) builder = tableSeries.toBuilder();
+            builder.frame(frame, range.granularity() == BucketGranularity.HOUR
+                    ? byHour(start, resolution, metric)
+                    : byDay(start.toLocalDate(), resolution, metric));
+        }
+        return builder != null ? builder.build() : tableSeries;
+    }
+
+    @Override
+    public H3CellSums h10PriceByDay(LocalDate bucketDate) {
+        return live.covers(bucketDate) ? live.h10PriceByDay(bucketDate) : tables.h10PriceByDay(bucketDate);
+    }
+
+    @Override
+    public H3CellSums h10PriceByHour(LocalDateTime bucketHour) {
+        return live.covers(bucketHour) ? live.h10PriceByHour(bucketHour) : tables.h10PriceByHour(bucketHour);
+    }
+
+    @Override
+    public H3CellSums h10VolumeByDay(LocalDate bucketDate) {
+        return live.covers(bucketDate) ? live.h10VolumeByDay(bucketDate) : tables.h10VolumeByDay(bucketDate);
+    }
+
+    @Override
+    public H3CellSums h10VolumeByHour(LocalDateTime bucketHour) {
+        return live.covers(bucketHour) ? live.h10VolumeByHour(bucketHour) : tables.h10VolumeByHour(bucketHour);
+    }
+
+    @Override
+    public H3CellSums h10PriceByDay(LocalDate bucketDate, CellCover cover) {
+        return live.covers(bucketDate) ? within(live.h10PriceByDay(bucketDate), cover) : tables.h10PriceByDay(bucketDate, cover);
+    }
+
+    @Override
+    public H3CellSums h10PriceByHour(LocalDateTime bucketHour, CellCover cover) {
+        return live.covers(bucketHour) ? within(live.h10PriceByHour(bucketHour), cover) : tables.h10PriceByHour(bucketHour, cover);
+    }
+
+    @Override
+    public H3CellSums h10VolumeByDay(LocalDate bucketDate, CellCover cover) {
+        return live.covers(bucketDate) ? within(live.h10VolumeByDay(bucketDate), cover) : tables.h10VolumeByDay(bucketDate, cover);
+    }
+
+    @Override
+    public H3CellSums h10VolumeByHour(LocalDateTime bucketHour, CellCover cover) {
+        return live.covers(bucketHour) ? within(live.h10VolumeByHour(bucketHour), cover) : tables.h10VolumeByHour(bucketHour, cover);
+    }
+
+    // station_h3_index holds the parents of a station's H10 cell as its coarse cells (V11), so this keeps the
+    // same cells as the SQL cover subquery
+    private static H3CellSums within(H3CellSums sums, CellCover cover) {
+        long[] cells = cover.cells().clone();
+        Arrays.sort(cells);
+        return sums.filter(cell -> Arrays.binarySearch(cells, H3Cells.parent(cell, cover.resolution())) >= 0);
+    }
+
+    // same semantics as the summary table queries: average price over cells with samples, total volume
+    private static H3CellValues values(H3CellSums sums, Metric metric) {
+        long[] cells = new long[sums.size()];
+        double[] values = new double[sums.size()];
+        int n = 0;
+        for (int i = 0; i < sums.size(); i++) {
+            if (metric == Metric.PRICE && sums.count(i) == 0) continue;
+            cells[n] = sums.cell(i);
+            values[n] = metric == Metric.PRICE ? sums.sum(i) / sums.count(i) : sums.sum(i);
+            n++;
+        }
+        return new H3CellValues(Arrays.copyOf(cells, n), Arrays.copyOf(values, n));
+    }
+}
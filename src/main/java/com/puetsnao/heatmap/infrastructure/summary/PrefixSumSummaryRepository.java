@@ -0,0 +1,302 @@
+package com.puetsnao.heatmap.infrastructure.summary;
+
+import com.puetsnao.heatmap.infrastructure.batch.SummaryRefreshProperties;
+import com.puetsnao.heatmap.infrastructure.cache.DataVersions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Answers state aggregations for any date range from per-state prefix sums over days, so a 365-day range costs
+ * the same as a 7-day one: two lookups per state instead of re-summing every daily row.
+ * <p>
+ * The sums are built from {@code daily_state_product_summary} on first use. When the state summary's data
+ * version changes (a refresh on any instance), the days of the refresh window are re-read and the prefix sums
+ * rebuilt from there before the next read is answered: a read never returns sums older than the version its
+ * response is cached and tagged under. {@code SummaryRefreshScheduler} also rebuilds right after its own commit,
+ * before the cache is evicted, so nothing re-caches the previous sums in between. The rebuild starts over from the
+ * first day when there was nothing to keep, or when the rows before the window no longer match the kept days (a
+ * backfill or a retention delete).
+ */
+@Primary
+@Repository
+public class PrefixSumSummaryRepository implements SummaryRepository {
+
+    private static final Logger log = LoggerFactory.getLogger(PrefixSumSummaryRepository.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataVersions dataVersions;
+    private final SummaryRefreshProperties refreshProperties;
+    private volatile Sums sums;
+
+    public PrefixSumSummaryRepository(JdbcTemplate jdbcTemplate, DataVersions dataVersions,
+                                      SummaryRefreshProperties refreshProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataVersions = dataVersions;
+        this.refreshProperties = refreshProperties;
+    }
+
+    @Override
+    public Map<String, Double> averagePriceByState(LocalDate fromDate, LocalDate toDate) {
+        return current().averagePrice(fromDate, toDate);
+    }
+
+    @Override
+    public Map<String, Double> totalVolumeByState(LocalDate fromDate, LocalDate toDate) {
+        return current().totalVolume(fromDate, toDate);
+    }
+
+    /**
+     * Rebuilds the sums once the surrounding transaction has committed (immediately without one). Register before
+     * the cache invalidation, so the sums are current by the time the evicted keys are loaded again.
+     */
+    public void rebuildAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    rebuildQuietly();
+                }
+            });
+        } else {
+            rebuildQuietly();
+        }
+    }
+
+    private Sums current() {
+        Sums current = sums;
+        if (current != null && current.version.equals(dataVersions.stateSummary())) return current;
+        // behind: concurrent reads wait for one rebuild rather than cache the previous sums under the new version
+        return rebuild(false);
+    }
+
+    private void rebuildQuietly() {
+        try {
+            // forced: the refresh has not bumped the version yet
+            rebuild(true);
+        } catch (RuntimeException e) {
+            // the next read rebuilds again
+            log.warn("State prefix sums rebuild after the summary refresh failed", e);
+        }
+    }
+
+    private synchronized Sums rebuild(boolean force) {
+        String version = dataVersions.stateSummary();
+        Sums current = sums;
+        if (!force && current != null && current.version.equals(version)) return current;
+        long started = System.nanoTime();
+        // the scheduler deletes and re-inserts [today - windowDays, today]; one extra day covers a refresh
+        // that ran before midnight
+        LocalDate from = LocalDate.now().minusDays(refreshProperties.windowDays() + 1L);
+        if (current == null || current.days == 0 || !keptDaysUnchanged(current, from)) {
+            current = null;
+            from = null;
+        }
+        Sums rebuilt = rebuild(current, from, version);
+        sums = rebuilt;
+        log.info("State prefix sums rebuilt from {} for {} states x {} days in {} ms",
+                from == null ? "the first day" : from, rebuilt.states.size(), rebuilt.days,
+                (System.nanoTime() - started) / 1_000_000);
+        return rebuilt;
+    }
+
+    /**
+     * True when the rows before {@code from} are still exactly the ones the kept days were built from: none older
+     * than the origin and as many as were counted.
+     */
+    private boolean keptDaysUnchanged(Sums previous, LocalDate from) {
+        int kept = (int) Math.max(0, Math.min(previous.days, ChronoUnit.DAYS.between(previous.origin, from)));
+        long keptRows = 0;
+        for (long[] rows : previous.rowCount) keptRows += rows[kept];
+        long expected = keptRows;
+        return Boolean.TRUE.equals(jdbcTemplate.query(
+                "SELECT MIN(bucket_date) AS first_day, COUNT(*) AS n FROM daily_state_product_summary WHERE bucket_date < ?",
+                (ResultSetExtractor<Boolean>) rs -> {
+                    rs.next();
+                    Date first = rs.getDate("first_day");
+                    return rs.getLong("n") == expected
+                            && (first == null || !first.toLocalDate().isBefore(previous.origin));
+                },
+                Date.valueOf(from)));
+    }
+
+    private Sums rebuild(Sums previous, LocalDate from, String version) {
+        List<DailyRow> rows = new ArrayList<>();
+        String sql = """
+                SELECT bucket_date, state,
+                       SUM(COALESCE(price_sum, 0)) AS price_sum,
+                       SUM(COALESCE(price_count, 0)) AS price_count,
+                       SUM(COALESCE(volume_sum, 0)) AS volume_sum,
+                       COUNT(*) AS n
+                FROM daily_state_product_summary
+                WHERE bucket_date >= ?
+                GROUP BY bucket_date, state
+                """;
+        jdbcTemplate.query(sql, rs -> {
+            rows.add(new DailyRow(rs.getDate("bucket_date").toLocalDate(), rs.getString("state"),
+                    rs.getDouble("price_sum"), rs.getLong("price_count"), rs.getDouble("volume_sum"), rs.getLong("n")));
+        }, Date.valueOf(from != null ? from : LocalDate.of(1970, 1, 1)));
+
+        LocalDate origin = previous != null ? previous.origin : null;
+        LocalDate last = previous != null ? previous.origin.plusDays(previous.days - 1L) : null;
+        for (DailyRow row : rows) {
+            if (origin == null || row.day().isBefore(origin)) origin = row.day();
+            if (last == null || row.day().isAfter(last)) last = row.day();
+        }
+        if (origin == null) return Sums.empty(version);
+
+        Map<String, Integer> states = new LinkedHashMap<>();
+        if (previous != null) previous.states.forEach(states::put);
+        for (DailyRow row : rows) states.putIfAbsent(row.state(), states.size());
+
+        int days = (int) ChronoUnit.DAYS.between(origin, last) + 1;
+        Daily daily = new Daily(states.size(), days);
+        if (previous != null) {
+            // keep the days before the re-read window as they were
+            int keepUntil = (int) ChronoUnit.DAYS.between(previous.origin, from);
+            int shift = (int) ChronoUnit.DAYS.between(origin, previous.origin);
+            for (Map.Entry<String, Integer> state : previous.states.entrySet()) {
+                int s = state.getValue();
+                for (int d = 0; d < Math.min(keepUntil, previous.days); d++) {
+                    daily.add(s, d + shift,
+                            previous.priceSum[s][d + 1] - previous.priceSum[s][d],
+                            previous.priceCount[s][d + 1] - previous.priceCount[s][d],
+                            previous.volumeSum[s][d + 1] - previous.volumeSum[s][d],
+                            previous.rowCount[s][d + 1] - previous.rowCount[s][d]);
+                }
+            }
+        }
+        for (DailyRow row : rows) {
+            daily.add(states.get(row.state()), (int) ChronoUnit.DAYS.between(origin, row.day()),
+                    row.priceSum(), row.priceCount(), row.volumeSum(), row.rows());
+        }
+        return daily.toSums(states, origin, version);
+    }
+
+    private record DailyRow(LocalDate day, String state, double priceSum, long priceCount, double volumeSum, long rows) {
+    }
+
+    private static final class Daily {
+        final double[][] priceSum;
+        final long[][] priceCount;
+        final double[][] volumeSum;
+        final long[][] rowCount;
+
+        Daily(int states, int days) {
+            priceSum = new double[states][days];
+            priceCount = new long[states][days];
+            volumeSum = new double[states][days];
+            rowCount = new long[states][days];
+        }
+
+        void add(int state, int day, double price, long count, double volume, long rows) {
+            priceSum[state][day] += price;
+            priceCount[state][day] += count;
+            volumeSum[state][day] += volume;
+            rowCount[state][day] += rows;
+        }
+
+        Sums toSums(Map<String, Integer> states, LocalDate origin, String version) {
+            int n = states.size();
+            int days = n == 0 ? 0 : priceSum[0].length;
+            Sums sums = new Sums(version, Map.copyOf(states), origin, days);
+            for (int s = 0; s < n; s++) {
+                sums.priceSum[s] = prefix(priceSum[s]);
+                sums.volumeSum[s] = prefix(volumeSum[s]);
+                sums.priceCount[s] = prefix(priceCount[s]);
+                sums.rowCount[s] = prefix(rowCount[s]);
+            }
+            return sums;
+        }
+
+        private static double[] prefix(double[] daily) {
+            double[] prefix = new double[daily.length + 1];
+            for (int d = 0; d < daily.length; d++) prefix[d + 1] = prefix[d] + daily[d];
+            return prefix;
+        }
+
+        private static long[] prefix(long[] daily) {
+            long[] prefix = new long[daily.length + 1];
+            for (int d = 0; d < daily.length; d++) prefix[d + 1] = prefix[d] + daily[d];
+            return prefix;
+        }
+    }
+
+    /**
+     * Immutable snapshot: {@code x[state][d]} is the total of days {@code [origin, origin + d)}.
+     */
+    private static final class Sums {
+        final String version;
+        final Map<String, Integer> states;
+        final LocalDate origin;
+        final int days;
+        final double[][] priceSum;
+        final long[][] priceCount;
+        final double[][] volumeSum;
+        final long[][] rowCount;
+
+        Sums(String version, Map<String, Integer> states, LocalDate origin, int days) {
+            this.version = version;
+            this.states = states;
+            this.origin = origin;
+            this.days = days;
+            this.priceSum = new double[states.size()][];
+            this.priceCount = new long[states.size()][];
+            this.volumeSum = new double[states.size()][];
+            this.rowCount = new long[states.size()][];
+        }
+
+        static Sums empty(String version) {
+            return new Sums(version, Map.of(), LocalDate.now(), 0);
+        }
+
+        Map<String, Double> averagePrice(LocalDate from, LocalDate to) {
+            Map<String, Double> result = new HashMap<>();
+            int[] range = range(from, to);
+            if (range == null) return result;
+            for (Map.Entry<String, Integer> state : states.entrySet()) {
+                int s = state.getValue();
+                long count = priceCount[s][range[1]] - priceCount[s][range[0]];
+                if (count > 0) {
+                    result.put(state.getKey(), (priceSum[s][range[1]] - priceSum[s][range[0]]) / count);
+                }
+            }
+            return result;
+        }
+
+        Map<String, Double> totalVolume(LocalDate from, LocalDate to) {
+            Map<String, Double> result = new HashMap<>();
+            int[] range = range(from, to);
+            if (range == null) return result;
+            for (Map.Entry<String, Integer> state : states.entrySet()) {
+                int s = state.getValue();
+                if (rowCount[s][range[1]] - rowCount[s][range[0]] > 0) {
+                    result.put(state.getKey(), volumeSum[s][range[1]] - volumeSum[s][range[0]]);
+                }
+            }
+            return result;
+        }
+
+        // inclusive dates to prefix indexes [start, end), clamped to the loaded days; null when nothing overlaps
+        private int[] range(LocalDate from, LocalDate to) {
+            if (days == 0) return null;
+            long start = Math.max(0, ChronoUnit.DAYS.between(origin, from));
+            long end = Math.min(days, ChronoUnit.DAYS.between(origin, to) + 1);
+            return start < end ? new int[]{(int) start, (int) end} : null;
+        }
+    }
+}
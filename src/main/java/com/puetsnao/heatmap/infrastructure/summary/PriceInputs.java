@@ -1,7 +0,0 @@
-package com.puetsnao.heatmap.infrastructure.summary;
-
-public record PriceInputs(double priceSum, long priceCount) {
-    public PriceInputs add(PriceInputs other) {
-        return new PriceInputs(this.priceSum + other.priceSum, this.priceCount + other.priceCount);
-    }
-}
\ No newline at end of file
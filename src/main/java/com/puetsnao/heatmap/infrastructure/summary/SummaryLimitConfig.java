@@ -0,0 +1,54 @@
+package com.puetsnao.heatmap.infrastructure.summary;
+
+import com.puetsnao.shared.concurrency.AdaptiveConcurrencyLimiter;
+import com.puetsnao.shared.concurrency.OverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.function.Supplier;
+
+@Configuration
+public class SummaryLimitConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "heatmap.summary-limit.enabled", havingValue = "true")
+    public AdaptiveConcurrencyLimiter summaryConcurrencyLimiter(SummaryLimitProperties properties, MeterRegistry registry) {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(properties.initialLimit(), properties.minLimit(),
+                properties.maxLimit(), properties.tolerance(), properties.smoothing(), properties.retryAfterSeconds(), System::nanoTime);
+        Gauge.builder("heatmap.summary.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::limit)
+                .description("Current adaptive limit on concurrent H3 summary reads")
+                .register(registry);
+        Gauge.builder("heatmap.summary.concurrency.inflight", limiter, AdaptiveConcurrencyLimiter::inflight)
+                .description("H3 summary reads in flight")
+                .register(registry);
+        return limiter;
+    }
+
+    @Bean
+    public SummaryReadLimiter summaryReadLimiter(ObjectProvider<AdaptiveConcurrencyLimiter> summaryConcurrencyLimiter,
+                                                 MeterRegistry registry) {
+        AdaptiveConcurrencyLimiter limiter = summaryConcurrencyLimiter.getIfAvailable();
+        if (limiter == null) {
+            return Supplier::get;
+        }
+        Counter rejected = Counter.builder("heatmap.summary.concurrency.rejected")
+                .description("H3 summary reads shed at the concurrency limit")
+                .register(registry);
+        return new SummaryReadLimiter() {
+            @Override
+            public <T> T call(Supplier<T> read) {
+                try {
+                    return limiter.call(read);
+                } catch (OverloadedException e) {
+                    rejected.increment();
+                    throw e;
+                }
+            }
+        };
+    }
+}
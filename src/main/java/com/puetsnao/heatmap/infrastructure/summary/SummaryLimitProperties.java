@@ -0,0 +1,28 @@
+package com.puetsnao.heatmap.infrastructure.summary;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Adaptive concurrency limit on H3 summary reads. {@code tolerance} is how many times the baseline latency a read
+ * may take before the limit starts shrinking; {@code smoothing} is the weight of each new estimate.
+ */
+@ConfigurationProperties(prefix = "heatmap.summary-limit")
+public record SummaryLimitProperties(
+        Boolean enabled,
+        Integer initialLimit,
+        Integer minLimit,
+        Integer maxLimit,
+        Double tolerance,
+        Double smoothing,
+        Long retryAfterSeconds
+) {
+    public SummaryLimitProperties {
+        if (enabled == null) enabled = false;
+        if (initialLimit == null) initialLimit = 20;
+        if (minLimit == null) minLimit = 2;
+        if (maxLimit == null) maxLimit = 200;
+        if (tolerance == null) tolerance = 2.0;
+        if (smoothing == null) smoothing = 0.2;
+        if (retryAfterSeconds == null) retryAfterSeconds = 1L;
+    }
+}
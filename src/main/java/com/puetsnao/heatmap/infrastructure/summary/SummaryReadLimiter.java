@@ -0,0 +1,12 @@
+package com.puetsnao.heatmap.infrastructure.summary;
+
+import java.util.function.Supplier;
+
+/**
+ * Runs H3 summary reads under the adaptive concurrency limit ({@code heatmap.summary-limit}), or directly when it
+ * is disabled.
+ */
+public interface SummaryReadLimiter {
+
+    <T> T call(Supplier<T> read);
+}
@@ -0,0 +1,98 @@
+package com.puetsnao.ingest.api;
+
+import com.puetsnao.ingest.app.IngestEvent;
+import com.puetsnao.ingest.app.IngestEventReader;
+import com.puetsnao.ingest.infrastructure.IngestBuffer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+@RestController
+@RequestMapping("/api/ingest")
+@ConditionalOnProperty(name = "heatmap.ingest.enabled", havingValue = "true")
+@Tag(name = "Ingestion", description = "Streaming intake of price and sale events")
+public class IngestController {
+
+    static final String NDJSON = "application/x-ndjson";
+
+    private final IngestBuffer buffer;
+    private final Counter acceptedPrices;
+    private final Counter acceptedSales;
+    private final Counter throttled;
+
+    public IngestController(IngestBuffer buffer, MeterRegistry registry) {
+        this.buffer = buffer;
+        this.acceptedPrices = Counter.builder("heatmap.ingest.events.accepted").tag("type", "price").register(registry);
+        this.acceptedSales = Counter.builder("heatmap.ingest.events.accepted").tag("type", "sale").register(registry);
+        this.throttled = Counter.builder("heatmap.ingest.backpressure")
+                .description("Requests cut short because the ingest queue stayed full")
+                .register(registry);
+    }
+
+    public record IngestResult(long accepted, String error) { }
+
+    @PostMapping(path = "/events", consumes = {NDJSON, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    @Operation(
+            summary = "Ingest price and sale events",
+            description = "Accepts NDJSON (one event per line) or fixed 33-byte binary records. Events are queued and written in batches with COPY; a 202 means queued, not yet persisted. Batches that cannot be written are spooled to local disk and written later (at least once)."
+    )
+    @ApiResponse(responseCode = "202", description = "All events queued")
+    @ApiResponse(responseCode = "400", description = "Malformed event; events before it were queued", content = @Content)
+    @ApiResponse(responseCode = "503", description = "Queue full; retry the events after 'accepted' later", content = @Content)
+    public ResponseEntity<IngestResult> ingest(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                               InputStream body) throws IOException {
+        Counted sink = new Counted();
+        try {
+            if (MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.APPLICATION_OCTET_STREAM)) {
+                IngestEventReader.readBinary(body, sink);
+            } else {
+                IngestEventReader.readNdjson(body, sink);
+            }
+        } catch (Backpressure e) {
+            throttled.increment();
+            return ResponseEntity.status(503)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(new IngestResult(sink.accepted, "ingest queue full"));
+        } catch (IllegalArgumentException | com.fasterxml.jackson.core.JacksonException e) {
+            return ResponseEntity.badRequest().body(new IngestResult(sink.accepted, e.getMessage()));
+        }
+        return ResponseEntity.accepted().body(new IngestResult(sink.accepted, null));
+    }
+
+    private final class Counted implements Consumer<IngestEvent> {
+        long accepted;
+
+        @Override
+        public void accept(IngestEvent event) {
+            try {
+                if (!buffer.offer(event)) throw new Backpressure();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new Backpressure();
+            }
+            (event.type() == IngestEvent.Type.PRICE ? acceptedPrices : acceptedSales).increment();
+            accepted++;
+        }
+    }
+
+    private static final class Backpressure extends RuntimeException {
+        Backpressure() {
+            super(null, null, false, false);
+        }
+    }
+}
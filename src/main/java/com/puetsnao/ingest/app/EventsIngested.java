@@ -0,0 +1,7 @@
+package com.puetsnao.ingest.app;
+
+/**
+ * Published after a batch of events has been committed to {@code price}/{@code sales}.
+ */
+public record EventsIngested(long prices, long sales) {
+}
@@ -0,0 +1,40 @@
+package com.puetsnao.ingest.app;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One price update or sale as received from the feed. {@code value} is the price amount or the sold volume; it is
+ * rejected here when its column ({@code price.amount DECIMAL(12,4)}, {@code sales.volume DECIMAL(14,3)}) could not
+ * hold it, so a bad event fails its request instead of the whole batch it would be written with.
+ */
+public record IngestEvent(
+        Type type,
+        long stationId,
+        long productId,
+        LocalDateTime at,
+        double value
+) {
+    public enum Type {
+        @JsonProperty("price") PRICE(99_999_999.9999),
+        @JsonProperty("sale") SALE(99_999_999_999.999);
+
+        private final double maxValue;
+
+        Type(double maxValue) {
+            this.maxValue = maxValue;
+        }
+    }
+
+    public IngestEvent {
+        if (type == null) throw new IllegalArgumentException("type is required");
+        if (at == null) throw new IllegalArgumentException("at is required");
+        if (stationId <= 0 || productId <= 0) throw new IllegalArgumentException("stationId and productId must be positive");
+        if (!Double.isFinite(value)) throw new IllegalArgumentException("value must be finite");
+        if (value < 0 || value > type.maxValue) {
+            throw new IllegalArgumentException(type.name().toLowerCase() + " value must be between 0 and " + BigDecimal.valueOf(type.maxValue).toPlainString());
+        }
+    }
+}
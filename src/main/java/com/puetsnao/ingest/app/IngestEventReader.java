@@ -0,0 +1,85 @@
+package com.puetsnao.ingest.app;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.function.Consumer;
+
+/**
+ * Decodes event batches without materializing them: every event is handed to the sink as soon as it is read.
+ * <ul>
+ *   <li>NDJSON: one {@code {"type":"price|sale","stationId":..,"productId":..,"at":"yyyy-MM-ddTHH:mm:ss","value":..}} per line</li>
+ *   <li>Binary: fixed 33-byte big-endian records {@code type:u8 (0 price, 1 sale), stationId:i64, productId:i64,
+ *   atEpochMillis:i64, value:f64}</li>
+ * </ul>
+ * Binary instants are turned into local date-times in the server's time zone, the zone every bucket, summary and
+ * {@code LocalDate.now()} in this service is in, so an event lands in the same day and hour whichever way it came.
+ */
+public final class IngestEventReader {
+
+    public static final int BINARY_RECORD_BYTES = 33;
+
+    private static final ObjectReader NDJSON = JsonMapper.builder()
+            .addModule(new JavaTimeModule())
+            .build()
+            .readerFor(IngestEvent.class);
+
+    private IngestEventReader() {
+    }
+
+    /**
+     * Reads events until the stream ends or the sink throws; returns how many events reached the sink.
+     */
+    public static long readNdjson(InputStream in, Consumer<IngestEvent> sink) throws IOException {
+        long n = 0;
+        try (MappingIterator<IngestEvent> events = NDJSON.readValues(in)) {
+            while (events.hasNextValue()) {
+                sink.accept(events.nextValue());
+                n++;
+            }
+        }
+        return n;
+    }
+
+    public static long readBinary(InputStream in, Consumer<IngestEvent> sink) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in, 64 * 1024));
+        long n = 0;
+        while (true) {
+            int type = data.read();
+            if (type < 0) return n;
+            try {
+                long stationId = data.readLong();
+                long productId = data.readLong();
+                long epochMillis = data.readLong();
+                double value = data.readDouble();
+                sink.accept(new IngestEvent(
+                        binaryType(type),
+                        stationId,
+                        productId,
+                        LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault()),
+                        value));
+                n++;
+            } catch (EOFException e) {
+                throw new IllegalArgumentException("Truncated binary record after " + n + " events", e);
+            }
+        }
+    }
+
+    private static IngestEvent.Type binaryType(int code) {
+        return switch (code) {
+            case 0 -> IngestEvent.Type.PRICE;
+            case 1 -> IngestEvent.Type.SALE;
+            default -> throw new IllegalArgumentException("Unknown event type code: " + code);
+        };
+    }
+}
@@ -0,0 +1,105 @@
+package com.puetsnao.ingest.infrastructure;
+
+import com.puetsnao.ingest.app.IngestEvent;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Writes a batch with one {@code COPY} into a session-local staging table, then moves the rows into
+ * {@code price}/{@code sales} joined against {@code station}/{@code product}. Rows with unknown ids are
+ * dropped there instead of failing the whole batch on a foreign key. Everything runs in one transaction.
+ */
+@Component
+@ConditionalOnProperty(name = "heatmap.ingest.enabled", havingValue = "true")
+public class CopyEventWriter {
+
+    private static final String CREATE_STAGE = """
+            CREATE TEMP TABLE IF NOT EXISTS ingest_stage (
+                kind CHAR(1) NOT NULL,
+                station_id BIGINT NOT NULL,
+                product_id BIGINT NOT NULL,
+                at TIMESTAMP NOT NULL,
+                value NUMERIC NOT NULL
+            ) ON COMMIT DELETE ROWS
+            """;
+
+    private static final String MOVE_PRICES = """
+            INSERT INTO price (station_id, product_id, amount, effective_at)
+            SELECT g.station_id, g.product_id, g.value, g.at
+            FROM ingest_stage g
+            JOIN station s ON s.id = g.station_id
+            JOIN product pr ON pr.id = g.product_id
+            WHERE g.kind = 'p'
+            """;
+
+    private static final String MOVE_SALES = """
+            INSERT INTO sales (station_id, product_id, sold_at, volume)
+            SELECT g.station_id, g.product_id, g.at, g.value
+            FROM ingest_stage g
+            JOIN station s ON s.id = g.station_id
+            JOIN product pr ON pr.id = g.product_id
+            WHERE g.kind = 's'
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public CopyEventWriter(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    public record Written(long staged, long prices, long sales) {
+        public long invalid() {
+            return staged - prices - sales;
+        }
+    }
+
+    public Written write(List<IngestEvent> events) {
+        String csv = toCsv(events);
+        return transactionTemplate.execute(status -> jdbcTemplate.execute((ConnectionCallback<Written>) con -> {
+            CopyManager copy = copyManager(con);
+            try (Statement st = con.createStatement()) {
+                st.execute(CREATE_STAGE);
+                long staged = copy.copyIn("COPY ingest_stage (kind, station_id, product_id, at, value) FROM STDIN WITH (FORMAT csv)",
+                        new StringReader(csv));
+                long prices = st.executeUpdate(MOVE_PRICES);
+                long sales = st.executeUpdate(MOVE_SALES);
+                return new Written(staged, prices, sales);
+            } catch (IOException e) {
+                throw new SQLException("COPY into ingest_stage failed", e);
+            }
+        }));
+    }
+
+    private static CopyManager copyManager(Connection con) throws SQLException {
+        if (!con.isWrapperFor(PGConnection.class)) {
+            throw new IllegalStateException("COPY ingestion requires a PostgreSQL connection");
+        }
+        return con.unwrap(PGConnection.class).getCopyAPI();
+    }
+
+    static String toCsv(List<IngestEvent> events) {
+        StringBuilder sb = new StringBuilder(events.size() * 48);
+        for (IngestEvent e : events) {
+            sb.append(e.type() == IngestEvent.Type.PRICE ? 'p' : 's').append(',')
+                    .append(e.stationId()).append(',')
+                    .append(e.productId()).append(',')
+                    .append(e.at()).append(',')
+                    .append(e.value()).append('\n');
+        }
+        return sb.toString();
+    }
+}
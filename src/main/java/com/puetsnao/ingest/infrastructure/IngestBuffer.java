@@ -0,0 +1,60 @@
+package com.puetsnao.ingest.infrastructure;
+
+import com.puetsnao.ingest.app.IngestEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded hand-off between request threads and the COPY flusher. A full queue blocks producers for up to
+ * {@code offer-timeout-ms}; after that the caller is told to back off instead of growing the heap.
+ */
+@Component
+@ConditionalOnProperty(name = "heatmap.ingest.enabled", havingValue = "true")
+public class IngestBuffer {
+
+    private final BlockingQueue<IngestEvent> queue;
+    private final long offerTimeoutMs;
+
+    public IngestBuffer(IngestProperties properties, MeterRegistry meterRegistry) {
+        this.queue = new ArrayBlockingQueue<>(properties.queueCapacity());
+        this.offerTimeoutMs = properties.offerTimeoutMs();
+        Gauge.builder("heatmap.ingest.queue.size", queue, BlockingQueue::size)
+                .description("Events accepted but not yet flushed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns false when the queue stayed full for the whole offer timeout.
+     */
+    public boolean offer(IngestEvent event) throws InterruptedException {
+        return queue.offer(event, offerTimeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Waits up to {@code waitMs} for the first event, then takes whatever else is queued, up to {@code max}.
+     */
+    int drain(List<IngestEvent> into, int max, long waitMs) throws InterruptedException {
+        IngestEvent first = queue.poll(waitMs, TimeUnit.MILLISECONDS);
+        if (first == null) return 0;
+        into.add(first);
+        return 1 + queue.drainTo(into, max - 1);
+    }
+
+    /**
+     * Takes everything queued without waiting.
+     */
+    int drain(List<IngestEvent> into) {
+        return queue.drainTo(into);
+    }
+
+    int size() {
+        return queue.size();
+    }
+}
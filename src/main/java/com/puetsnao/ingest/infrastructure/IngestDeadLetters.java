@@ -0,0 +1,98 @@
+package com.puetsnao.ingest.infrastructure;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.puetsnao.ingest.app.IngestEvent;
+import com.puetsnao.ingest.app.IngestEventReader;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Batches the flusher could not write, kept on local disk under {@code dead-letter-dir} until they are written.
+ * Each batch is one NDJSON file in the format {@code POST /api/ingest/events} accepts, so a spool can also be
+ * replayed by hand. Files are written to a temporary name and moved into place, so a crash never leaves half a
+ * batch behind; names sort in spool order. A batch that can never be written is renamed to {@code .failed} and
+ * left for an operator.
+ */
+@Component
+@ConditionalOnProperty(name = "heatmap.ingest.enabled", havingValue = "true")
+public class IngestDeadLetters {
+
+    private static final String SUFFIX = ".ndjson";
+    private static final String QUARANTINED = ".failed";
+
+    private static final ObjectWriter NDJSON = JsonMapper.builder()
+            .addModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build()
+            .writerFor(IngestEvent.class);
+
+    private final Path dir;
+    private final AtomicLong sequence = new AtomicLong();
+
+    public IngestDeadLetters(IngestProperties properties) {
+        this(Path.of(properties.deadLetterDir()));
+    }
+
+    IngestDeadLetters(Path dir) {
+        this.dir = dir;
+    }
+
+    void write(List<IngestEvent> batch) throws IOException {
+        Files.createDirectories(dir);
+        String name = "batch-%013d-%06d".formatted(System.currentTimeMillis(), sequence.incrementAndGet() % 1_000_000);
+        Path tmp = dir.resolve(name + ".tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            for (IngestEvent event : batch) {
+                out.write(NDJSON.writeValueAsString(event));
+                out.newLine();
+            }
+        }
+        Files.move(tmp, dir.resolve(name + SUFFIX), StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Spooled batches, oldest first.
+     */
+    List<Path> pending() throws IOException {
+        if (!Files.isDirectory(dir)) return List.of();
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(f -> f.getFileName().toString().endsWith(SUFFIX)).sorted().toList();
+        }
+    }
+
+    List<IngestEvent> read(Path batch) throws IOException {
+        List<IngestEvent> events = new ArrayList<>();
+        try (InputStream in = Files.newInputStream(batch)) {
+            IngestEventReader.readNdjson(in, events::add);
+        }
+        return events;
+    }
+
+    void delete(Path batch) throws IOException {
+        Files.deleteIfExists(batch);
+    }
+
+    /**
+     * Moves {@code batch} out of {@link #pending()}; returns where it went.
+     */
+    Path quarantine(Path batch) throws IOException {
+        String name = batch.getFileName().toString();
+        Path failed = batch.resolveSibling(name.substring(0, name.length() - SUFFIX.length()) + QUARANTINED);
+        return Files.move(batch, failed, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,218 @@
+package com.puetsnao.ingest.infrastructure;
+
+import com.puetsnao.ingest.app.EventsIngested;
+import com.puetsnao.ingest.app.IngestEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Single background thread that drains {@link IngestBuffer} in batches of up to {@code batch-size} and writes
+ * them with {@link CopyEventWriter}. A failed batch is retried with backoff, then spooled to
+ * {@link IngestDeadLetters}; spooled batches are written again when the flusher starts and every minute while it
+ * is idle, so an accepted event is written at least once unless the spool itself fails (counted as dropped). A
+ * spooled batch that cannot be read back or that the database rejects for its data is quarantined, so it does not
+ * hold back the batches spooled after it.
+ * The flusher stops after the web server, so no request can queue events once it is gone, and on shutdown the
+ * queue is flushed (or spooled if interrupted) before the thread exits. Each committed batch publishes
+ * {@link EventsIngested}.
+ */
+@Component
+@ConditionalOnProperty(name = "heatmap.ingest.enabled", havingValue = "true")
+public class IngestFlusher implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(IngestFlusher.class);
+    private static final long RETRY_BACKOFF_MS = 200;
+    private static final long DEAD_LETTER_RETRY_MS = 60_000;
+    // below the web server's start/stop phases: started before requests arrive, stopped after the last one
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    private final IngestBuffer buffer;
+    private final CopyEventWriter writer;
+    private final IngestDeadLetters deadLetters;
+    private final IngestProperties properties;
+    private final ApplicationEventPublisher events;
+
+    private final Timer flushTimer;
+    private final Counter pricesWritten;
+    private final Counter salesWritten;
+    private final Counter invalidRows;
+    private final Counter flushFailures;
+    private final Counter deadLettered;
+    private final Counter dropped;
+    private final Counter quarantined;
+
+    private volatile boolean running;
+    private Thread thread;
+    private long deadLettersRetryAt;
+
+    public IngestFlusher(IngestBuffer buffer, CopyEventWriter writer, IngestDeadLetters deadLetters,
+                         IngestProperties properties, ApplicationEventPublisher events, MeterRegistry registry) {
+        this.buffer = buffer;
+        this.writer = writer;
+        this.deadLetters = deadLetters;
+        this.properties = properties;
+        this.events = events;
+        this.flushTimer = Timer.builder("heatmap.ingest.flush")
+                .description("Time to COPY one batch and move it into price/sales")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.pricesWritten = Counter.builder("heatmap.ingest.rows.written").tag("table", "price").register(registry);
+        this.salesWritten = Counter.builder("heatmap.ingest.rows.written").tag("table", "sales").register(registry);
+        this.invalidRows = Counter.builder("heatmap.ingest.rows.invalid")
+                .description("Rows dropped for unknown station or product ids")
+                .register(registry);
+        this.flushFailures = Counter.builder("heatmap.ingest.flush.failures").register(registry);
+        this.deadLettered = Counter.builder("heatmap.ingest.events.dead-lettered")
+                .description("Events spooled to the dead-letter directory after all flush attempts failed")
+                .register(registry);
+        this.dropped = Counter.builder("heatmap.ingest.events.dropped")
+                .description("Events lost because they could not be written nor spooled")
+                .register(registry);
+        this.quarantined = Counter.builder("heatmap.ingest.spool.quarantined")
+                .description("Spooled batches set aside because they can never be written")
+                .register(registry);
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        thread = new Thread(this::run, "ingest-flusher");
+        thread.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        if (thread == null) return;
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        thread = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private void run() {
+        retryDeadLetters();
+        List<IngestEvent> batch = new ArrayList<>(properties.batchSize());
+        while (running || buffer.size() > 0) {
+            batch.clear();
+            try {
+                if (buffer.drain(batch, properties.batchSize(), properties.flushIntervalMs()) == 0) {
+                    if (System.currentTimeMillis() >= deadLettersRetryAt) retryDeadLetters();
+                    continue;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("Ingest flusher interrupted with {} events queued, spooling them", buffer.size());
+                buffer.drain(batch);
+                if (!batch.isEmpty()) deadLetter(batch);
+                return;
+            }
+            flush(batch);
+        }
+    }
+
+    private void flush(List<IngestEvent> batch) {
+        for (int attempt = 1; attempt <= properties.maxFlushAttempts(); attempt++) {
+            try {
+                write(batch);
+                return;
+            } catch (Exception e) {
+                flushFailures.increment();
+                log.warn("Flush of {} events failed (attempt {}/{})", batch.size(), attempt, properties.maxFlushAttempts(), e);
+                if (attempt == properties.maxFlushAttempts()) break;
+                try {
+                    Thread.sleep(RETRY_BACKOFF_MS * attempt);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        deadLetter(batch);
+    }
+
+    private void write(List<IngestEvent> batch) throws Exception {
+        CopyEventWriter.Written written = flushTimer.recordCallable(() -> writer.write(batch));
+        pricesWritten.increment(written.prices());
+        salesWritten.increment(written.sales());
+        if (written.invalid() > 0) {
+            invalidRows.increment(written.invalid());
+            log.warn("Dropped {} ingested rows with unknown station/product ids", written.invalid());
+        }
+        publish(written);
+    }
+
+    private void deadLetter(List<IngestEvent> batch) {
+        try {
+            deadLetters.write(batch);
+            deadLettered.increment(batch.size());
+            log.error("Spooled batch of {} events after failed flush attempts", batch.size());
+        } catch (IOException e) {
+            dropped.increment(batch.size());
+            log.error("Dropped batch of {} events: flush failed and the dead-letter spool is not writable", batch.size(), e);
+        }
+    }
+
+    // oldest first, one attempt each; stops at the first failure that is not the batch's own, since the database
+    // is most likely still down
+    private void retryDeadLetters() {
+        deadLettersRetryAt = System.currentTimeMillis() + DEAD_LETTER_RETRY_MS;
+        try {
+            for (Path spooled : deadLetters.pending()) {
+                List<IngestEvent> batch;
+                try {
+                    batch = deadLetters.read(spooled);
+                    if (!batch.isEmpty()) write(batch);
+                } catch (IOException | IllegalArgumentException | DataIntegrityViolationException e) {
+                    quarantine(spooled, e);
+                    continue;
+                }
+                deadLetters.delete(spooled);
+                log.info("Wrote spooled batch {} of {} events", spooled.getFileName(), batch.size());
+            }
+        } catch (Exception e) {
+            log.warn("Spooled ingest batches not written yet", e);
+        }
+    }
+
+    private void quarantine(Path spooled, Exception cause) throws IOException {
+        Path failed = deadLetters.quarantine(spooled);
+        quarantined.increment();
+        log.error("Quarantined spooled batch {} as {}: it cannot be written", spooled.getFileName(), failed.getFileName(), cause);
+    }
+
+    // listeners run on this thread; a failing one must not make the committed batch look failed and retried
+    private void publish(CopyEventWriter.Written written) {
+        try {
+            events.publishEvent(new EventsIngested(written.prices(), written.sales()));
+        } catch (RuntimeException e) {
+            log.warn("EventsIngested listener failed", e);
+        }
+    }
+}
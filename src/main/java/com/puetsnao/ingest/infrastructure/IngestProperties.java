@@ -0,0 +1,24 @@
+package com.puetsnao.ingest.infrastructure;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "heatmap.ingest")
+public record IngestProperties(
+        Boolean enabled,
+        Integer queueCapacity,
+        Integer batchSize,
+        Long flushIntervalMs,
+        Long offerTimeoutMs,
+        Integer maxFlushAttempts,
+        String deadLetterDir
+) {
+    public IngestProperties {
+        if (enabled == null) enabled = false;
+        if (queueCapacity == null) queueCapacity = 200_000;
+        if (batchSize == null) batchSize = 20_000;
+        if (flushIntervalMs == null) flushIntervalMs = 250L;
+        if (offerTimeoutMs == null) offerTimeoutMs = 1_000L;
+        if (maxFlushAttempts == null) maxFlushAttempts = 3;
+        if (deadLetterDir == null) deadLetterDir = "ingest-dead-letter";
+    }
+}
@@ -0,0 +1,43 @@
+package com.puetsnao.shared.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.cache.RedisCache;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Evicts every key matching a glob pattern ({@code *} wildcard only) from any of the cache types we run with.
+ */
+public final class CacheEvictions {
+
+    private CacheEvictions() {
+    }
+
+    public static void evictMatching(Cache cache, String pattern) {
+        if (cache instanceof TwoLevelCache twoLevel) {
+            twoLevel.evictMatching(pattern);
+        } else if (cache instanceof RedisCache redis) {
+            String keyPattern = redis.getCacheConfiguration().getKeyPrefixFor(redis.getName()) + pattern;
+            redis.getNativeCache().clean(redis.getName(), keyPattern.getBytes(StandardCharsets.UTF_8));
+        } else if (cache.getNativeCache() instanceof Map<?, ?> map) {
+            Predicate<String> matcher = matcher(pattern);
+            map.keySet().removeIf(k -> matcher.test(String.valueOf(k)));
+        } else {
+            cache.clear();
+        }
+    }
+
+    static Predicate<String> matcher(String pattern) {
+        if (!pattern.contains("*")) return pattern::equals;
+        StringBuilder regex = new StringBuilder();
+        String[] parts = pattern.split("\\*", -1);
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) regex.append(".*");
+            regex.append(Pattern.quote(parts[i]));
+        }
+        return Pattern.compile(regex.toString()).asMatchPredicate();
+    }
+}
@@ -3,5 +3,59 @@ package com.puetsnao.shared.cache;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 @ConfigurationProperties(prefix = "heatmap.cache")
-public record HeatmapCacheProperties(int ttlSeconds) {
-}
\ No newline at end of file
+public record HeatmapCacheProperties(int ttlSeconds, Near near, Stampede stampede, Versions versions,
+                                     StaleWhileRevalidate staleWhileRevalidate, Integer compressThresholdBytes) {
+
+    public HeatmapCacheProperties {
+        if (compressThresholdBytes == null) compressThresholdBytes = 8192;
+        if (near == null) near = new Near(null, null, null);
+        if (stampede == null) stampede = new Stampede(null, null, null, null);
+        if (versions == null) versions = new Versions(null, null);
+        if (staleWhileRevalidate == null) staleWhileRevalidate = new StaleWhileRevalidate(null, null, null);
+    }
+
+    /**
+     * On-heap tier in front of Redis. Entries are weighed by their estimated payload bytes.
+     */
+    public record Near(Boolean enabled, Long maxWeightBytes, String invalidationChannel) {
+        public Near {
+            if (enabled == null) enabled = true;
+            if (maxWeightBytes == null) maxWeightBytes = 64L * 1024 * 1024;
+            if (invalidationChannel == null) invalidationChannel = "heatmap:cache:invalidate";
+        }
+    }
+
+    /**
+     * Miss handling for hot keys: optional cross-pod Redis lock and probabilistic early refresh (XFetch beta, 0 disables).
+     */
+    public record Stampede(Boolean distributedLock, Long lockLeaseMs, Long lockWaitMs, Double earlyRefreshBeta) {
+        public Stampede {
+            if (distributedLock == null) distributedLock = false;
+            if (lockLeaseMs == null) lockLeaseMs = 10_000L;
+            if (lockWaitMs == null) lockWaitMs = 2_000L;
+            if (earlyRefreshBeta == null) earlyRefreshBeta = 1.0;
+        }
+    }
+
+    /**
+     * Shared data versions behind the ETags: Redis hash holding them and how long an instance reuses a read.
+     */
+    public record Versions(String hashKey, Long mirrorTtlMs) {
+        public Versions {
+            if (hashKey == null) hashKey = "heatmap:versions";
+            if (mirrorTtlMs == null) mirrorTtlMs = 1_000L;
+        }
+    }
+
+    /**
+     * Near entries are served up to {@code maxStaleSeconds} past the TTL (0 disables) while one refresh per key
+     * runs on {@code refreshThreads} threads; refreshes beyond {@code refreshQueueCapacity} waiting are dropped.
+     */
+    public record StaleWhileRevalidate(Long maxStaleSeconds, Integer refreshThreads, Integer refreshQueueCapacity) {
+        public StaleWhileRevalidate {
+            if (maxStaleSeconds == null) maxStaleSeconds = 600L;
+            if (refreshThreads == null) refreshThreads = 2;
+            if (refreshQueueCapacity == null) refreshQueueCapacity = 256;
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.puetsnao.shared.cache;
+
+import com.puetsnao.heatmap.domain.H3CellPointList;
+import com.puetsnao.heatmap.domain.H3CellValues;
+import com.puetsnao.heatmap.domain.HeatPoint;
+import com.puetsnao.heatmap.infrastructure.summary.H3CellSums;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Columnar binary encoding of the cached heatmap payloads: state point lists, H3 cell point lists and H3 cell
+ * sums. Cells are sorted, so they are written as varint deltas (a few bytes each instead of a 15-char hex string
+ * plus JSON keys and type hints); values are raw doubles, so a cache hit returns exactly what the query did.
+ * Payloads of at least {@code compressThresholdBytes} are deflated. Any other value is written as typed JSON.
+ * <p>
+ * Layout: magic byte, type, flags (bit 0: deflated, followed by the raw length as a varint), body. Bytes without
+ * the magic, such as entries written by an earlier serializer, read as a miss so they are simply recomputed.
+ */
+public class HeatmapPayloadSerializer implements RedisSerializer<Object> {
+
+    private static final byte MAGIC = (byte) 0xB1;
+    private static final byte HEAT_POINTS = 1;
+    private static final byte H3_CELL_POINTS = 2;
+    private static final byte H3_CELL_SUMS = 3;
+    private static final byte JSON = 0x7F;
+    private static final byte DEFLATED = 1;
+    private static final int HEADER_BYTES = 3;
+
+    private final GenericJackson2JsonRedisSerializer json = new GenericJackson2JsonRedisSerializer();
+    private final int compressThresholdBytes;
+
+    /**
+     * @param compressThresholdBytes body size from which payloads are deflated; 0 never compresses
+     */
+    public HeatmapPayloadSerializer(int compressThresholdBytes) {
+        this.compressThresholdBytes = compressThresholdBytes;
+    }
+
+    @Override
+    public byte[] serialize(Object value) {
+        if (value == null) return new byte[0];
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+            DataOutputStream out = new DataOutputStream(bytes);
+            byte type = write(value, out);
+            out.flush();
+            return frame(type, bytes.toByteArray());
+        } catch (IOException e) {
+            throw new SerializationException("Cannot serialize " + value.getClass().getName(), e);
+        }
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) {
+        if (bytes == null || bytes.length < HEADER_BYTES || bytes[0] != MAGIC) return null;
+        try {
+            ByteBuffer in = ByteBuffer.wrap(bytes, HEADER_BYTES, bytes.length - HEADER_BYTES);
+            if ((bytes[2] & DEFLATED) != 0) {
+                in = ByteBuffer.wrap(inflate(in, readVarint(in)));
+            }
+            return switch (bytes[1]) {
+                case HEAT_POINTS -> readHeatPoints(in);
+                case H3_CELL_POINTS -> readCellPoints(in);
+                case H3_CELL_SUMS -> readCellSums(in);
+                case JSON -> json.deserialize(Arrays.copyOfRange(in.array(), in.position(), in.limit()));
+                default -> null;
+            };
+        } catch (BufferUnderflowException | DataFormatException e) {
+            throw new SerializationException("Corrupt heatmap cache payload", e);
+        }
+    }
+
+    private byte write(Object value, DataOutputStream out) throws IOException {
+        if (value instanceof H3CellPointList points) {
+            writeVarint(out, points.resolution());
+            H3CellValues columns = points.values();
+            int n = columns.size();
+            writeVarint(out, n);
+            long previous = 0;
+            for (int i = 0; i < n; i++) {
+                writeVarint(out, columns.cell(i) - previous);
+                previous = columns.cell(i);
+            }
+            for (int i = 0; i < n; i++) {
+                out.writeDouble(columns.value(i));
+            }
+            return H3_CELL_POINTS;
+        }
+        if (value instanceof H3CellSums sums) {
+            int n = sums.size();
+            writeVarint(out, n);
+            long previous = 0;
+            for (int i = 0; i < n; i++) {
+                writeVarint(out, sums.cell(i) - previous);
+                previous = sums.cell(i);
+            }
+            for (int i = 0; i < n; i++) {
+                out.writeDouble(sums.sum(i));
+            }
+            for (int i = 0; i < n; i++) {
+                writeVarint(out, sums.count(i));
+            }
+            return H3_CELL_SUMS;
+        }
+        if (value instanceof List<?> list && list.stream().allMatch(HeatPoint.class::isInstance)) {
+            writeVarint(out, list.size());
+            for (Object item : list) {
+                HeatPoint point = (HeatPoint) item;
+                byte[] state = point.state().getBytes(StandardCharsets.UTF_8);
+                writeVarint(out, state.length);
+                out.write(state);
+                out.writeDouble(point.lat());
+                out.writeDouble(point.lon());
+                out.writeDouble(point.value());
+            }
+            return HEAT_POINTS;
+        }
+        out.write(json.serialize(value));
+        return JSON;
+    }
+
+    private static List<HeatPoint> readHeatPoints(ByteBuffer in) {
+        int n = (int) readVarint(in);
+        List<HeatPoint> points = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            byte[] state = new byte[(int) readVarint(in)];
+            in.get(state);
+            points.add(new HeatPoint(new String(state, StandardCharsets.UTF_8), in.getDouble(), in.getDouble(), in.getDouble()));
+        }
+        return List.copyOf(points);
+    }
+
+    private static H3CellPointList readCellPoints(ByteBuffer in) {
+        int resolution = (int) readVarint(in);
+        long[] cells = readCells(in);
+        double[] values = readDoubles(in, cells.length);
+        return new H3CellPointList(resolution, new H3CellValues(cells, values));
+    }
+
+    private static H3CellSums readCellSums(ByteBuffer in) {
+        long[] cells = readCells(in);
+        double[] sums = readDoubles(in, cells.length);
+        long[] counts = new long[cells.length];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = readVarint(in);
+        }
+        return H3CellSums.ofSorted(cells, sums, counts);
+    }
+
+    private static long[] readCells(ByteBuffer in) {
+        long[] cells = new long[(int) readVarint(in)];
+        long previous = 0;
+        for (int i = 0; i < cells.length; i++) {
+            previous += readVarint(in);
+            cells[i] = previous;
+        }
+        return cells;
+    }
+
+    private static double[] readDoubles(ByteBuffer in, int n) {
+        double[] values = new double[n];
+        in.asDoubleBuffer().get(values);
+        in.position(in.position() + n * Double.BYTES);
+        return values;
+    }
+
+    private byte[] frame(byte type, byte[] body) throws IOException {
+        ByteArrayOutputStream framed = new ByteArrayOutputStream(body.length + HEADER_BYTES + 5);
+        framed.write(MAGIC);
+        framed.write(type);
+        if (compressThresholdBytes > 0 && body.length >= compressThresholdBytes) {
+            byte[] deflated = deflate(body);
+            // incompressible bodies are stored as they are
+            if (deflated.length < body.length) {
+                framed.write(DEFLATED);
+                DataOutputStream out = new DataOutputStream(framed);
+                writeVarint(out, body.length);
+                out.write(deflated);
+                return framed.toByteArray();
+            }
+        }
+        framed.write(0);
+        framed.write(body);
+        return framed.toByteArray();
+    }
+
+    // fastest level: cache hits pay for inflating, and most of the win is the columnar layout itself
+    private static byte[] deflate(byte[] body) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(body);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 2);
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(chunk, 0, deflater.deflate(chunk));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(ByteBuffer in, long rawLength) throws DataFormatException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(in);
+            byte[] raw = new byte[(int) rawLength];
+            int n = 0;
+            while (n < raw.length && !inflater.finished()) {
+                int read = inflater.inflate(raw, n, raw.length - n);
+                if (read == 0 && inflater.needsInput()) break;
+                n += read;
+            }
+            if (n != raw.length) throw new DataFormatException("Expected " + raw.length + " bytes, inflated " + n);
+            return raw;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static void writeVarint(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarint(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+        throw new SerializationException("Malformed varint in heatmap cache payload");
+    }
+}
@@ -0,0 +1,16 @@
+package com.puetsnao.shared.cache;
+
+/**
+ * Cross-instance mutual exclusion around recomputing a cache entry.
+ */
+interface LoadLock {
+
+    /** Lock that always succeeds; coalescing then stays within the JVM. */
+    LoadLock NONE = key -> () -> {
+    };
+
+    /**
+     * Returns a release handle, or {@code null} when another instance is already computing the key.
+     */
+    Runnable tryAcquire(String key);
+}
@@ -0,0 +1,28 @@
+package com.puetsnao.shared.cache;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Single-instance {@link VersionStore}. Keys start at the boot time, so validators issued by a previous run
+ * never match again.
+ */
+public class LocalVersionStore implements VersionStore {
+
+    private final long initial = System.currentTimeMillis();
+    private final Map<String, Long> versions = new ConcurrentHashMap<>();
+
+    @Override
+    public long version(String key) {
+        return versions.getOrDefault(key, initial);
+    }
+
+    @Override
+    public void bump(Collection<String> keys) {
+        long now = System.currentTimeMillis();
+        for (String key : keys) {
+            versions.compute(key, (k, v) -> VersionStore.next(v == null ? initial : v, now));
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.puetsnao.shared.cache;
+
+import com.github.benmanes.caffeine.cache.Weigher;
+import com.puetsnao.heatmap.domain.H3CellPoint;
+import com.puetsnao.heatmap.domain.H3CellPointList;
+import com.puetsnao.heatmap.domain.H3CellValues;
+import com.puetsnao.heatmap.domain.HeatPoint;
+import com.puetsnao.heatmap.infrastructure.summary.H3CellSums;
+
+import java.util.Collection;
+
+/**
+ * Weighs near-cache entries by the approximate size of their serialized payload, so the
+ * near-cache bound reads as "bytes of heatmap responses held on heap".
+ */
+class PayloadWeigher implements Weigher<Object, Object> {
+
+    private static final int ENVELOPE_BYTES = 16;
+    private static final int HEAT_POINT_BYTES = 72;
+    private static final int H3_CELL_POINT_BYTES = 64;
+    private static final int CELL_PAIR_BYTES = 28;
+    private static final int CELL_SUM_BYTES = 24;
+    private static final int UNKNOWN_ELEMENT_BYTES = 128;
+
+    @Override
+    public int weigh(Object key, Object value) {
+        if (value instanceof TwoLevelCache.NearEntry entry) value = entry.value();
+        long bytes = ENVELOPE_BYTES + String.valueOf(key).length();
+        if (value instanceof H3CellValues cells) {
+            bytes += (long) cells.size() * CELL_PAIR_BYTES;
+        } else if (value instanceof H3CellPointList points) {
+            bytes += (long) points.size() * CELL_PAIR_BYTES;
+        } else if (value instanceof H3CellSums sums) {
+            bytes += (long) sums.size() * CELL_SUM_BYTES;
+        } else if (value instanceof Collection<?> items && !items.isEmpty()) {
+            bytes += (long) items.size() * elementBytes(items.iterator().next());
+        } else {
+            bytes += UNKNOWN_ELEMENT_BYTES;
+        }
+        return (int) Math.min(bytes, Integer.MAX_VALUE);
+    }
+
+    private static int elementBytes(Object element) {
+        if (element instanceof HeatPoint) return HEAT_POINT_BYTES;
+        if (element instanceof H3CellPoint) return H3_CELL_POINT_BYTES;
+        return UNKNOWN_ELEMENT_BYTES;
+    }
+}
@@ -1,22 +1,24 @@
 package com.puetsnao.shared.cache;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.type.TypeFactory;
-import com.puetsnao.heatmap.domain.HeatPoint;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.cache.BatchStrategies;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
-import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
-import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
-import java.util.List;
+import java.util.Set;
 
 @Configuration
 @ConditionalOnProperty(name = "spring.cache.type", havingValue = "redis")
@@ -27,24 +29,49 @@ public class RedisCacheConfig {
     public RedisCacheManager redisCacheManager(RedisConnectionFactory connectionFactory,
                                                HeatmapCacheProperties props) {
         var keySerializer = new StringRedisSerializer();
-        var defaultValueSerializer = new GenericJackson2JsonRedisSerializer();
+        // "heatmap" holds state point lists and H3 cell point lists, "h3sums" H3 cell sums; all encoded columnar
+        var valueSerializer = new HeatmapPayloadSerializer(props.compressThresholdBytes());
 
         RedisCacheConfiguration defaultConfig = RedisCacheConfiguration.defaultCacheConfig()
                 .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(keySerializer))
-                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(defaultValueSerializer))
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(valueSerializer))
                 .disableCachingNullValues()
                 .entryTtl(Duration.ofSeconds(props.ttlSeconds()));
 
-        ObjectMapper mapper = new ObjectMapper();
-        var heatPointListType = TypeFactory.defaultInstance().constructCollectionType(List.class, HeatPoint.class);
-        var heatmapValueSerializer = new Jackson2JsonRedisSerializer<>(mapper, heatPointListType);
-        RedisCacheConfiguration heatmapConfig = defaultConfig.serializeValuesWith(
-                RedisSerializationContext.SerializationPair.fromSerializer(heatmapValueSerializer)
-        );
-
-        return RedisCacheManager.builder(connectionFactory)
+        // SCAN instead of KEYS when bucket invalidation cleans keys by pattern
+        var cacheWriter = RedisCacheWriter.nonLockingRedisCacheWriter(connectionFactory, BatchStrategies.scan(1000));
+        return RedisCacheManager.builder(cacheWriter)
                 .cacheDefaults(defaultConfig)
-                .withCacheConfiguration("heatmap", heatmapConfig)
+                .initialCacheNames(Set.of("heatmap", "h3sums"))
                 .build();
     }
+
+    @Bean
+    public VersionStore redisVersionStore(StringRedisTemplate redisTemplate, HeatmapCacheProperties props) {
+        return new RedisVersionStore(redisTemplate, props.versions().hashKey(),
+                Duration.ofMillis(props.versions().mirrorTtlMs()));
+    }
+
+    @Bean
+    @Primary
+    @ConditionalOnProperty(name = "heatmap.cache.near.enabled", havingValue = "true", matchIfMissing = true)
+    public TwoLevelCacheManager cacheManager(RedisCacheManager redisCacheManager,
+                                             HeatmapCacheProperties props,
+                                             StringRedisTemplate redisTemplate) {
+        return new TwoLevelCacheManager(redisCacheManager, props, redisTemplate);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "heatmap.cache.near.enabled", havingValue = "true", matchIfMissing = true)
+    public RedisMessageListenerContainer nearCacheInvalidationListener(RedisConnectionFactory connectionFactory,
+                                                                       TwoLevelCacheManager cacheManager,
+                                                                       HeatmapCacheProperties props) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(
+                (message, pattern) -> cacheManager.onInvalidation(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(props.near().invalidationChannel())
+        );
+        return container;
+    }
 }
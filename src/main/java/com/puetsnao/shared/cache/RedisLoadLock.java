@@ -0,0 +1,52 @@
+package com.puetsnao.shared.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * {@code SET NX PX} lock per cache key. The lease bounds how long a crashed holder can block others; release
+ * only deletes the lock if it still carries our token.
+ */
+class RedisLoadLock implements LoadLock {
+
+    private static final Logger log = LoggerFactory.getLogger(RedisLoadLock.class);
+    private static final DefaultRedisScript<Long> RELEASE = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class
+    );
+
+    private final StringRedisTemplate redisTemplate;
+    private final Duration lease;
+
+    RedisLoadLock(StringRedisTemplate redisTemplate, Duration lease) {
+        this.redisTemplate = redisTemplate;
+        this.lease = lease;
+    }
+
+    @Override
+    public Runnable tryAcquire(String key) {
+        String lockKey = "lock:" + key;
+        String token = UUID.randomUUID().toString();
+        try {
+            Boolean acquired = redisTemplate.opsForValue().setIfAbsent(lockKey, token, lease);
+            if (!Boolean.TRUE.equals(acquired)) return null;
+        } catch (RuntimeException e) {
+            // fail open: without the lock we only lose cross-pod coalescing
+            log.warn("Could not acquire load lock for {}", key, e);
+            return NONE.tryAcquire(key);
+        }
+        return () -> {
+            try {
+                redisTemplate.execute(RELEASE, List.of(lockKey), token);
+            } catch (RuntimeException e) {
+                log.warn("Could not release load lock for {}", key, e);
+            }
+        };
+    }
+}
@@ -0,0 +1,74 @@
+package com.puetsnao.shared.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * {@link VersionStore} shared by all instances through one Redis hash. Reads go through a short-lived local
+ * mirror, so a conditional request costs at most one Redis round trip per key and mirror TTL; a bump becomes
+ * visible to other instances within that TTL.
+ */
+class RedisVersionStore implements VersionStore {
+
+    private static final Logger log = LoggerFactory.getLogger(RedisVersionStore.class);
+    // a key seen for the first time (or after Redis lost it) starts at the current time
+    private static final DefaultRedisScript<Long> READ = new DefaultRedisScript<>(
+            "redis.call('hsetnx', KEYS[1], ARGV[1], ARGV[2]) return tonumber(redis.call('hget', KEYS[1], ARGV[1]))",
+            Long.class
+    );
+    private static final DefaultRedisScript<Long> BUMP = new DefaultRedisScript<>(
+            "local n = math.max(tonumber(redis.call('hget', KEYS[1], ARGV[1]) or '0') + 1, tonumber(ARGV[2])) "
+                    + "redis.call('hset', KEYS[1], ARGV[1], string.format('%.0f', n)) return n",
+            Long.class
+    );
+
+    private final StringRedisTemplate redisTemplate;
+    private final List<String> hashKey;
+    private final Cache<String, Long> mirror;
+
+    RedisVersionStore(StringRedisTemplate redisTemplate, String hashKey, Duration mirrorTtl) {
+        this.redisTemplate = redisTemplate;
+        this.hashKey = List.of(hashKey);
+        this.mirror = Caffeine.newBuilder().expireAfterWrite(mirrorTtl).maximumSize(100_000).build();
+    }
+
+    @Override
+    public long version(String key) {
+        Long cached = mirror.getIfPresent(key);
+        if (cached != null) return cached;
+        try {
+            Long version = redisTemplate.execute(READ, hashKey, key, Long.toString(System.currentTimeMillis()));
+            if (version != null) {
+                mirror.put(key, version);
+                return version;
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not read data version of {}", key, e);
+        }
+        // unknown version: hand out one that no later request will match
+        return System.currentTimeMillis();
+    }
+
+    @Override
+    public void bump(Collection<String> keys) {
+        String now = Long.toString(System.currentTimeMillis());
+        for (String key : keys) {
+            try {
+                Long version = redisTemplate.execute(BUMP, hashKey, key, now);
+                if (version != null) mirror.put(key, version);
+            } catch (RuntimeException e) {
+                // validators for the key stay on the old version until the next bump
+                log.error("Could not bump data version of {}", key, e);
+                mirror.invalidate(key);
+            }
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.puetsnao.shared.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.puetsnao.shared.concurrency.OverloadedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Size-bounded on-heap near cache in front of a remote (Redis) cache. Hits on the near tier skip the network
+ * round trip and deserialization; evictions are applied locally and broadcast so other pods drop their copy.
+ * <p>
+ * Loads through {@link #get(Object, Callable)} are coalesced per key within the JVM and, with a distributed
+ * {@link LoadLock}, across pods. Entries computed here are refreshed probabilistically before they expire
+ * (XFetch: the closer to expiry and the slower the original computation, the likelier a refresh).
+ * <p>
+ * Near entries outlive the TTL by {@code maxStale}: a loader call that finds one past its TTL returns it at once
+ * and refreshes it in the background, so an expiry costs no request the full load. The remote tier keeps the
+ * plain TTL, so a stale value is never handed to another pod as fresh.
+ */
+public class TwoLevelCache implements org.springframework.cache.Cache {
+
+    private static final Logger log = LoggerFactory.getLogger(TwoLevelCache.class);
+    private static final long LOCK_POLL_NANOS = Duration.ofMillis(25).toNanos();
+
+    private final org.springframework.cache.Cache remote;
+    private final Cache<Object, NearEntry> near;
+    private final Consumer<String> invalidationPublisher;
+    private final LoadLock loadLock;
+    private final Settings settings;
+    private final Executor refreshExecutor;
+    private final SingleFlight singleFlight = new SingleFlight();
+    private final Set<Object> refreshing = ConcurrentHashMap.newKeySet();
+
+    TwoLevelCache(org.springframework.cache.Cache remote,
+                  Cache<Object, NearEntry> near,
+                  Consumer<String> invalidationPublisher,
+                  LoadLock loadLock,
+                  Settings settings,
+                  Executor refreshExecutor) {
+        this.remote = remote;
+        this.near = near;
+        this.invalidationPublisher = invalidationPublisher;
+        this.loadLock = loadLock;
+        this.settings = settings;
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    /**
+     * @param ttl              lifetime of remote entries, and of near entries before they turn stale
+     * @param earlyRefreshBeta XFetch aggressiveness; 0 disables early refresh
+     * @param lockWait         how long to wait for another pod's load before computing anyway
+     * @param maxStale         how long past {@code ttl} a near entry is still served while it is refreshed
+     */
+    public record Settings(Duration ttl, double earlyRefreshBeta, Duration lockWait, Duration maxStale) {
+    }
+
+    /**
+     * Near-tier value plus what XFetch needs: how long it took to compute and when it expires.
+     * Entries fetched from the remote tier carry no compute time and are never refreshed early.
+     */
+    record NearEntry(Object value, long computeNanos, long expiresAtNanos) {
+    }
+
+    @Override
+    public String getName() {
+        return remote.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return remote.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        NearEntry local = near.getIfPresent(key);
+        // without a loader to refresh it, a stale entry is as good as none
+        if (local != null && !isStale(local)) return new SimpleValueWrapper(local.value());
+        ValueWrapper wrapper = remote.get(key);
+        if (wrapper != null && wrapper.get() != null) {
+            near.put(key, fetched(wrapper.get()));
+        }
+        return wrapper;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        NearEntry local = near.getIfPresent(key);
+        if (local != null) {
+            if (isStale(local)) {
+                refreshAsync(key, valueLoader, true);
+            } else if (shouldRefreshEarly(local)) {
+                refreshAsync(key, valueLoader, false);
+            }
+            return (T) local.value();
+        }
+        try {
+            return (T) singleFlight.execute(key, () -> loadThrough(key, valueLoader));
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        remote.put(key, value);
+        if (value != null) {
+            near.put(key, fetched(value));
+        }
+    }
+
+    @Override
+    public void evict(Object key) {
+        remote.evict(key);
+        near.invalidate(key);
+        invalidationPublisher.accept(String.valueOf(key));
+    }
+
+    @Override
+    public void clear() {
+        remote.clear();
+        near.invalidateAll();
+        invalidationPublisher.accept("*");
+    }
+
+    /**
+     * Evicts matching keys from both tiers and tells the other pods to drop them from their near tier.
+     */
+    public void evictMatching(String pattern) {
+        CacheEvictions.evictMatching(remote, pattern);
+        invalidateLocal(pattern);
+        invalidationPublisher.accept(pattern);
+    }
+
+    /**
+     * Applies an invalidation received from another pod; the remote tier was already evicted by the sender.
+     */
+    public void invalidateLocal(String pattern) {
+        Predicate<String> matcher = CacheEvictions.matcher(pattern);
+        near.asMap().keySet().removeIf(k -> matcher.test(String.valueOf(k)));
+    }
+
+    private Object loadThrough(Object key, Callable<?> valueLoader) throws Exception {
+        Object cached = remoteValue(key);
+        if (cached != null) return cached;
+
+        Runnable release = loadLock.tryAcquire(String.valueOf(key));
+        if (release == null) {
+            Object loadedElsewhere = awaitRemote(key);
+            if (loadedElsewhere != null) return loadedElsewhere;
+            // the other pod is slow or died holding the lease; compute rather than fail the request
+        }
+        try {
+            return compute(key, valueLoader);
+        } finally {
+            if (release != null) release.run();
+        }
+    }
+
+    private Object compute(Object key, Callable<?> valueLoader) throws Exception {
+        long start = System.nanoTime();
+        Object value = valueLoader.call();
+        long end = System.nanoTime();
+        if (value != null) {
+            remote.put(key, value);
+            near.put(key, new NearEntry(value, end - start, end + settings.ttl().toNanos()));
+        }
+        return value;
+    }
+
+    private Object remoteValue(Object key) {
+        ValueWrapper wrapper = remote.get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null) near.put(key, fetched(value));
+        return value;
+    }
+
+    private Object awaitRemote(Object key) {
+        long deadline = System.nanoTime() + settings.lockWait().toNanos();
+        while (System.nanoTime() < deadline) {
+            LockSupport.parkNanos(LOCK_POLL_NANOS);
+            Object value = remoteValue(key);
+            if (value != null) return value;
+        }
+        return null;
+    }
+
+    private boolean shouldRefreshEarly(NearEntry entry) {
+        if (settings.earlyRefreshBeta() <= 0 || entry.computeNanos() == 0) return false;
+        double gap = -entry.computeNanos() * settings.earlyRefreshBeta() * Math.log(ThreadLocalRandom.current().nextDouble());
+        return System.nanoTime() + (long) gap >= entry.expiresAtNanos();
+    }
+
+    private boolean isStale(NearEntry entry) {
+        return System.nanoTime() - entry.expiresAtNanos() >= 0;
+    }
+
+    /**
+     * @param remoteFirst take the remote value if there is one: right for a stale entry, whose remote copy has
+     *                    expired unless another pod reloaded it, but not for an early refresh, which would just
+     *                    read back the copy it is meant to replace
+     */
+    private void refreshAsync(Object key, Callable<?> valueLoader, boolean remoteFirst) {
+        if (!refreshing.add(key)) return;
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    if (remoteFirst && remoteValue(key) != null) return;
+                    Runnable release = loadLock.tryAcquire(String.valueOf(key));
+                    if (release == null) return;
+                    try {
+                        compute(key, valueLoader);
+                    } finally {
+                        release.run();
+                    }
+                } catch (OverloadedException e) {
+                    log.debug("Refresh of {} shed by the concurrency limit", key);
+                } catch (Exception e) {
+                    // the current value keeps being served; the next read past its TTL tries again
+                    log.warn("Background refresh failed for {}", key, e);
+                } finally {
+                    refreshing.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(key);
+            log.debug("Refresh queue full, {} stays as is", key);
+        } catch (RuntimeException e) {
+            refreshing.remove(key);
+            log.warn("Could not schedule refresh for {}", key, e);
+        }
+    }
+
+    private NearEntry fetched(Object value) {
+        return new NearEntry(value, 0L, System.nanoTime() + settings.ttl().toNanos());
+    }
+}
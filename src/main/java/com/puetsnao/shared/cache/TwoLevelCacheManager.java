@@ -0,0 +1,93 @@
+package com.puetsnao.shared.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Wraps every cache of the remote manager in a {@link TwoLevelCache}. Invalidation messages are published as
+ * {@code <origin>|<cache>|<key pattern>} so each pod can skip the ones it sent itself. Background refreshes of
+ * all caches share one small bounded pool, so a wave of expiries cannot take threads from request handling.
+ */
+public class TwoLevelCacheManager implements CacheManager, DisposableBean {
+
+    private final CacheManager remote;
+    private final HeatmapCacheProperties properties;
+    private final StringRedisTemplate redisTemplate;
+    private final String origin = UUID.randomUUID().toString();
+    private final Map<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+    private final LoadLock loadLock;
+    private final ThreadPoolExecutor refreshExecutor;
+
+    public TwoLevelCacheManager(CacheManager remote, HeatmapCacheProperties properties, StringRedisTemplate redisTemplate) {
+        this.remote = remote;
+        this.properties = properties;
+        this.redisTemplate = redisTemplate;
+        this.loadLock = properties.stampede().distributedLock()
+                ? new RedisLoadLock(redisTemplate, Duration.ofMillis(properties.stampede().lockLeaseMs()))
+                : LoadLock.NONE;
+        HeatmapCacheProperties.StaleWhileRevalidate swr = properties.staleWhileRevalidate();
+        AtomicInteger threadIds = new AtomicInteger();
+        this.refreshExecutor = new ThreadPoolExecutor(swr.refreshThreads(), swr.refreshThreads(), 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(swr.refreshQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "cache-refresh-" + threadIds.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        Cache existing = caches.get(name);
+        if (existing != null) return existing;
+        Cache remoteCache = remote.getCache(name);
+        if (remoteCache == null) return null;
+        Duration ttl = Duration.ofSeconds(properties.ttlSeconds());
+        Duration maxStale = Duration.ofSeconds(properties.staleWhileRevalidate().maxStaleSeconds());
+        HeatmapCacheProperties.Stampede stampede = properties.stampede();
+        return caches.computeIfAbsent(name, n -> new TwoLevelCache(
+                remoteCache,
+                Caffeine.newBuilder()
+                        .maximumWeight(properties.near().maxWeightBytes())
+                        .weigher(new PayloadWeigher())
+                        .expireAfterWrite(ttl.plus(maxStale))
+                        .build(),
+                pattern -> redisTemplate.convertAndSend(properties.near().invalidationChannel(), origin + "|" + n + "|" + pattern),
+                loadLock,
+                new TwoLevelCache.Settings(ttl, stampede.earlyRefreshBeta(), Duration.ofMillis(stampede.lockWaitMs()), maxStale),
+                refreshExecutor
+        ));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return remote.getCacheNames();
+    }
+
+    @Override
+    public void destroy() {
+        refreshExecutor.shutdownNow();
+    }
+
+    void onInvalidation(String message) {
+        String[] parts = message.split("\\|", 3);
+        if (parts.length != 3 || origin.equals(parts[0])) return;
+        TwoLevelCache cache = caches.get(parts[1]);
+        if (cache != null) {
+            cache.invalidateLocal(parts[2]);
+        }
+    }
+}
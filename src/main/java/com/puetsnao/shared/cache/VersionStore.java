@@ -0,0 +1,22 @@
+package com.puetsnao.shared.cache;
+
+import java.util.Collection;
+
+/**
+ * Monotonic versions of named data sets, for validators that change exactly when the data does.
+ * Versions are wall-clock based ({@code max(previous + 1, now)}), so a key never goes back to a value handed
+ * out before, even after a restart or a lost store.
+ */
+public interface VersionStore {
+
+    long version(String key);
+
+    /**
+     * Advances the keys; call once the new data is visible to readers (after commit and cache eviction).
+     */
+    void bump(Collection<String> keys);
+
+    static long next(long previous, long now) {
+        return Math.max(previous + 1, now);
+    }
+}
@@ -0,0 +1,16 @@
+package com.puetsnao.shared.cache;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class VersionStoreConfig {
+
+    // with Redis caching the shared store is declared in RedisCacheConfig
+    @Bean
+    @ConditionalOnExpression("'${spring.cache.type:}' != 'redis'")
+    public VersionStore localVersionStore() {
+        return new LocalVersionStore();
+    }
+}
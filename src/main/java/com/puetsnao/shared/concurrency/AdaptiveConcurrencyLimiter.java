@@ -0,0 +1,120 @@
+package com.puetsnao.shared.concurrency;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Caps the calls in flight at a limit that follows observed latency (gradient style): the no-queueing baseline is
+ * the fastest call of a sliding window, and each completion moves the limit by
+ * {@code gradient = clamp(tolerance * baseline / latency, 0.5, 1)} plus {@code sqrt(limit)} of headroom, so the
+ * limit grows while latency stays near the baseline and shrinks once calls start queueing (for pool connections,
+ * locks, IO) behind each other. Calls over the limit fail fast with {@link OverloadedException} instead of
+ * joining that queue.
+ * <p>
+ * Calls that ran with the limit saturated can only lower the baseline: their latency includes the queueing the
+ * limit is meant to detect, and an average over them would climb with the overload until the limit grew back
+ * into it. The window therefore fills from calls that ran with few others in flight, so a latency level that
+ * persists under light load still becomes the new baseline once it has filled the window.
+ * <p>
+ * Admission is one CAS on the in-flight count; only the limit update at completion is synchronized.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    // the baseline window: the fastest call of each bucket, over the last BASELINE_BUCKETS buckets
+    private static final int BASELINE_BUCKETS = 10;
+    private static final int BUCKET_SAMPLES = 60;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final long retryAfterSeconds;
+    private final LongSupplier nanoTime;
+    private final AtomicInteger inflight = new AtomicInteger();
+    private volatile double limit;
+    private final double[] bucketMinNanos = new double[BASELINE_BUCKETS];
+    private int bucket;
+    private int bucketSamples;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance, double smoothing,
+                                      long retryAfterSeconds, LongSupplier nanoTime) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.nanoTime = nanoTime;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        Arrays.fill(bucketMinNanos, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Runs {@code call} if a slot is free and feeds its duration back into the limit; failed calls count too, a
+     * timeout is as much a sign of queueing as a slow success.
+     *
+     * @throws OverloadedException when the limit is reached
+     */
+    public <T> T call(Supplier<T> call) {
+        int admittedAt = acquire();
+        long start = nanoTime.getAsLong();
+        try {
+            return call.get();
+        } finally {
+            long elapsed = nanoTime.getAsLong() - start;
+            inflight.decrementAndGet();
+            onSample(elapsed, admittedAt);
+        }
+    }
+
+    public int limit() {
+        return (int) limit;
+    }
+
+    public int inflight() {
+        return inflight.get();
+    }
+
+    private int acquire() {
+        while (true) {
+            int current = inflight.get();
+            if (current >= (int) limit) throw new OverloadedException(retryAfterSeconds);
+            if (inflight.compareAndSet(current, current + 1)) return current + 1;
+        }
+    }
+
+    synchronized void onSample(long elapsedNanos, int inflightAtStart) {
+        double rtt = Math.max(elapsedNanos, 1L);
+        double current = limit;
+        // a call that ran with few others in flight did not queue behind them
+        boolean unsaturated = inflightAtStart < current / 2;
+        if (unsaturated || rtt < baselineNanos()) addToBaseline(rtt);
+
+        // ... and says nothing about what the limit could be
+        if (unsaturated) return;
+
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * baselineNanos() / rtt));
+        double target = current * gradient + Math.sqrt(current);
+        double next = current * (1 - smoothing) + target * smoothing;
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+
+    private void addToBaseline(double rtt) {
+        if (bucketSamples == BUCKET_SAMPLES) {
+            bucket = (bucket + 1) % BASELINE_BUCKETS;
+            bucketMinNanos[bucket] = Double.POSITIVE_INFINITY;
+            bucketSamples = 0;
+        }
+        bucketMinNanos[bucket] = Math.min(bucketMinNanos[bucket], rtt);
+        bucketSamples++;
+    }
+
+    private double baselineNanos() {
+        double min = Double.POSITIVE_INFINITY;
+        for (double bucketMin : bucketMinNanos) {
+            min = Math.min(min, bucketMin);
+        }
+        return min;
+    }
+}
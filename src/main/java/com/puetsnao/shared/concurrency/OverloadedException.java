@@ -0,0 +1,19 @@
+package com.puetsnao.shared.concurrency;
+
+/**
+ * Thrown when a call is shed by an {@link AdaptiveConcurrencyLimiter}; mapped to {@code 503} with
+ * {@code Retry-After}.
+ */
+public class OverloadedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public OverloadedException(long retryAfterSeconds) {
+        super("Concurrency limit reached", null, false, false);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long retryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,32 @@
+package com.puetsnao.shared.http;
+
+import com.puetsnao.shared.concurrency.OverloadedException;
+import org.springframework.cache.Cache;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+@RestControllerAdvice
+public class OverloadedExceptionHandler {
+
+    @ExceptionHandler(OverloadedException.class)
+    public ResponseEntity<Void> overloaded(OverloadedException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.retryAfterSeconds()))
+                .build();
+    }
+
+    /**
+     * A shed read inside a cache loader surfaces as the loader's failure when the cache is called directly rather
+     * than through {@code @Cacheable}, which unwraps it; anything else is left to the default handling.
+     */
+    @ExceptionHandler(Cache.ValueRetrievalException.class)
+    public ResponseEntity<Void> loaderFailed(Cache.ValueRetrievalException e) {
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof OverloadedException overloaded) return overloaded(overloaded);
+        }
+        throw e;
+    }
+}
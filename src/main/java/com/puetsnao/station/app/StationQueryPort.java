@@ -5,5 +5,11 @@ import java.util.List;
 public interface StationQueryPort {
     List<StationLocation> stations();
 
+    // Reference data as of the last invalidation on any instance; stations are inserted or deleted, never moved in place
+    StationSnapshot snapshot();
+
+    // Called by station writers after their commit; the next snapshot() on every instance reads the table again
+    void invalidate();
+
     record StationLocation(String state, double latitude, double longitude) {}
-}
\ No newline at end of file
+}
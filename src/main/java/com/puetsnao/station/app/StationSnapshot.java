@@ -0,0 +1,170 @@
+package com.puetsnao.station.app;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable station reference data in primitive columns, sorted by id. States are interned to small indexes and
+ * the per-state centroids are computed once when the snapshot is built.
+ */
+public final class StationSnapshot {
+
+    private final long[] ids;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final int[] stateIndexes;
+    private final String[] states;
+    private final double[] centroidLatitudes;
+    private final double[] centroidLongitudes;
+
+    private StationSnapshot(long[] ids, double[] latitudes, double[] longitudes, int[] stateIndexes, String[] states) {
+        this.ids = ids;
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.stateIndexes = stateIndexes;
+        this.states = states;
+        this.centroidLatitudes = new double[states.length];
+        this.centroidLongitudes = new double[states.length];
+        int[] counts = new int[states.length];
+        for (int i = 0; i < ids.length; i++) {
+            int s = stateIndexes[i];
+            centroidLatitudes[s] += latitudes[i];
+            centroidLongitudes[s] += longitudes[i];
+            counts[s]++;
+        }
+        for (int s = 0; s < states.length; s++) {
+            centroidLatitudes[s] /= counts[s];
+            centroidLongitudes[s] /= counts[s];
+        }
+    }
+
+    public static StationSnapshot empty() {
+        return builder(0).build();
+    }
+
+    /**
+     * Snapshot of locations without ids; ids are their positions in the list.
+     */
+    public static StationSnapshot of(List<StationQueryPort.StationLocation> locations) {
+        Builder builder = builder(locations.size());
+        for (int i = 0; i < locations.size(); i++) {
+            StationQueryPort.StationLocation location = locations.get(i);
+            builder.add(i, location.state(), location.latitude(), location.longitude());
+        }
+        return builder.build();
+    }
+
+    public static Builder builder(int expectedSize) {
+        return new Builder(expectedSize);
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public long id(int i) {
+        return ids[i];
+    }
+
+    public String state(int i) {
+        return states[stateIndexes[i]];
+    }
+
+    public double latitude(int i) {
+        return latitudes[i];
+    }
+
+    public double longitude(int i) {
+        return longitudes[i];
+    }
+
+    /**
+     * Position of the station with the given id, or a negative number when there is none.
+     */
+    public int indexOf(long id) {
+        return Arrays.binarySearch(ids, id);
+    }
+
+    /**
+     * Average station location per state.
+     */
+    public Map<String, Centroid> stateCentroids() {
+        Map<String, Centroid> centroids = new HashMap<>(states.length * 2);
+        for (int s = 0; s < states.length; s++) {
+            centroids.put(states[s], new Centroid(centroidLatitudes[s], centroidLongitudes[s]));
+        }
+        return centroids;
+    }
+
+    public List<StationQueryPort.StationLocation> locations() {
+        StationQueryPort.StationLocation[] locations = new StationQueryPort.StationLocation[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            locations[i] = new StationQueryPort.StationLocation(state(i), latitudes[i], longitudes[i]);
+        }
+        return List.of(locations);
+    }
+
+    public record Centroid(double latitude, double longitude) {}
+
+    public static final class Builder {
+
+        private long[] ids;
+        private double[] latitudes;
+        private double[] longitudes;
+        private int[] stateIndexes;
+        private final Map<String, Integer> states = new HashMap<>();
+        private int size;
+
+        private Builder(int expectedSize) {
+            int capacity = Math.max(expectedSize, 16);
+            ids = new long[capacity];
+            latitudes = new double[capacity];
+            longitudes = new double[capacity];
+            stateIndexes = new int[capacity];
+        }
+
+        public Builder add(long id, String state, double latitude, double longitude) {
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                latitudes = Arrays.copyOf(latitudes, capacity);
+                longitudes = Arrays.copyOf(longitudes, capacity);
+                stateIndexes = Arrays.copyOf(stateIndexes, capacity);
+            }
+            ids[size] = id;
+            latitudes[size] = latitude;
+            longitudes[size] = longitude;
+            stateIndexes[size] = states.computeIfAbsent(state, s -> states.size());
+            size++;
+            return this;
+        }
+
+        public StationSnapshot build() {
+            String[] stateNames = new String[states.size()];
+            states.forEach((name, index) -> stateNames[index] = name);
+            // stations usually arrive ordered by id; sort only when they did not
+            boolean sorted = true;
+            for (int i = 1; i < size && sorted; i++) sorted = ids[i - 1] < ids[i];
+            if (sorted) {
+                return new StationSnapshot(Arrays.copyOf(ids, size), Arrays.copyOf(latitudes, size),
+                        Arrays.copyOf(longitudes, size), Arrays.copyOf(stateIndexes, size), stateNames);
+            }
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) order[i] = i;
+            Arrays.sort(order, (a, b) -> Long.compare(ids[a], ids[b]));
+            long[] sortedIds = new long[size];
+            double[] sortedLats = new double[size];
+            double[] sortedLons = new double[size];
+            int[] sortedStates = new int[size];
+            for (int i = 0; i < size; i++) {
+                sortedIds[i] = ids[order[i]];
+                sortedLats[i] = latitudes[order[i]];
+                sortedLons[i] = longitudes[order[i]];
+                sortedStates[i] = stateIndexes[order[i]];
+            }
+            return new StationSnapshot(sortedIds, sortedLats, sortedLons, sortedStates, stateNames);
+        }
+    }
+}
@@ -1,27 +1,116 @@
 package com.puetsnao.station.infrastructure;
 
+import com.puetsnao.shared.cache.VersionStore;
 import com.puetsnao.station.app.StationQueryPort;
+import com.puetsnao.station.app.StationSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.util.List;
 
+/**
+ * Serves stations from a {@link StationSnapshot} read with plain JDBC, loaded on first use and read again once the
+ * {@code stations} version in the shared {@link VersionStore} moves. Writers call {@link #invalidate()} after their
+ * commit, which bumps it for every instance, not just the one that wrote.
+ * <p>
+ * Stations are inserted and deleted but never updated in place (see {@link StationEntity}), and ids only grow, so
+ * the row count and the highest id change with every write. Rows written outside the application, a delete by
+ * hand or a bulk load, are caught by comparing both with the snapshot's at most once every {@link #RECHECK}; a
+ * difference bumps the version, so the other instances reload too.
+ */
 @Repository
 public class DefaultStationQueryAdapter implements StationQueryPort {
 
-    private final StationRepository stationRepository;
+    private static final Logger log = LoggerFactory.getLogger(DefaultStationQueryAdapter.class);
 
-    public DefaultStationQueryAdapter(StationRepository stationRepository) {
-        this.stationRepository = stationRepository;
+    static final String VERSION_KEY = "stations";
+    static final Duration RECHECK = Duration.ofMinutes(1);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final VersionStore versions;
+    private final Clock clock;
+    private volatile Loaded loaded;
+
+    @Autowired
+    public DefaultStationQueryAdapter(JdbcTemplate jdbcTemplate, VersionStore versions) {
+        this(jdbcTemplate, versions, Clock.systemUTC());
+    }
+
+    DefaultStationQueryAdapter(JdbcTemplate jdbcTemplate, VersionStore versions, Clock clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.versions = versions;
+        this.clock = clock;
     }
 
     @Override
     public List<StationLocation> stations() {
-        return stationRepository.findAll().stream()
-                .map(e -> new StationLocation(
-                        e.getState(),
-                        e.getLatitude().doubleValue(),
-                        e.getLongitude().doubleValue()
-                ))
-                .toList();
+        return snapshot().locations();
+    }
+
+    @Override
+    public StationSnapshot snapshot() {
+        // read before loading: an invalidation during the load only costs one more reload
+        long current = versions.version(VERSION_KEY);
+        Loaded snapshot = loaded;
+        if (snapshot != null && snapshot.version() == current && !recheckDue(snapshot)) return snapshot.snapshot();
+        synchronized (this) {
+            current = versions.version(VERSION_KEY);
+            snapshot = loaded;
+            if (snapshot != null && snapshot.version() == current) {
+                if (!recheckDue(snapshot)) return snapshot.snapshot();
+                if (snapshot.stamp().equals(stamp())) {
+                    loaded = snapshot.checkedAt(clock.millis());
+                    return snapshot.snapshot();
+                }
+                log.info("Stations changed outside the application; reloading the snapshot");
+                invalidate();
+                current = versions.version(VERSION_KEY);
+            }
+            loaded = load(current);
+            log.info("Station snapshot loaded with {} stations", loaded.snapshot().size());
+            return loaded.snapshot();
+        }
+    }
+
+    @Override
+    public void invalidate() {
+        versions.bump(List.of(VERSION_KEY));
+    }
+
+    private boolean recheckDue(Loaded snapshot) {
+        return clock.millis() - snapshot.checkedAt() >= RECHECK.toMillis();
+    }
+
+    private Stamp stamp() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*), COALESCE(MAX(id), 0) FROM station",
+                (rs, i) -> new Stamp(rs.getLong(1), rs.getLong(2)));
+    }
+
+    private Loaded load(long version) {
+        long checkedAt = clock.millis();
+        StationSnapshot.Builder builder = StationSnapshot.builder(0);
+        long[] maxId = {0};
+        jdbcTemplate.query(
+                "SELECT id, state, latitude, longitude FROM station ORDER BY id",
+                rs -> {
+                    maxId[0] = rs.getLong("id");
+                    builder.add(maxId[0], rs.getString("state"), rs.getDouble("latitude"), rs.getDouble("longitude"));
+                });
+        StationSnapshot stations = builder.build();
+        return new Loaded(version, new Stamp(stations.size(), maxId[0]), checkedAt, stations);
+    }
+
+    // what the snapshot was read from: the row count and the highest id
+    private record Stamp(long rows, long maxId) {}
+
+    private record Loaded(long version, Stamp stamp, long checkedAt, StationSnapshot snapshot) {
+        Loaded checkedAt(long now) {
+            return new Loaded(version, stamp, now, snapshot);
+        }
     }
 }
@@ -17,13 +17,15 @@ public class StationEntity {
     @Column(nullable = false, length = 255)
     private String name;
 
-    @Column(nullable = false, length = 64)
+    // Location is fixed once written: the station snapshot, the H3 index and the summaries built from it are never
+    // recomputed for a moved station, so a relocation is a new station and the old one is deleted.
+    @Column(nullable = false, length = 64, updatable = false)
     private String state;
 
-    @Column(nullable = false, precision = 9, scale = 6)
+    @Column(nullable = false, precision = 9, scale = 6, updatable = false)
     private BigDecimal latitude;
 
-    @Column(nullable = false, precision = 9, scale = 6)
+    @Column(nullable = false, precision = 9, scale = 6, updatable = false)
     private BigDecimal longitude;
 
     public Long getId() { return id; }
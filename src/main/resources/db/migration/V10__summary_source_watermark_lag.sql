@@ -0,0 +1,5 @@
+-- Ids above last_id up to scanned_id were aggregated by the last refresh, which saw scanned_rows of them.
+-- The next refresh counts them again: a different count means a transaction committed late in that range.
+
+ALTER TABLE summary_source_watermark ADD COLUMN scanned_id BIGINT;
+ALTER TABLE summary_source_watermark ADD COLUMN scanned_rows BIGINT;
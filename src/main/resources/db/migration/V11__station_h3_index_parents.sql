@@ -0,0 +1,19 @@
+-- Coarse station_h3_index rows become the parents of the station's H10 cell, the cells its summaries roll up into
+-- (h3_cell_parent), instead of the station's own cell at each resolution. Bbox covers filter by them, so SQL and
+-- in-memory reads keep the same stations. A station whose H10 cell has no parent row yet keeps its cells until it
+-- is indexed again.
+
+UPDATE station_h3_index
+SET h3_cell = (
+    SELECT m.parent_cell
+    FROM station_h3_index i10
+    JOIN h3_cell_parent m ON m.h3_cell = i10.h3_cell AND m.resolution = station_h3_index.resolution
+    WHERE i10.station_id = station_h3_index.station_id AND i10.resolution = 10
+)
+WHERE resolution < 10
+  AND EXISTS (
+    SELECT 1
+    FROM station_h3_index i10
+    JOIN h3_cell_parent m ON m.h3_cell = i10.h3_cell AND m.resolution = station_h3_index.resolution
+    WHERE i10.station_id = station_h3_index.station_id AND i10.resolution = 10
+  );
@@ -0,0 +1,13 @@
+-- Per-source high-water marks for incremental summary refresh
+
+CREATE TABLE IF NOT EXISTS summary_source_watermark (
+    summary VARCHAR(32) NOT NULL,
+    source VARCHAR(32) NOT NULL,
+    last_id BIGINT NOT NULL,
+    updated_at TIMESTAMP NOT NULL,
+    CONSTRAINT pk_summary_source_watermark PRIMARY KEY (summary, source)
+);
+
+-- Touched buckets are re-aggregated by time range, not by station
+CREATE INDEX IF NOT EXISTS idx_price_effective_at ON price(effective_at);
+CREATE INDEX IF NOT EXISTS idx_sales_sold_at ON sales(sold_at);
@@ -0,0 +1,8 @@
+-- Coarse parents (resolutions 5..9) of every indexed H10 cell, used to roll summaries up from H10
+
+CREATE TABLE IF NOT EXISTS h3_cell_parent (
+    h3_cell VARCHAR(32) NOT NULL,
+    resolution INT NOT NULL,
+    parent_cell VARCHAR(32) NOT NULL,
+    CONSTRAINT pk_h3_cell_parent PRIMARY KEY (h3_cell, resolution)
+);
@@ -0,0 +1,8 @@
+-- Stations indexed into station_h3_index whose historical buckets have not been rebuilt yet.
+-- Rows are added with the index rows and removed with the watermark advance, so a failed refresh retries them.
+
+CREATE TABLE IF NOT EXISTS summary_pending_station (
+    summary VARCHAR(32) NOT NULL,
+    station_id BIGINT NOT NULL REFERENCES station(id) ON DELETE CASCADE,
+    CONSTRAINT pk_summary_pending_station PRIMARY KEY (summary, station_id)
+);
@@ -22,6 +22,9 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import com.puetsnao.heatmap.infrastructure.cache.DataVersions;
+import com.puetsnao.heatmap.infrastructure.cache.HotKeys;
+import com.puetsnao.shared.cache.LocalVersionStore;
 import com.puetsnao.shared.http.CorsProperties;
 import com.puetsnao.shared.http.DefaultEtagService;
 import com.puetsnao.shared.http.WebCorsConfig;
@@ -33,7 +36,7 @@ import org.springframework.test.context.TestPropertySource;
 @WebMvcTest(controllers = H3HeatmapController.class)
 @AutoConfigureMockMvc
 @EnableConfigurationProperties(CorsProperties.class)
-@Import({WebCorsConfig.class, DefaultEtagService.class})
+@Import({WebCorsConfig.class, DefaultEtagService.class, DataVersions.class, LocalVersionStore.class, HotKeys.class})
 @TestPropertySource(properties = {
         "app.cors.allowed-origins=http://localhost:5173"
 })
@@ -3,6 +3,9 @@ package com.puetsnao.heatmap.api;
 import com.puetsnao.heatmap.application.H3HeatmapService;
 import com.puetsnao.heatmap.domain.H3CellPoint;
 import com.puetsnao.heatmap.domain.Metric;
+import com.puetsnao.heatmap.infrastructure.cache.DataVersions;
+import com.puetsnao.heatmap.infrastructure.cache.HotKeys;
+import com.puetsnao.shared.cache.LocalVersionStore;
 import com.puetsnao.shared.http.DefaultEtagService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -11,10 +14,13 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.time.LocalDate;
 import java.util.List;
 
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
@@ -24,12 +30,13 @@ class H3HeatmapControllerTests {
 
     private MockMvc mockMvc;
     private H3HeatmapService service;
+    private final DataVersions dataVersions = new DataVersions(new LocalVersionStore());
 
     @BeforeEach
     void setup() {
         service = Mockito.mock(H3HeatmapService.class);
         mockMvc = MockMvcBuilders
-                .standaloneSetup(new H3HeatmapController(service, new DefaultEtagService()))
+                .standaloneSetup(new H3HeatmapController(service, new DefaultEtagService(), dataVersions, new HotKeys()))
                 .setMessageConverters(new org.springframework.http.converter.json.MappingJackson2HttpMessageConverter())
                 .build();
     }
@@ -53,4 +60,33 @@ class H3HeatmapControllerTests {
                 .andExpect(jsonPath("$[0].resolution").value(7))
                 .andExpect(jsonPath("$[0].value").value(2.15));
     }
+
+    @Test
+    void answersNotModifiedUntilTheBucketIsRefreshed() throws Exception {
+        when(service.query(Mockito.eq(Metric.PRICE), anyInt(), any(), Mockito.anyString()))
+                .thenReturn(List.of(new H3CellPoint("85283473fffffff", 7, 2.15)));
+        String etag = mockMvc.perform(get("/api/heatmap/h3")
+                        .param("metric", "price")
+                        .param("resolution", "7")
+                        .param("at", "2025-09-01"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/heatmap/h3")
+                        .param("metric", "price")
+                        .param("resolution", "7")
+                        .param("at", "2025-09-01")
+                        .header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+        verify(service, times(1)).query(any(), anyInt(), any(), any());
+
+        dataVersions.h3DaysChanged(List.of(LocalDate.parse("2025-09-01")));
+
+        mockMvc.perform(get("/api/heatmap/h3")
+                        .param("metric", "price")
+                        .param("resolution", "7")
+                        .param("at", "2025-09-01")
+                        .header("If-None-Match", etag))
+                .andExpect(status().isOk());
+    }
 }
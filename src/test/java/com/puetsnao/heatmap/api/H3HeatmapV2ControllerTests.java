@@ -1,7 +1,12 @@
 package com.puetsnao.heatmap.api;
 
 import com.puetsnao.heatmap.application.H3HeatmapV2Service;
+import com.puetsnao.heatmap.domain.H3CellValues;
+import com.puetsnao.heatmap.domain.H3Cells;
 import com.puetsnao.heatmap.domain.Metric;
+import com.puetsnao.heatmap.infrastructure.cache.DataVersions;
+import com.puetsnao.heatmap.infrastructure.cache.HotKeys;
+import com.puetsnao.shared.cache.LocalVersionStore;
 import com.puetsnao.shared.http.DefaultEtagService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -10,9 +15,14 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
-import java.util.List;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -25,16 +35,16 @@ class H3HeatmapV2ControllerTests {
     void setup() {
         service = Mockito.mock(H3HeatmapV2Service.class);
         mockMvc = MockMvcBuilders
-                .standaloneSetup(new H3HeatmapV2Controller(service, new DefaultEtagService()))
-                .setMessageConverters(new org.springframework.http.converter.json.MappingJackson2HttpMessageConverter())
+                .standaloneSetup(new H3HeatmapV2Controller(service, new DefaultEtagService(), new DataVersions(new LocalVersionStore()), new HotKeys()))
+                .setMessageConverters(new H3CellValuesBinaryConverter(), new org.springframework.http.converter.json.MappingJackson2HttpMessageConverter())
                 .build();
     }
 
     @Test
     void returnsMinimalPairs() throws Exception {
-        List<Object[]> pairs = List.of(
-                new Object[]{"85283473fffffff", 2.15},
-                new Object[]{"85283477fffffff", 1.10}
+        H3CellValues pairs = new H3CellValues(
+                new long[]{H3Cells.parse("85283473fffffff"), H3Cells.parse("85283477fffffff")},
+                new double[]{2.15, 1.10}
         );
         Mockito.when(service.queryPairs(Mockito.eq(Metric.PRICE), Mockito.eq(7), Mockito.any(), Mockito.anyString(), Mockito.anyString()))
                 .thenReturn(pairs);
@@ -50,4 +60,32 @@ class H3HeatmapV2ControllerTests {
                 .andExpect(jsonPath("$[0][0]").value("85283473fffffff"))
                 .andExpect(jsonPath("$[0][1]").value(2.15));
     }
+
+    @Test
+    void returnsColumnarBinaryWhenAsked() throws Exception {
+        long first = H3Cells.parse("85283473fffffff");
+        long second = H3Cells.parse("85283477fffffff");
+        Mockito.when(service.queryPairs(Mockito.eq(Metric.PRICE), Mockito.eq(7), Mockito.any(), Mockito.anyString(), Mockito.anyString()))
+                .thenReturn(new H3CellValues(new long[]{first, second}, new double[]{2.15, 1.10}));
+
+        byte[] body = mockMvc.perform(get("/api/v2/heatmap/h3")
+                        .param("metric", "price")
+                        .param("resolution", "7")
+                        .param("at", "2025-09-01")
+                        .param("bbox", "39.0,-75.8,41.4,-73.9")
+                        .accept(H3CellValuesBinaryConverter.MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(H3CellValuesBinaryConverter.MEDIA_TYPE))
+                .andExpect(header().string("Vary", "Accept"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        ByteBuffer buffer = ByteBuffer.wrap(body).order(ByteOrder.LITTLE_ENDIAN);
+        assertThat(body).hasSize(16 + 2 * 12);
+        assertThat(new String(body, 0, 4, StandardCharsets.US_ASCII)).isEqualTo("H3CV");
+        assertThat(buffer.getInt(8)).isEqualTo(2);
+        assertThat(buffer.getLong(16)).isEqualTo(first);
+        assertThat(buffer.getLong(24)).isEqualTo(second);
+        assertThat(buffer.getFloat(32)).isEqualTo(2.15f);
+        assertThat(buffer.getFloat(36)).isEqualTo(1.10f);
+    }
 }
@@ -4,6 +4,9 @@ import com.puetsnao.heatmap.application.HeatmapService;
 import com.puetsnao.heatmap.domain.HeatPoint;
 import com.puetsnao.heatmap.domain.Metric;
 import com.puetsnao.heatmap.domain.Period;
+import com.puetsnao.heatmap.infrastructure.cache.DataVersions;
+import com.puetsnao.heatmap.infrastructure.cache.HotKeys;
+import com.puetsnao.shared.cache.LocalVersionStore;
 import com.puetsnao.shared.http.DefaultEtagService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -28,7 +31,7 @@ class HeatmapControllerTests {
     void setup() {
         heatmapService = Mockito.mock(HeatmapService.class);
         mockMvc = MockMvcBuilders
-                .standaloneSetup(new HeatmapController(heatmapService, new DefaultEtagService()))
+                .standaloneSetup(new HeatmapController(heatmapService, new DefaultEtagService(), new DataVersions(new LocalVersionStore()), new HotKeys()))
                 .setMessageConverters(new org.springframework.http.converter.json.MappingJackson2HttpMessageConverter())
                 .build();
     }
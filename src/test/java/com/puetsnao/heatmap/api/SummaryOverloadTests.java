@@ -0,0 +1,72 @@
+package com.puetsnao.heatmap.api;
+
+import com.puetsnao.shared.concurrency.AdaptiveConcurrencyLimiter;
+import com.puetsnao.shared.concurrency.OverloadedException;
+import com.puetsnao.shared.http.OverloadedExceptionHandler;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.concurrent.Callable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "heatmap.summary-limit.enabled=true")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class SummaryOverloadTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @MockitoBean
+    private AdaptiveConcurrencyLimiter limiter;
+
+    @Test
+    void shedCachedReadReachesTheClientAs503WithRetryAfter() throws Exception {
+        when(limiter.call(any())).thenThrow(new OverloadedException(2));
+        double before = registry.get("heatmap.summary.concurrency.rejected").counter().count();
+
+        // H3BucketSums.baseByDay is @Cacheable(sync = true): the shed read fails inside the cache loader
+        mockMvc.perform(get("/api/v2/heatmap/h3")
+                        .param("metric", "price")
+                        .param("resolution", "7")
+                        .param("bucket", "day")
+                        .param("at", "2024-03-02")
+                        .param("bbox", "39.0,-75.8,41.4,-73.9"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "2"));
+
+        assertThat(registry.get("heatmap.summary.concurrency.rejected").counter().count()).isEqualTo(before + 1);
+    }
+
+    @Test
+    void unwrapsShedReadsFromCacheLoaderFailures() {
+        OverloadedExceptionHandler handler = new OverloadedExceptionHandler();
+        Callable<Object> loader = () -> null;
+
+        ResponseEntity<Void> response = handler.loaderFailed(new Cache.ValueRetrievalException("k", loader,
+                new IllegalStateException(new OverloadedException(3))));
+
+        assertThat(response.getStatusCode().value()).isEqualTo(503);
+        assertThat(response.getHeaders().getFirst("Retry-After")).isEqualTo("3");
+        assertThatThrownBy(() -> handler.loaderFailed(new Cache.ValueRetrievalException("k", loader, new IllegalStateException())))
+                .isInstanceOf(Cache.ValueRetrievalException.class);
+    }
+}
@@ -0,0 +1,76 @@
+package com.puetsnao.heatmap.application;
+
+import com.puetsnao.heatmap.domain.Metric;
+import com.puetsnao.heatmap.domain.Period;
+import com.puetsnao.heatmap.infrastructure.cache.CacheWarmupProperties;
+import com.puetsnao.heatmap.infrastructure.cache.HeatmapCacheEvicted;
+import com.puetsnao.heatmap.infrastructure.cache.HotKeys;
+import com.puetsnao.heatmap.infrastructure.cache.WarmupKey;
+import com.puetsnao.heatmap.infrastructure.summary.LiveH3Aggregator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class CacheWarmerTests {
+
+    private final HeatmapService heatmapService = Mockito.mock(HeatmapService.class);
+    private final H3HeatmapService h3Service = Mockito.mock(H3HeatmapService.class);
+    private final H3BucketSums bucketSums = Mockito.mock(H3BucketSums.class);
+    private final LiveH3Aggregator liveAggregator = Mockito.mock(LiveH3Aggregator.class);
+    private final HotKeys hotKeys = new HotKeys();
+    private final LocalDate today = LocalDate.now();
+    private CacheWarmer warmer;
+
+    @BeforeEach
+    void setup() {
+        // today and yesterday at res 7 and 10, plus last30d
+        CacheWarmupProperties properties = new CacheWarmupProperties(true, 2, List.of(7, 10), null, 10, 1);
+        warmer = new CacheWarmer(properties, hotKeys, heatmapService, h3Service, bucketSums, liveAggregator, Runnable::run);
+    }
+
+    @Test
+    void warmsConfiguredKeysOnStartup() {
+        warmer.onReady();
+
+        verify(heatmapService).heatmap(Metric.PRICE, Period.LAST30D);
+        verify(heatmapService).heatmap(Metric.VOLUME, Period.LAST30D);
+        verify(h3Service, times(8)).byDay(any(), anyInt(), any());
+        verify(h3Service).byDay(Metric.PRICE, 7, today.minusDays(1));
+        // v2: the H10 base for every key, a rollup only below H10
+        verify(bucketSums, times(8)).baseByDay(any(), any());
+        verify(bucketSums, times(4)).rollupByDay(any(), anyInt(), any(), any());
+    }
+
+    @Test
+    void rewarmsOnlyTheEvictedDaysAndObservedKeysOnThem() {
+        LocalDate older = today.minusDays(10);
+        hotKeys.record(WarmupKey.h3(Metric.VOLUME, 9, older));
+        hotKeys.record(WarmupKey.h3(Metric.VOLUME, 9, today.minusDays(20)));
+
+        warmer.onEvicted(new HeatmapCacheEvicted(List.of(older), false));
+
+        verify(h3Service).byDay(Metric.VOLUME, 9, older);
+        verify(h3Service, times(1)).byDay(any(), anyInt(), any());
+        verifyNoInteractions(heatmapService, bucketSums);
+    }
+
+    @Test
+    void skipsDaysServedFromTheLiveAggregation() {
+        Mockito.when(liveAggregator.covers(today)).thenReturn(true);
+
+        warmer.onEvicted(new HeatmapCacheEvicted(List.of(today), true));
+
+        verify(h3Service, never()).byDay(any(), anyInt(), any());
+        verify(heatmapService, times(2)).heatmap(any(), any(Period.class));
+    }
+}
@@ -0,0 +1,160 @@
+package com.puetsnao.heatmap.application;
+
+import com.puetsnao.heatmap.domain.BucketGranularity;
+import com.puetsnao.heatmap.domain.H3CellValues;
+import com.puetsnao.heatmap.domain.Metric;
+import com.puetsnao.heatmap.infrastructure.summary.BboxPushdownProperties;
+import com.puetsnao.heatmap.infrastructure.summary.CellCover;
+import com.puetsnao.heatmap.infrastructure.summary.H3CellSums;
+import com.puetsnao.heatmap.infrastructure.summary.H3CentroidIndex;
+import com.puetsnao.heatmap.infrastructure.summary.H3SummaryRepository;
+import com.uber.h3core.H3Core;
+import com.uber.h3core.util.GeoCoord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.data.Offset.offset;
+import static org.mockito.Mockito.when;
+
+class DefaultH3HeatmapV2ServiceTests {
+
+    private static final String NJ_BBOX = "39.0,-75.8,41.4,-73.9";
+
+    private H3Core h3;
+    private H3SummaryRepository repository;
+    private H3CentroidIndex centroidIndex;
+    private DefaultH3HeatmapV2Service service;
+
+    private long newark;
+    private long newarkNeighbour;
+    private long trenton;
+    private long chicago;
+
+    @BeforeEach
+    void setup() throws Exception {
+        h3 = H3Core.newInstance();
+        repository = Mockito.mock(H3SummaryRepository.class);
+        centroidIndex = new H3CentroidIndex(Mockito.mock(JdbcTemplate.class));
+        service = new DefaultH3HeatmapV2Service(repository, new H3BucketSums(repository), centroidIndex, new BboxPushdownProperties(false, null, null));
+
+        newark = h3.geoToH3(40.7357, -74.1724, 10);
+        newarkNeighbour = h3.h3ToChildren(h3.h3ToParent(newark, 7), 10).stream()
+                .filter(c -> c != newark)
+                .findFirst().orElseThrow();
+        trenton = h3.geoToH3(40.2206, -74.7597, 10);
+        chicago = h3.geoToH3(41.8781, -87.6298, 10);
+        centroidIndex.rebuild(new long[]{newark, newarkNeighbour, trenton, chicago});
+    }
+
+    @Test
+    void rollsUpPriceToParentCellsInsideBbox() {
+        LocalDate day = LocalDate.of(2025, 9, 8);
+        when(repository.h10PriceByDay(day)).thenReturn(H3CellSums.builder(4)
+                .add(newark, 10.0, 4)
+                .add(newarkNeighbour, 6.0, 1)
+                .add(trenton, 9.0, 3)
+                .add(chicago, 100.0, 1)
+                .build());
+
+        H3CellValues result = service.queryPairs(Metric.PRICE, 7, BucketGranularity.DAY, day.toString(), NJ_BBOX);
+
+        long newarkParent = h3.h3ToParent(newark, 7);
+        long trentonParent = h3.h3ToParent(trenton, 7);
+        assertThat(result.size()).isEqualTo(2);
+        for (int i = 0; i < result.size(); i++) {
+            if (result.cell(i) == newarkParent) {
+                assertThat(result.value(i)).isCloseTo(16.0 / 5, offset(1e-9));
+            } else {
+                assertThat(result.cell(i)).isEqualTo(trentonParent);
+                assertThat(result.value(i)).isCloseTo(3.0, offset(1e-9));
+            }
+        }
+        assertThat(result.cell(0)).isLessThan(result.cell(1));
+    }
+
+    @Test
+    void sumsVolumeAtBaseResolution() {
+        LocalDate day = LocalDate.of(2025, 9, 8);
+        when(repository.h10VolumeByDay(day)).thenReturn(H3CellSums.builder(2)
+                .add(newark, 120.0, 0)
+                .add(chicago, 80.0, 0)
+                .build());
+
+        H3CellValues result = service.queryPairs(Metric.VOLUME, 10, BucketGranularity.DAY, day.toString(), NJ_BBOX);
+
+        assertThat(result.size()).isEqualTo(1);
+        assertThat(result.cell(0)).isEqualTo(newark);
+        assertThat(result.value(0)).isCloseTo(120.0, offset(1e-9));
+    }
+
+    @Test
+    void fallsBackToCellCentroidsWhenIndexIsEmpty() {
+        // an unstubbed JdbcTemplate returns no station_h3_index rows
+        H3CentroidIndex emptyIndex = new H3CentroidIndex(Mockito.mock(JdbcTemplate.class));
+        DefaultH3HeatmapV2Service withoutIndex = new DefaultH3HeatmapV2Service(repository, new H3BucketSums(repository), emptyIndex, new BboxPushdownProperties(false, null, null));
+        LocalDate day = LocalDate.of(2025, 9, 8);
+        when(repository.h10VolumeByDay(day)).thenReturn(H3CellSums.builder(2)
+                .add(trenton, 30.0, 0)
+                .add(chicago, 80.0, 0)
+                .build());
+
+        H3CellValues result = withoutIndex.queryPairs(Metric.VOLUME, 10, BucketGranularity.DAY, day.toString(), NJ_BBOX);
+
+        assertThat(result.size()).isEqualTo(1);
+        assertThat(result.cell(0)).isEqualTo(trenton);
+    }
+
+    @Test
+    void pushesCoarseCoverOfBboxIntoRepository() {
+        DefaultH3HeatmapV2Service pushdown = new DefaultH3HeatmapV2Service(repository, new H3BucketSums(repository), centroidIndex, new BboxPushdownProperties(true, 6, 500));
+        LocalDate day = LocalDate.of(2025, 9, 8);
+        ArgumentCaptor<CellCover> cover = ArgumentCaptor.forClass(CellCover.class);
+        when(repository.h10VolumeByDay(Mockito.eq(day), cover.capture())).thenReturn(H3CellSums.builder(1)
+                .add(newark, 120.0, 0)
+                .build());
+
+        H3CellValues result = pushdown.queryPairs(Metric.VOLUME, 10, BucketGranularity.DAY, day.toString(), "40.70,-74.20,40.76,-74.14");
+
+        assertThat(result.size()).isEqualTo(1);
+        assertThat(cover.getValue().resolution()).isEqualTo(6);
+        assertThat(cover.getValue().cells()).contains(h3.h3ToParent(newark, 6));
+        Mockito.verify(repository, Mockito.never()).h10VolumeByDay(day);
+    }
+
+    @Test
+    void coversNoFinerThanTheRequestedResolution() {
+        DefaultH3HeatmapV2Service pushdown = new DefaultH3HeatmapV2Service(repository, new H3BucketSums(repository), centroidIndex, new BboxPushdownProperties(true, 6, 500));
+        LocalDate day = LocalDate.of(2025, 9, 8);
+        long parent = h3.h3ToParent(newark, 5);
+        // a child of the same res 5 cell outside the res 6 cover of a small bbox around Newark
+        Set<Long> near = Set.copyOf(h3.kRing(h3.h3ToParent(newark, 6), 1));
+        long far = h3.h3ToChildren(parent, 10).stream()
+                .filter(c -> !near.contains(h3.h3ToParent(c, 6)))
+                .findFirst().orElseThrow();
+        H3CellSums bucket = H3CellSums.builder(2).add(newark, 120.0, 0).add(far, 30.0, 0).build();
+        // like the index join: a station is read when its cell at the cover resolution is in the cover
+        when(repository.h10VolumeByDay(Mockito.eq(day), Mockito.any(CellCover.class))).thenAnswer(inv -> {
+            CellCover cover = inv.getArgument(1);
+            Set<Long> cells = Arrays.stream(cover.cells()).boxed().collect(Collectors.toSet());
+            return bucket.filter(cell -> cells.contains(h3.h3ToParent(cell, cover.resolution())));
+        });
+
+        GeoCoord center = h3.h3ToGeo(newark);
+        String bbox = (center.lat - 0.001) + "," + (center.lng - 0.001) + "," + (center.lat + 0.001) + "," + (center.lng + 0.001);
+
+        H3CellValues result = pushdown.queryPairs(Metric.VOLUME, 5, BucketGranularity.DAY, day.toString(), bbox);
+
+        assertThat(result.size()).isEqualTo(1);
+        assertThat(result.cell(0)).isEqualTo(parent);
+        assertThat(result.value(0)).isCloseTo(150.0, offset(1e-9));
+    }
+}
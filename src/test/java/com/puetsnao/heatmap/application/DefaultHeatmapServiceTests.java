@@ -6,6 +6,7 @@ import com.puetsnao.heatmap.domain.Period;
 import com.puetsnao.price.app.PriceQueryPort;
 import com.puetsnao.sales.app.SalesQueryPort;
 import com.puetsnao.station.app.StationQueryPort;
+import com.puetsnao.station.app.StationSnapshot;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
@@ -26,7 +27,7 @@ public class DefaultHeatmapServiceTests {
         StationQueryPort.StationLocation stA1 = new StationQueryPort.StationLocation("STA", 10.0, 20.0);
         StationQueryPort.StationLocation stA2 = new StationQueryPort.StationLocation("STA", 12.0, 24.0);
         StationQueryPort.StationLocation stB1 = new StationQueryPort.StationLocation("STB", -5.0, 30.0);
-        when(stationQuery.stations()).thenReturn(List.of(stA1, stA2, stB1));
+        when(stationQuery.snapshot()).thenReturn(StationSnapshot.of(List.of(stA1, stA2, stB1)));
 
         when(priceQuery.averagePriceByState(Mockito.any(), Mockito.any())).thenReturn(Map.of(
                 "STA", (100.0 + 200.0) / 2.0,
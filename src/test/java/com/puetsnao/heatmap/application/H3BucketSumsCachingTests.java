@@ -0,0 +1,55 @@
+package com.puetsnao.heatmap.application;
+
+import com.puetsnao.heatmap.domain.BucketGranularity;
+import com.puetsnao.heatmap.domain.H3CellValues;
+import com.puetsnao.heatmap.domain.Metric;
+import com.puetsnao.heatmap.infrastructure.summary.H3CellSums;
+import com.puetsnao.heatmap.infrastructure.summary.H3CentroidIndex;
+import com.puetsnao.heatmap.infrastructure.summary.H3SummaryRepository;
+import com.uber.h3core.H3Core;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+class H3BucketSumsCachingTests {
+
+    @MockitoBean
+    private H3SummaryRepository repository;
+
+    @Autowired
+    private H3HeatmapV2Service service;
+
+    @Autowired
+    private H3CentroidIndex centroidIndex;
+
+    @Test
+    void panningOverSameBucketReadsBaseOnce() throws Exception {
+        H3Core h3 = H3Core.newInstance();
+        LocalDate day = LocalDate.of(2024, 1, 15);
+        long newark = h3.geoToH3(40.7357, -74.1724, 10);
+        long trenton = h3.geoToH3(40.2206, -74.7597, 10);
+        centroidIndex.rebuild(new long[]{newark, trenton});
+        when(repository.h10VolumeByDay(day)).thenReturn(H3CellSums.builder(2)
+                .add(newark, 120.0, 0)
+                .add(trenton, 30.0, 0)
+                .build());
+
+        H3CellValues wide = service.queryPairs(Metric.VOLUME, 7, BucketGranularity.DAY, day.toString(), "39.0,-75.8,41.4,-73.9");
+        H3CellValues north = service.queryPairs(Metric.VOLUME, 7, BucketGranularity.DAY, day.toString(), "40.5,-74.5,41.0,-73.9");
+
+        assertThat(wide.size()).isEqualTo(2);
+        assertThat(north.size()).isEqualTo(1);
+        assertThat(north.cell(0)).isEqualTo(h3.h3ToParent(newark, 7));
+        Mockito.verify(repository, Mockito.times(1)).h10VolumeByDay(day);
+    }
+}
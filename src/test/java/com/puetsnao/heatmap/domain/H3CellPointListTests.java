@@ -0,0 +1,43 @@
+package com.puetsnao.heatmap.domain;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.uber.h3core.H3Core;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class H3CellPointListTests {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void serializesLikeTheRecordList() throws Exception {
+        H3Core h3 = H3Core.newInstance();
+        long a = h3.geoToH3(40.7357, -74.1724, 9);
+        long b = h3.geoToH3(40.2206, -74.7597, 9);
+        H3CellValues values = H3CellValues.sortByCell(new long[]{Math.max(a, b), Math.min(a, b)}, new double[]{2.0, 1.5});
+
+        H3CellPointList list = new H3CellPointList(9, values);
+
+        List<H3CellPoint> expected = List.of(
+                new H3CellPoint(H3Cells.format(Math.min(a, b)), 9, 1.5),
+                new H3CellPoint(H3Cells.format(Math.max(a, b)), 9, 2.0));
+        assertThat(list).isEqualTo(expected);
+        assertThat(mapper.writeValueAsString(list)).isEqualTo(mapper.writeValueAsString(expected));
+    }
+
+    @Test
+    void sortByCellKeepsValuesPaired() {
+        long[] cells = {5, 3, 9, 1, 3, 7};
+        double[] values = {50, 30, 90, 10, 30, 70};
+
+        H3CellValues sorted = H3CellValues.sortByCell(cells, values);
+
+        for (int i = 0; i < sorted.size(); i++) {
+            if (i > 0) assertThat(sorted.cell(i)).isGreaterThanOrEqualTo(sorted.cell(i - 1));
+            assertThat(sorted.value(i)).isEqualTo(sorted.cell(i) * 10.0);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.puetsnao.heatmap.domain;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class H3CellSeriesTests {
+
+    @Test
+    void writesCellsOnceAndDeltaEncodedRows() throws Exception {
+        BucketRange range = BucketRange.parse(BucketGranularity.HOUR, "2025-09-01T00:00", "2025-09-01T04:00");
+        long cell = H3Cells.parse("87283473fffffff");
+        H3CellSeries series = H3CellSeries.builder(range, 7)
+                .put(cell, 0, 3.459)
+                .put(cell, 1, 3.459)
+                .put(cell, 3, 3.447)
+                .build();
+
+        String json = new ObjectMapper().writeValueAsString(series);
+
+        assertThat(json).isEqualTo("{\"bucket\":\"hour\",\"start\":\"2025-09-01T00:00\",\"frames\":4,\"resolution\":7,"
+                + "\"scale\":1000,\"cells\":[\"87283473fffffff\"],\"values\":[[3459,0,null,-12]]}");
+    }
+
+    @Test
+    void openEndedRangesCoverADayOfHoursOrAWeekOfDays() {
+        BucketRange hours = BucketRange.parse(BucketGranularity.HOUR, "2025-09-01", null);
+        BucketRange days = BucketRange.parse(BucketGranularity.DAY, "2025-09-01", null);
+
+        assertThat(hours.frames()).isEqualTo(24);
+        assertThat(hours.days()).hasSize(1);
+        assertThat(days.frames()).isEqualTo(7);
+        assertThat(days.frameOf(days.start().plusDays(3).plusHours(5))).isEqualTo(3);
+    }
+}
@@ -0,0 +1,176 @@
+package com.puetsnao.heatmap.infrastructure.batch;
+
+import com.puetsnao.heatmap.infrastructure.cache.HeatmapCacheInvalidator;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+/**
+ * The H3 refresh end to end on PostgreSQL: partitioned summaries (vendor V8), partition swaps, advisory locks,
+ * watermarks. Skipped where Docker is not available.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "heatmap.summary-refresh.enabled=true",
+        // the test drives the refresh itself
+        "heatmap.summary-refresh.initial-delay-ms=3600000",
+        "spring.flyway.locations=classpath:db/migration,classpath:db/vendor/{vendor}",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.PostgreSQLDialect"
+})
+@ActiveProfiles("test")
+@Testcontainers(disabledWithoutDocker = true)
+class H3SummaryRefreshPostgresTests {
+
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.datasource.driverClassName", postgres::getDriverClassName);
+    }
+
+    @Autowired
+    private H3SummaryRefreshScheduler refresher;
+
+    @Autowired
+    private H3SummaryPartitions partitions;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void refreshesNewStationsIntoSwappedPartitionsAndPicksUpLateCommits() {
+        LocalDate day = LocalDate.of(2031, 3, 3);
+        long station = station("PGREFRESH1", 40.2206, -74.7597);
+        price(null, station, day.atTime(10, 0), "3.0");
+        price(null, station, day.atTime(13, 0), "4.0");
+        sale(station, day.atTime(11, 0), "100.0");
+
+        refresher.refreshH3();
+
+        assertThat(partitions.days(H3SummaryPartitions.DAILY)).contains(day);
+        assertThat(partitions.days(H3SummaryPartitions.HOURLY)).contains(day);
+        Map<String, Object> h10 = daily(day, station, 10);
+        assertThat((BigDecimal) h10.get("price_sum")).isEqualByComparingTo("7.0");
+        assertThat((BigDecimal) h10.get("price_count")).isEqualByComparingTo("2");
+        assertThat((BigDecimal) h10.get("volume_sum")).isEqualByComparingTo("100.0");
+        assertThat((BigDecimal) daily(day, station, 5).get("price_sum")).isEqualByComparingTo("7.0");
+        assertThat(jdbc.queryForObject(
+                "SELECT COUNT(*) FROM hourly_h3_product_summary WHERE bucket_hour >= ? AND bucket_hour < ? AND resolution = 10",
+                Long.class, Timestamp.valueOf(day.atStartOfDay()), Timestamp.valueOf(day.plusDays(1).atStartOfDay())))
+                .isEqualTo(3L);
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM summary_pending_station", Long.class)).isZero();
+        assertThat(jdbc.queryForObject(
+                "SELECT COUNT(*) FROM pg_class WHERE relkind = 'r' AND (relname LIKE 'daily_h3_product_summary_s%' OR relname LIKE 'hourly_h3_product_summary_s%')",
+                Long.class)).isZero();
+
+        // a batch commits after a later one: the first refresh has already passed its id when it becomes visible
+        LocalDate lateDay = day.plusDays(1);
+        long next = jdbc.queryForObject("SELECT MAX(id) FROM price", Long.class) + 1;
+        price(next + 1, station, day.atTime(15, 0), "5.0");
+        refresher.refreshH3();
+        price(next, station, lateDay.atTime(9, 0), "6.0");
+        jdbc.queryForObject("SELECT setval(pg_get_serial_sequence('price', 'id'), ?)", Long.class, next + 1);
+        refresher.refreshH3();
+
+        assertThat((BigDecimal) daily(day, station, 10).get("price_count")).isEqualByComparingTo("3");
+        assertThat((BigDecimal) daily(lateDay, station, 10).get("price_sum")).isEqualByComparingTo("6.0");
+    }
+
+    @Test
+    void swapsADayOnlyUnderItsAdvisoryLockAndDropsExpiredDaysConcurrently() throws Exception {
+        LocalDate day = LocalDate.of(2020, 1, 15);
+        // no DEFAULT partition (vendor V12): a day is only written by swapping it in
+        assertThatThrownBy(() -> jdbc.update(
+                "INSERT INTO daily_h3_product_summary (bucket_date, resolution, h3_cell, product_id) VALUES (?,?,?,?)",
+                day, 10, "8a2a1072b59ffff", 1L))
+                .isInstanceOf(DataAccessException.class)
+                .hasMessageContaining("no partition");
+        try (Connection other = dataSource.getConnection(); Statement st = other.createStatement()) {
+            st.execute("SELECT pg_advisory_lock(hashtext('" + H3SummaryPartitions.DAILY + "'), " + day.toEpochDay() + ")");
+
+            assertThatThrownBy(() -> partitions.swapIn(H3SummaryPartitions.DAILY, day, staging -> { }))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("another instance");
+            assertThat(partitions.days(H3SummaryPartitions.DAILY)).doesNotContain(day);
+            assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM pg_class WHERE relkind = 'r' AND relname LIKE 'daily_h3_product_summary_s20200115%'", Long.class))
+                    .isZero();
+
+            st.execute("SELECT pg_advisory_unlock(hashtext('" + H3SummaryPartitions.DAILY + "'), " + day.toEpochDay() + ")");
+        }
+
+        partitions.swapIn(H3SummaryPartitions.DAILY, day, staging -> { });
+        assertThat(partitions.days(H3SummaryPartitions.DAILY)).contains(day);
+
+        SummaryRefreshProperties retention = new SummaryRefreshProperties(true, null, null, null, null, null, 30, null, null);
+        new H3SummaryPartitions(jdbc, transactionTemplate, retention, mock(HeatmapCacheInvalidator.class)).dropExpired();
+
+        assertThat(partitions.days(H3SummaryPartitions.DAILY)).doesNotContain(day);
+        assertThat(jdbc.queryForObject("SELECT to_regclass(?) IS NULL", Boolean.class,
+                H3SummaryPartitions.partitionName(H3SummaryPartitions.DAILY, day))).isTrue();
+    }
+
+    private Map<String, Object> daily(LocalDate day, long station, int resolution) {
+        return jdbc.queryForMap(
+                """
+                SELECT SUM(s.price_sum) AS price_sum, SUM(s.price_count) AS price_count, SUM(s.volume_sum) AS volume_sum
+                FROM daily_h3_product_summary s
+                WHERE s.bucket_date = ? AND s.resolution = ?
+                  AND s.h3_cell = (SELECT i.h3_cell FROM station_h3_index i WHERE i.station_id = ? AND i.resolution = s.resolution)
+                """,
+                day, resolution, station);
+    }
+
+    private long station(String code, double lat, double lon) {
+        jdbc.update("INSERT INTO station (code, name, state, latitude, longitude) VALUES (?,?,?,?,?)",
+                code, "Station " + code, "NJ", BigDecimal.valueOf(lat), BigDecimal.valueOf(lon));
+        return jdbc.queryForObject("SELECT id FROM station WHERE code = ?", Long.class, code);
+    }
+
+    private void price(Long id, long stationId, LocalDateTime at, String amount) {
+        long productId = jdbc.queryForObject("SELECT MIN(id) FROM product", Long.class);
+        if (id == null) {
+            jdbc.update("INSERT INTO price (station_id, product_id, amount, effective_at) VALUES (?,?,?,?)",
+                    stationId, productId, new BigDecimal(amount), Timestamp.valueOf(at));
+        } else {
+            jdbc.update("INSERT INTO price (id, station_id, product_id, amount, effective_at) VALUES (?,?,?,?,?)",
+                    id, stationId, productId, new BigDecimal(amount), Timestamp.valueOf(at));
+        }
+    }
+
+    private void sale(long stationId, LocalDateTime at, String volume) {
+        long productId = jdbc.queryForObject("SELECT MIN(id) FROM product", Long.class);
+        jdbc.update("INSERT INTO sales (station_id, product_id, sold_at, volume) VALUES (?,?,?,?)",
+                stationId, productId, Timestamp.valueOf(at), new BigDecimal(volume));
+    }
+}
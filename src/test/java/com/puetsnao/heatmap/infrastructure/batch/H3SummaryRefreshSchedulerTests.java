@@ -0,0 +1,53 @@
+package com.puetsnao.heatmap.infrastructure.batch;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.function.LongBinaryOperator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.groups.Tuple.tuple;
+
+class H3SummaryRefreshSchedulerTests {
+
+    @Test
+    void splitsTouchedDaysIntoDailyAndHourlyPartitions() {
+        LocalDate d1 = LocalDate.of(2025, 9, 1);
+        LocalDate d2 = d1.plusDays(1);
+
+        List<H3SummaryRefreshScheduler.Partition> partitions = H3SummaryRefreshScheduler.partitions(new TreeSet<>(List.of(d2, d1)));
+
+        assertThat(partitions)
+                .extracting(H3SummaryRefreshScheduler.Partition::day, H3SummaryRefreshScheduler.Partition::hourly)
+                .containsExactly(tuple(d1, false), tuple(d1, true), tuple(d2, false), tuple(d2, true));
+    }
+
+    @Test
+    void keepsTheLastScannedIdsOpenAndRescansThemOnceALateCommitShowsUp() {
+        // ids 1..5 are assigned; 3 commits after the first run has scanned past it
+        TreeSet<Long> visible = new TreeSet<>(List.of(1L, 2L, 4L, 5L));
+        LongBinaryOperator countIds = (fromId, toId) -> visible.subSet(fromId, false, toId, true).size();
+        H3SummaryRefreshScheduler.Watermark start = new H3SummaryRefreshScheduler.Watermark(0, 0, 0);
+
+        assertThat(H3SummaryRefreshScheduler.scanFrom("price", start, countIds)).isZero();
+        H3SummaryRefreshScheduler.Watermark first = H3SummaryRefreshScheduler.scanned(start, 5, countIds);
+        assertThat(first).isEqualTo(new H3SummaryRefreshScheduler.Watermark(0, 5, 4));
+
+        // nothing new in (0..5]: scan from 5 only
+        assertThat(H3SummaryRefreshScheduler.scanFrom("price", first, countIds)).isEqualTo(5);
+
+        visible.add(3L);
+        visible.add(6L);
+        assertThat(H3SummaryRefreshScheduler.scanFrom("price", first, countIds)).isZero();
+        H3SummaryRefreshScheduler.Watermark second = H3SummaryRefreshScheduler.scanned(first, 6, countIds);
+        assertThat(second).isEqualTo(new H3SummaryRefreshScheduler.Watermark(5, 6, 1));
+
+        // (0..5] is closed now; only (5..6] stays open
+        assertThat(H3SummaryRefreshScheduler.scanFrom("price", second, countIds)).isEqualTo(6);
+        H3SummaryRefreshScheduler.Watermark idle = H3SummaryRefreshScheduler.scanned(second, 6, countIds);
+        assertThat(idle).isEqualTo(new H3SummaryRefreshScheduler.Watermark(6, 6, 0));
+        assertThat(H3SummaryRefreshScheduler.scanFrom("price", idle, countIds)).isEqualTo(6);
+    }
+}
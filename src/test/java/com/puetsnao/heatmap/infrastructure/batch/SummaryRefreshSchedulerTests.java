@@ -0,0 +1,109 @@
+package com.puetsnao.heatmap.infrastructure.batch;
+
+import com.puetsnao.heatmap.application.HeatmapService;
+import com.puetsnao.heatmap.domain.HeatPoint;
+import com.puetsnao.heatmap.domain.Metric;
+import com.puetsnao.heatmap.domain.Period;
+import com.puetsnao.heatmap.infrastructure.cache.DataVersions;
+import com.puetsnao.station.app.StationQueryPort;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "heatmap.summary-refresh.enabled=true",
+        // the test drives the refresh itself
+        "heatmap.summary-refresh.initial-delay-ms=3600000",
+        "heatmap.cache.warmup.enabled=true",
+        // the state map only
+        "heatmap.cache.warmup.days=0",
+        "heatmap.cache.warmup.top-observed=0"
+})
+@ActiveProfiles("test")
+class SummaryRefreshSchedulerTests {
+
+    private static final String STATE = "ZQ";
+    private static final String KEY = "heatmap:v2:price:last30d";
+
+    @Autowired
+    private SummaryRefreshScheduler refresher;
+
+    @Autowired
+    private HeatmapService heatmapService;
+
+    @Autowired
+    private StationQueryPort stationQuery;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private DataVersions dataVersions;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    void cleanup() {
+        jdbc.update("DELETE FROM station WHERE state = ?", STATE);
+        jdbc.update("DELETE FROM daily_state_product_summary WHERE state = ?", STATE);
+        stationQuery.invalidate();
+        dataVersions.stateSummaryChanged();
+    }
+
+    @Test
+    void theWarmUpAfterARefreshLoadsTheRefreshedSums() throws InterruptedException {
+        jdbc.update("INSERT INTO station (code, name, state, latitude, longitude) VALUES (?,?,?,?,?)",
+                "REFRESH1", "Station REFRESH1", STATE, BigDecimal.valueOf(40.0), BigDecimal.valueOf(-74.0));
+        stationQuery.invalidate();
+
+        refreshed(3.0, 1);
+        awaitWarmed();
+        assertThat(priceOf(heatmapService.heatmap(Metric.PRICE, Period.LAST30D))).isEqualTo(3.0);
+
+        refreshed(8.0, 2);
+        awaitWarmed();
+
+        // served from the entry the warm-up cached
+        assertThat(priceOf(heatmapService.heatmap(Metric.PRICE, Period.LAST30D))).isEqualTo(4.0);
+    }
+
+    // what refresh() commits; its INSERT ... WITH is PostgreSQL only
+    private void refreshed(double priceSum, long priceCount) {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbc.update("DELETE FROM daily_state_product_summary WHERE state = ?", STATE);
+            jdbc.update(
+                    "INSERT INTO daily_state_product_summary (bucket_date, state, product_id, price_sum, price_count, volume_sum, sale_count) VALUES (?,?,?,?,?,?,?)",
+                    LocalDate.now(), STATE, 1L, priceSum, priceCount, null, null);
+            refresher.summaryRewritten();
+        });
+    }
+
+    // the key is evicted by the time the commit returns; it is back once warmed
+    private void awaitWarmed() throws InterruptedException {
+        Cache cache = cacheManager.getCache("heatmap");
+        for (int i = 0; i < 100 && cache.get(KEY) == null; i++) {
+            Thread.sleep(50);
+        }
+        assertThat(cache.get(KEY)).isNotNull();
+    }
+
+    private static double priceOf(List<HeatPoint> points) {
+        return points.stream().filter(p -> p.state().equals(STATE)).findFirst().orElseThrow().value();
+    }
+}
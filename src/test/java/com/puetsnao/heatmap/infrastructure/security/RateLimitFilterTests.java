@@ -0,0 +1,113 @@
+package com.puetsnao.heatmap.infrastructure.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitFilterTests {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    private final AtomicLong clock = new AtomicLong(1_000 * SECOND);
+    // 10 tokens of burst, one token back per second
+    private final RateLimitProperties properties = new RateLimitProperties(
+            true, 10, 1, 1, "local", 500, 20, 25_000.0, 60L, null);
+    private LocalRateLimiter limiter;
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void setup() {
+        limiter = new LocalRateLimiter(properties, clock::get);
+        filter = new RateLimitFilter(limiter, new RequestCost(properties), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void rejectsOnceTheBurstIsSpentAndRefillsOverTime() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            assertThat(perform(request("/api/heatmap", "10.0.0.1")).getStatus()).isEqualTo(200);
+        }
+        MockHttpServletResponse rejected = perform(request("/api/heatmap", "10.0.0.1"));
+        assertThat(rejected.getStatus()).isEqualTo(429);
+        assertThat(rejected.getHeader("Retry-After")).isEqualTo("1");
+
+        // other clients and health checks have their own budget / none at all
+        assertThat(perform(request("/api/heatmap", "10.0.0.2")).getStatus()).isEqualTo(200);
+        assertThat(perform(request("/api/health", "10.0.0.1")).getStatus()).isEqualTo(200);
+
+        clock.addAndGet(SECOND);
+        assertThat(perform(request("/api/heatmap", "10.0.0.1")).getStatus()).isEqualTo(200);
+        assertThat(perform(request("/api/heatmap", "10.0.0.1")).getStatus()).isEqualTo(429);
+    }
+
+    @Test
+    void chargesH3RequestsByTheCellsTheirBboxCanHold() {
+        RequestCost cost = new RequestCost(properties);
+        // ~0.2° x 0.2° around Trenton is ~380 km²: ~10 res-6 cells; a 0.05° viewport holds ~1600 res-10 cells
+        MockHttpServletRequest coarse = request("/api/v2/heatmap/h3", "10.0.0.1");
+        coarse.setParameter("resolution", "6");
+        coarse.setParameter("bbox", "40.1,-74.9,40.3,-74.7");
+        MockHttpServletRequest fine = request("/api/v2/heatmap/h3", "10.0.0.1");
+        fine.setParameter("resolution", "10");
+        fine.setParameter("bbox", "40.2,-74.8,40.25,-74.75");
+        MockHttpServletRequest unbounded = request("/api/heatmap/h3", "10.0.0.1");
+        unbounded.setParameter("resolution", "10");
+
+        assertThat(cost.of(request("/api/heatmap", "10.0.0.1"))).isEqualTo(1);
+        assertThat(cost.of(coarse)).isEqualTo(1);
+        assertThat(cost.of(fine)).isEqualTo(4);
+        assertThat(cost.of(unbounded)).isEqualTo(20);
+    }
+
+    @Test
+    void chargesSeriesPerFrameUpToTheCap() {
+        RequestCost cost = new RequestCost(properties);
+        MockHttpServletRequest sixHours = request("/api/v2/heatmap/h3/series", "10.0.0.1");
+        sixHours.setParameter("resolution", "6");
+        sixHours.setParameter("bbox", "40.1,-74.9,40.3,-74.7");
+        sixHours.setParameter("from", "2025-09-01T00:00");
+        sixHours.setParameter("to", "2025-09-01T06:00");
+        MockHttpServletRequest week = request("/api/v2/heatmap/h3/series", "10.0.0.1");
+        week.setParameter("resolution", "6");
+        week.setParameter("bbox", "40.1,-74.9,40.3,-74.7");
+        week.setParameter("from", "2025-09-01");
+        week.setParameter("to", "2025-09-08");
+        MockHttpServletRequest invalid = request("/api/v2/heatmap/h3/series", "10.0.0.1");
+        invalid.setParameter("resolution", "6");
+        invalid.setParameter("bbox", "40.1,-74.9,40.3,-74.7");
+
+        assertThat(cost.of(sixHours)).isEqualTo(6);
+        assertThat(cost.of(week)).isEqualTo(20);
+        assertThat(cost.of(invalid)).isEqualTo(20);
+    }
+
+    @Test
+    void dropsBucketsThatStayFullLongerThanTheIdleTimeout() {
+        limiter.tryAcquire("10.0.0.1", 5);
+        limiter.tryAcquire("10.0.0.2", 5);
+        assertThat(limiter.size()).isEqualTo(2);
+
+        clock.addAndGet(120 * SECOND);
+        limiter.tryAcquire("10.0.0.3", 1);
+
+        assertThat(limiter.size()).isEqualTo(1);
+    }
+
+    private MockHttpServletResponse perform(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String path, String remoteAddr) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setRemoteAddr(remoteAddr);
+        return request;
+    }
+}
@@ -0,0 +1,121 @@
+package com.puetsnao.heatmap.infrastructure.summary;
+
+import com.puetsnao.heatmap.domain.BucketGranularity;
+import com.puetsnao.heatmap.domain.BucketRange;
+import com.puetsnao.heatmap.domain.H3CellSeries;
+import com.puetsnao.heatmap.domain.H3Cells;
+import com.puetsnao.heatmap.domain.Metric;
+import com.uber.h3core.H3Core;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.data.Offset.offset;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+class DefaultH3SummaryRepositoryTests {
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private H3SummaryRepository repository;
+
+    private final LocalDate day = LocalDate.of(2025, 9, 8);
+    private H3Core h3;
+    private long newark10;
+    private long chicago10;
+
+    @BeforeEach
+    void setup() throws Exception {
+        h3 = H3Core.newInstance();
+        jdbc.update("DELETE FROM daily_h3_product_summary");
+        jdbc.update("DELETE FROM hourly_h3_product_summary");
+        jdbc.update("DELETE FROM station_h3_index");
+        jdbc.update("DELETE FROM station WHERE code IN ('H3-NWK', 'H3-CHI')");
+
+        newark10 = station("H3-NWK", 40.7357, -74.1724);
+        chicago10 = station("H3-CHI", 41.8781, -87.6298);
+
+        insertDaily(newark10, 1L, 10.0, 4L, 100.0);
+        insertDaily(newark10, 2L, 6.0, 1L, 20.0);
+        insertDaily(chicago10, 1L, 9.0, 3L, 70.0);
+    }
+
+    @Test
+    void h10PriceByDayReturnsSortedCellSums() {
+        H3CellSums sums = repository.h10PriceByDay(day);
+
+        assertThat(sums.size()).isEqualTo(2);
+        assertThat(sums.cell(0)).isLessThan(sums.cell(1));
+        int i = sums.indexOf(newark10);
+        assertThat(sums.sum(i)).isCloseTo(16.0, offset(1e-9));
+        assertThat(sums.count(i)).isEqualTo(5L);
+    }
+
+    @Test
+    void coverRestrictsRowsToStationsInCoarseCells() {
+        long newark6 = h3.h3ToParent(newark10, 6);
+        CellCover cover = new CellCover(6, new long[]{newark6});
+
+        H3CellSums price = repository.h10PriceByDay(day, cover);
+        H3CellSums volume = repository.h10VolumeByDay(day, cover);
+
+        assertThat(price.size()).isEqualTo(1);
+        assertThat(price.cell(0)).isEqualTo(newark10);
+        assertThat(volume.size()).isEqualTo(1);
+        assertThat(volume.sum(0)).isCloseTo(120.0, offset(1e-9));
+    }
+
+    @Test
+    void seriesReadsEveryHourOfTheRangeCellMajor() {
+        insertHourly(newark10, day.atTime(10, 0), 6.0, 2L);
+        insertHourly(newark10, day.atTime(12, 0), 3.5, 1L);
+        insertHourly(chicago10, day.atTime(12, 0), 4.0, 1L);
+        insertHourly(chicago10, day.plusDays(1).atTime(0, 0), 9.0, 1L);
+
+        H3CellSeries series = repository.series(
+                BucketRange.parse(BucketGranularity.HOUR, day.toString(), null), 10, Metric.PRICE);
+
+        assertThat(series.size()).isEqualTo(2);
+        int newark = series.cell(0) == newark10 ? 0 : 1;
+        assertThat(series.value(newark, 10)).isCloseTo(3.0, offset(1e-9));
+        assertThat(series.value(newark, 11)).isNaN();
+        assertThat(series.value(newark, 12)).isCloseTo(3.5, offset(1e-9));
+        assertThat(series.value(1 - newark, 12)).isCloseTo(4.0, offset(1e-9));
+    }
+
+    private long station(String code, double lat, double lon) {
+        jdbc.update("INSERT INTO station (code, name, state, latitude, longitude) VALUES (?,?,?,?,?)",
+                code, code, "NJ", lat, lon);
+        Long id = jdbc.queryForObject("SELECT id FROM station WHERE code = ?", Long.class, code);
+        long h10 = h3.geoToH3(lat, lon, 10);
+        for (int res : new int[]{6, 10}) {
+            jdbc.update("INSERT INTO station_h3_index (station_id, resolution, h3_cell) VALUES (?,?,?)",
+                    id, res, H3Cells.format(h3.h3ToParent(h10, res)));
+        }
+        return h10;
+    }
+
+    private void insertDaily(long cell, Long productId, Double priceSum, Long priceCount, Double volumeSum) {
+        jdbc.update(
+                "INSERT INTO daily_h3_product_summary (bucket_date, resolution, h3_cell, product_id, price_sum, price_count, volume_sum, sale_count) VALUES (?,?,?,?,?,?,?,?)",
+                day, 10, H3Cells.format(cell), productId, priceSum, priceCount, volumeSum, 1L
+        );
+    }
+
+    private void insertHourly(long cell, LocalDateTime hour, Double priceSum, Long priceCount) {
+        jdbc.update(
+                "INSERT INTO hourly_h3_product_summary (bucket_hour, resolution, h3_cell, product_id, price_sum, price_count, volume_sum, sale_count) VALUES (?,?,?,?,?,?,?,?)",
+                hour, 10, H3Cells.format(cell), 1L, priceSum, priceCount, 1.0, 1L
+        );
+    }
+}
@@ -21,7 +21,7 @@ class DefaultSummaryRepositoryTests {
     private JdbcTemplate jdbc;
 
     @Autowired
-    private SummaryRepository summaryRepository;
+    private DefaultSummaryRepository summaryRepository;
 
     private LocalDate d1;
     private LocalDate d2;
@@ -0,0 +1,45 @@
+package com.puetsnao.heatmap.infrastructure.summary;
+
+import com.uber.h3core.H3Core;
+import com.uber.h3core.util.GeoCoord;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class H3CentroidIndexTests {
+
+    @Test
+    void bboxQueryMatchesFullScanOfCentroids() throws Exception {
+        H3Core h3 = H3Core.newInstance();
+        Random random = new Random(7);
+        long[] cells = new long[2000];
+        for (int i = 0; i < cells.length; i++) {
+            double lat = 39.5 + random.nextDouble() * (41.4 - 39.5);
+            double lon = -75.6 + random.nextDouble() * (-73.9 + 75.6);
+            cells[i] = h3.geoToH3(lat, lon, 10);
+        }
+        H3CentroidIndex index = new H3CentroidIndex(Mockito.mock(JdbcTemplate.class));
+        index.rebuild(cells);
+
+        double[][] bboxes = {
+                {40.60, -74.30, 40.80, -74.05},
+                {39.00, -75.80, 41.40, -73.90},
+                {40.123, -74.5, 40.124, -74.4},
+                {45.0, -70.0, 46.0, -69.0}
+        };
+        for (double[] b : bboxes) {
+            long[] expected = Arrays.stream(cells).distinct().filter(c -> {
+                GeoCoord g = h3.h3ToGeo(c);
+                return g.lat >= b[0] && g.lat <= b[2] && g.lng >= b[1] && g.lng <= b[3];
+            }).sorted().toArray();
+            long[] actual = index.cellsWithin(b[0], b[1], b[2], b[3]);
+            Arrays.sort(actual);
+            assertThat(actual).containsExactly(expected);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.puetsnao.heatmap.infrastructure.summary;
+
+import com.puetsnao.heatmap.domain.H3Cells;
+import com.puetsnao.heatmap.infrastructure.cache.DataVersions;
+import com.puetsnao.heatmap.infrastructure.cache.HeatmapCacheInvalidator;
+import com.uber.h3core.H3Core;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+class LiveH3AggregatorTests {
+
+    // far from the days other tests write, so the open days hold only these rows
+    private static final LocalDate DAY = LocalDate.of(2030, 1, 10);
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private final HeatmapCacheInvalidator cacheInvalidator = mock(HeatmapCacheInvalidator.class);
+    private final MutableClock clock = new MutableClock(DAY.atTime(0, 10));
+    private LiveH3Aggregator aggregator;
+    private long productId;
+    private long newark;
+    private long trenton;
+    private long unindexed;
+    private H3Core h3;
+
+    @BeforeEach
+    void setup() throws Exception {
+        h3 = H3Core.newInstance();
+        productId = jdbc.queryForObject("SELECT MIN(id) FROM product", Long.class);
+        newark = station("LIVE1", 40.7357, -74.1724);
+        trenton = station("LIVE2", 40.2206, -74.7597);
+        unindexed = station("LIVE3", 40.5, -74.4);
+        for (long station : List.of(newark, trenton)) {
+            double lat = station == newark ? 40.7357 : 40.2206;
+            double lon = station == newark ? -74.1724 : -74.7597;
+            jdbc.update("INSERT INTO station_h3_index (station_id, resolution, h3_cell) VALUES (?, 10, ?)",
+                    station, H3Cells.format(h3.geoToH3(lat, lon, 10)));
+        }
+        // 20 grace minutes at 00:10 keep yesterday open; two tail rows per batch
+        LiveAggregationProperties properties = new LiveAggregationProperties(true, 2_000L, 20, 2, 60_000L);
+        aggregator = new LiveH3Aggregator(jdbc, properties, cacheInvalidator, mock(DataVersions.class), clock);
+    }
+
+    @AfterEach
+    void cleanup() {
+        // cascades to their price, sales and index rows
+        jdbc.update("DELETE FROM station WHERE code LIKE 'LIVE%'");
+    }
+
+    @Test
+    void liveSumsMatchTheSummaryAggregationThroughSeedTailAndClose() {
+        price(null, newark, DAY.minusDays(3).atTime(9, 0), "1.5");
+        price(null, newark, DAY.minusDays(1).atTime(10, 0), "3.25");
+        price(null, trenton, DAY.minusDays(1).atTime(23, 30), "4.0");
+        price(null, newark, DAY.atTime(0, 5), "5.5");
+        price(null, unindexed, DAY.atTime(0, 6), "9.0");
+        sale(newark, DAY.minusDays(1).atTime(18, 0), "40.0");
+        sale(trenton, DAY.atTime(0, 1), "100.0");
+        sale(trenton, DAY.atTime(0, 2), "25.5");
+
+        // seeds up to two ids short of the newest rows and tails the rest
+        aggregator.catchUp();
+
+        assertThat(aggregator.covers(DAY.minusDays(1))).isTrue();
+        assertMatchesSummary(DAY.minusDays(1));
+        assertMatchesSummary(DAY);
+
+        // a batch commits after a later one: its id is below the tail cursor when it becomes visible
+        long next = jdbc.queryForObject("SELECT MAX(id) FROM price", Long.class) + 1;
+        price(next + 1, trenton, DAY.atTime(0, 8), "7.0");
+        aggregator.catchUp();
+        price(next, newark, DAY.atTime(0, 7), "2.0");
+        aggregator.catchUp();
+
+        assertMatchesSummary(DAY);
+        assertThat(aggregator.h10PriceByDay(DAY).size()).isEqualTo(2);
+
+        // the batch refresh indexes the station whose row the tail skipped
+        jdbc.update("INSERT INTO station_h3_index (station_id, resolution, h3_cell) VALUES (?, 10, ?)",
+                unindexed, H3Cells.format(h3.geoToH3(40.5, -74.4, 10)));
+        aggregator.catchUp();
+
+        assertMatchesSummary(DAY);
+        assertThat(aggregator.h10PriceByDay(DAY).size()).isEqualTo(3);
+
+        clock.set(DAY.atTime(1, 0));
+        aggregator.catchUp();
+
+        assertThat(aggregator.covers(DAY.minusDays(1))).isFalse();
+        assertThat(aggregator.covers(DAY)).isTrue();
+        verify(cacheInvalidator).h3BucketsRewritten(List.of(DAY.minusDays(1)));
+        assertMatchesSummary(DAY);
+    }
+
+    private void assertMatchesSummary(LocalDate day) {
+        assertThat(sums(aggregator.h10PriceByDay(day))).isEqualTo(summary("price", "amount", "effective_at", day, true));
+        assertThat(sums(aggregator.h10VolumeByDay(day))).isEqualTo(summary("sales", "volume", "sold_at", day, false));
+    }
+
+    // what the H10 rows of the daily summary hold for the day: per cell sum (and count for prices)
+    private Map<Long, List<Double>> summary(String table, String column, String timeColumn, LocalDate day, boolean counted) {
+        String sql = """
+                SELECT i.h3_cell, SUM(f.%s) AS total, COUNT(*) AS n
+                FROM %s f
+                JOIN station_h3_index i ON i.station_id = f.station_id AND i.resolution = 10
+                WHERE f.%s >= ? AND f.%s < ?
+                GROUP BY i.h3_cell
+                """.formatted(column, table, timeColumn, timeColumn);
+        return jdbc.query(sql, (ResultSetExtractor<Map<Long, List<Double>>>) rs -> {
+            Map<Long, List<Double>> result = new HashMap<>();
+            while (rs.next()) {
+                result.put(H3Cells.parse(rs.getString("h3_cell")),
+                        List.of(rs.getDouble("total"), counted ? rs.getDouble("n") : 0.0));
+            }
+            return result;
+        }, Timestamp.valueOf(day.atStartOfDay()), Timestamp.valueOf(day.plusDays(1).atStartOfDay()));
+    }
+
+    private static Map<Long, List<Double>> sums(H3CellSums sums) {
+        Map<Long, List<Double>> result = new HashMap<>();
+        for (int i = 0; i < sums.size(); i++) {
+            result.put(sums.cell(i), List.of(sums.sum(i), (double) sums.count(i)));
+        }
+        return result;
+    }
+
+    private long station(String code, double lat, double lon) {
+        jdbc.update("INSERT INTO station (code, name, state, latitude, longitude) VALUES (?,?,?,?,?)",
+                code, "Station " + code, "NJ", BigDecimal.valueOf(lat), BigDecimal.valueOf(lon));
+        return jdbc.queryForObject("SELECT id FROM station WHERE code = ?", Long.class, code);
+    }
+
+    private void price(Long id, long stationId, LocalDateTime at, String amount) {
+        if (id == null) {
+            jdbc.update("INSERT INTO price (station_id, product_id, amount, effective_at) VALUES (?,?,?,?)",
+                    stationId, productId, new BigDecimal(amount), Timestamp.valueOf(at));
+        } else {
+            jdbc.update("INSERT INTO price (id, station_id, product_id, amount, effective_at) VALUES (?,?,?,?,?)",
+                    id, stationId, productId, new BigDecimal(amount), Timestamp.valueOf(at));
+        }
+    }
+
+    private void sale(long stationId, LocalDateTime at, String volume) {
+        jdbc.update("INSERT INTO sales (station_id, product_id, sold_at, volume) VALUES (?,?,?,?)",
+                stationId, productId, Timestamp.valueOf(at), new BigDecimal(volume));
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private final ZoneId zone = ZoneId.systemDefault();
+        private Instant now;
+
+        MutableClock(LocalDateTime now) {
+            set(now);
+        }
+
+        void set(LocalDateTime now) {
+            this.now = now.atZone(zone).toInstant();
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return zone;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
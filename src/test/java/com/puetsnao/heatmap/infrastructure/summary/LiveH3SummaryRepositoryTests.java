@@ -0,0 +1,57 @@
+package com.puetsnao.heatmap.infrastructure.summary;
+
+import com.puetsnao.heatmap.domain.H3CellValues;
+import com.puetsnao.heatmap.domain.H3Cells;
+import com.puetsnao.heatmap.domain.Metric;
+import com.uber.h3core.H3Core;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class LiveH3SummaryRepositoryTests {
+
+    private final DefaultH3SummaryRepository tables = mock(DefaultH3SummaryRepository.class);
+    private final LiveH3Aggregator live = mock(LiveH3Aggregator.class);
+    private final LiveH3SummaryRepository repository = new LiveH3SummaryRepository(tables, live);
+
+    @Test
+    void openDayIsRolledUpFromMemory() throws Exception {
+        H3Core h3 = H3Core.newInstance();
+        LocalDate today = LocalDate.now();
+        long a = h3.geoToH3(40.7357, -74.1724, 10);
+        long b = h3.geoToH3(40.7360, -74.1730, 10);
+        long parent = H3Cells.parent(a, 7);
+        assertThat(H3Cells.parent(b, 7)).isEqualTo(parent);
+        when(live.covers(today)).thenReturn(true);
+        when(live.h10PriceByDay(today)).thenReturn(H3CellSums.builder(2)
+                .add(a, 6.0, 2)
+                .add(b, 4.0, 2)
+                .build());
+
+        H3CellValues values = repository.byDay(today, 7, Metric.PRICE);
+
+        assertThat(values.size()).isEqualTo(1);
+        assertThat(values.cell(0)).isEqualTo(parent);
+        assertThat(values.value(0)).isEqualTo(2.5);
+        verifyNoInteractions(tables);
+    }
+
+    @Test
+    void closedDayAndFineResolutionsReadTheTables() {
+        LocalDate today = LocalDate.now();
+        LocalDate past = today.minusDays(3);
+        when(live.covers(today)).thenReturn(true);
+
+        repository.byDay(past, 7, Metric.VOLUME);
+        repository.byDay(today, 12, Metric.VOLUME);
+
+        verify(tables).byDay(past, 7, Metric.VOLUME);
+        verify(tables).byDay(today, 12, Metric.VOLUME);
+    }
+}
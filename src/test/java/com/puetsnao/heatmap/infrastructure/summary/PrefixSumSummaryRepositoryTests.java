@@ -0,0 +1,124 @@
+package com.puetsnao.heatmap.infrastructure.summary;
+
+import com.puetsnao.heatmap.infrastructure.batch.SummaryRefreshProperties;
+import com.puetsnao.heatmap.infrastructure.cache.DataVersions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.data.Offset.offset;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+class PrefixSumSummaryRepositoryTests {
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private DefaultSummaryRepository sql;
+
+    @Autowired
+    private DataVersions dataVersions;
+
+    @Autowired
+    private SummaryRefreshProperties refreshProperties;
+
+    private final LocalDate today = LocalDate.now();
+    private PrefixSumSummaryRepository prefixSums;
+
+    @BeforeEach
+    void setup() {
+        prefixSums = new PrefixSumSummaryRepository(jdbc, dataVersions, refreshProperties);
+        jdbc.update("DELETE FROM daily_state_product_summary");
+        insertRow(today.minusDays(400), "TX", 1L, 5.0, 1L, 10.0);
+        insertRow(today.minusDays(60), "TX", 1L, 10.0, 2L, 100.0);
+        insertRow(today.minusDays(60), "TX", 2L, 4.0, 1L, 50.0);
+        insertRow(today.minusDays(3), "TX", 1L, 6.0, 2L, 30.0);
+        insertRow(today.minusDays(3), "CA", 1L, null, null, 70.0);
+        insertRow(today, "CA", 2L, 9.0, 3L, null);
+        dataVersions.stateSummaryChanged();
+    }
+
+    @Test
+    void anyRangeMatchesTheSqlAggregation() {
+        LocalDate[][] ranges = {
+                {today.minusDays(7), today},
+                {today.minusDays(90), today},
+                {today.minusDays(365), today},
+                {today.minusDays(1000), today.minusDays(61)},
+                {today.minusDays(60), today.minusDays(60)},
+                {today.plusDays(1), today.plusDays(10)}
+        };
+        for (LocalDate[] range : ranges) {
+            assertThat(prefixSums.averagePriceByState(range[0], range[1]))
+                    .as("price %s..%s", range[0], range[1])
+                    .isEqualTo(sql.averagePriceByState(range[0], range[1]));
+            assertThat(prefixSums.totalVolumeByState(range[0], range[1]))
+                    .as("volume %s..%s", range[0], range[1])
+                    .isEqualTo(sql.totalVolumeByState(range[0], range[1]));
+        }
+    }
+
+    @Test
+    void rereadsTheRefreshWindowBeforeAnsweringOnceTheStateSummaryChanged() {
+        assertThat(prefixSums.totalVolumeByState(today.minusDays(365), today).get("TX")).isCloseTo(180.0, offset(1e-9));
+
+        jdbc.update("DELETE FROM daily_state_product_summary WHERE bucket_date = ?", today.minusDays(3));
+        insertRow(today.minusDays(3), "TX", 1L, 6.0, 2L, 20.0);
+        insertRow(today.minusDays(1), "NY", 1L, 3.0, 1L, 5.0);
+        assertThat(prefixSums.totalVolumeByState(today.minusDays(365), today).get("TX")).isCloseTo(180.0, offset(1e-9));
+
+        dataVersions.stateSummaryChanged();
+
+        assertThat(prefixSums.totalVolumeByState(today.minusDays(365), today))
+                .containsEntry("NY", 5.0)
+                .hasEntrySatisfying("TX", v -> assertThat(v).isCloseTo(170.0, offset(1e-9)))
+                .isEqualTo(sql.totalVolumeByState(today.minusDays(365), today));
+        assertThat(prefixSums.averagePriceByState(today.minusDays(500), today).get("TX")).isCloseTo(25.0 / 6, offset(1e-9));
+    }
+
+    @Test
+    void rebuildsAfterCommitBeforeTheVersionIsBumped() {
+        assertThat(prefixSums.totalVolumeByState(today.minusDays(365), today).get("TX")).isCloseTo(180.0, offset(1e-9));
+
+        insertRow(today.minusDays(2), "TX", 1L, 6.0, 2L, 20.0);
+        prefixSums.rebuildAfterCommit();
+
+        assertThat(prefixSums.totalVolumeByState(today.minusDays(365), today).get("TX")).isCloseTo(200.0, offset(1e-9));
+    }
+
+    @Test
+    void startsOverWhenThereWasNothingToKeepOrOlderRowsAppeared() {
+        jdbc.update("DELETE FROM daily_state_product_summary");
+        dataVersions.stateSummaryChanged();
+        assertThat(prefixSums.totalVolumeByState(today.minusDays(1000), today)).isEmpty();
+
+        // a backfill far outside the refresh window, into a table that was empty
+        insertRow(today.minusDays(400), "TX", 1L, 5.0, 1L, 10.0);
+        dataVersions.stateSummaryChanged();
+        assertThat(prefixSums.totalVolumeByState(today.minusDays(1000), today)).containsEntry("TX", 10.0);
+
+        // older than the first loaded day, and between it and the refresh window
+        insertRow(today.minusDays(500), "CA", 1L, 8.0, 2L, 40.0);
+        insertRow(today.minusDays(200), "TX", 1L, 3.0, 1L, 15.0);
+        dataVersions.stateSummaryChanged();
+        LocalDate from = today.minusDays(1000);
+        assertThat(prefixSums.totalVolumeByState(from, today)).isEqualTo(sql.totalVolumeByState(from, today));
+        assertThat(prefixSums.averagePriceByState(from, today)).isEqualTo(sql.averagePriceByState(from, today));
+        assertThat(prefixSums.totalVolumeByState(from, today)).containsEntry("CA", 40.0).containsEntry("TX", 25.0);
+    }
+
+    private void insertRow(LocalDate date, String state, Long productId, Double priceSum, Long priceCount, Double volumeSum) {
+        jdbc.update(
+                "INSERT INTO daily_state_product_summary (bucket_date, state, product_id, price_sum, price_count, volume_sum, sale_count) VALUES (?,?,?,?,?,?,?)",
+                date, state, productId, priceSum, priceCount, volumeSum, 1L
+        );
+    }
+}
@@ -0,0 +1,68 @@
+package com.puetsnao.ingest.app;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IngestEventReaderTests {
+
+    private final LocalDateTime at = LocalDateTime.of(2025, 9, 8, 10, 0);
+
+    @Test
+    void readsNdjsonLines() throws Exception {
+        String body = """
+                {"type":"price","stationId":1,"productId":2,"at":"2025-09-08T10:00:00","value":3.459}
+                {"type":"sale","stationId":1,"productId":2,"at":"2025-09-08T10:00:00","value":120.5}
+                """;
+        List<IngestEvent> events = new ArrayList<>();
+
+        long n = IngestEventReader.readNdjson(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), events::add);
+
+        assertThat(n).isEqualTo(2);
+        assertThat(events).containsExactly(
+                new IngestEvent(IngestEvent.Type.PRICE, 1, 2, at, 3.459),
+                new IngestEvent(IngestEvent.Type.SALE, 1, 2, at, 120.5));
+    }
+
+    @Test
+    void readsBinaryRecordsAndRejectsTruncatedTail() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(1);
+        out.writeLong(7);
+        out.writeLong(3);
+        out.writeLong(at.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        out.writeDouble(42.0);
+        out.writeByte(0);
+        out.writeLong(7);
+        List<IngestEvent> events = new ArrayList<>();
+
+        assertThatThrownBy(() -> IngestEventReader.readBinary(new ByteArrayInputStream(bytes.toByteArray()), events::add))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(events).containsExactly(new IngestEvent(IngestEvent.Type.SALE, 7, 3, at, 42.0));
+    }
+
+    @Test
+    void rejectsValuesTheirColumnCannotHold() {
+        String body = """
+                {"type":"price","stationId":1,"productId":2,"at":"2025-09-08T10:00:00","value":100000000}
+                """;
+
+        assertThatThrownBy(() -> IngestEventReader.readNdjson(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), e -> { }))
+                .hasRootCauseInstanceOf(IllegalArgumentException.class)
+                .hasRootCauseMessage("price value must be between 0 and 99999999.9999");
+        assertThatThrownBy(() -> new IngestEvent(IngestEvent.Type.SALE, 1, 2, at, -1.0))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(new IngestEvent(IngestEvent.Type.SALE, 1, 2, at, 99_999_999_999.999).value()).isEqualTo(99_999_999_999.999);
+    }
+}
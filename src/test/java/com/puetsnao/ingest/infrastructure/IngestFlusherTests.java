@@ -0,0 +1,181 @@
+package com.puetsnao.ingest.infrastructure;
+
+import com.puetsnao.ingest.app.EventsIngested;
+import com.puetsnao.ingest.app.IngestEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.springframework.boot.web.context.WebServerGracefulShutdownLifecycle;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IngestFlusherTests {
+
+    private static final LocalDateTime AT = LocalDateTime.of(2025, 9, 8, 10, 0);
+
+    @TempDir
+    Path spool;
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private final ApplicationEventPublisher publisher = mock(ApplicationEventPublisher.class);
+
+    @Test
+    void copiesQueuedBatchesIntoStagingAndMovesThemInOneTransaction() throws Exception {
+        Connection con = mock(Connection.class);
+        PGConnection pg = mock(PGConnection.class);
+        CopyManager copy = mock(CopyManager.class);
+        Statement statement = mock(Statement.class);
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(con);
+        when(con.createStatement()).thenReturn(statement);
+        when(con.isWrapperFor(PGConnection.class)).thenReturn(true);
+        when(con.unwrap(PGConnection.class)).thenReturn(pg);
+        when(pg.getCopyAPI()).thenReturn(copy);
+        StringWriter copied = new StringWriter();
+        when(copy.copyIn(anyString(), any(Reader.class))).thenAnswer(inv -> {
+            inv.getArgument(1, Reader.class).transferTo(copied);
+            return copied.toString().lines().count();
+        });
+        when(statement.executeUpdate(contains("INSERT INTO price"))).thenReturn(1);
+        when(statement.executeUpdate(contains("INSERT INTO sales"))).thenReturn(1);
+        CopyEventWriter writer = new CopyEventWriter(new JdbcTemplate(dataSource),
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+        IngestBuffer buffer = buffer(price(1), sale(2), price(999));
+
+        // one batch: station 999 is unknown, so the move keeps one price and one sale
+        IngestFlusher flusher = new IngestFlusher(buffer, writer, new IngestDeadLetters(spool), properties(10),
+                publisher, registry);
+        flusher.start();
+        flusher.stop();
+
+        assertThat(copied.toString()).isEqualTo("""
+                p,1,1,2025-09-08T10:00,3.5
+                s,2,1,2025-09-08T10:00,120.0
+                p,999,1,2025-09-08T10:00,3.5
+                """);
+        verify(copy).copyIn(contains("COPY ingest_stage"), any(Reader.class));
+        verify(con).commit();
+        verify(publisher).publishEvent(new EventsIngested(1, 1));
+        assertThat(registry.get("heatmap.ingest.rows.written").tag("table", "price").counter().count()).isEqualTo(1);
+        assertThat(registry.get("heatmap.ingest.rows.invalid").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void spoolsBatchesThatExhaustTheirAttemptsAndWritesThemOnTheNextStart() throws Exception {
+        CopyEventWriter writer = mock(CopyEventWriter.class);
+        when(writer.write(anyList())).thenThrow(new IllegalStateException("database down"));
+        List<IngestEvent> events = List.of(price(1), sale(2));
+
+        IngestFlusher failing = flusher(buffer(events.toArray(IngestEvent[]::new)), writer);
+        failing.start();
+        failing.stop();
+
+        verify(writer, times(2)).write(events);
+        IngestDeadLetters deadLetters = new IngestDeadLetters(spool);
+        assertThat(deadLetters.pending()).hasSize(1);
+        assertThat(deadLetters.read(deadLetters.pending().get(0))).isEqualTo(events);
+        assertThat(registry.get("heatmap.ingest.events.dead-lettered").counter().count()).isEqualTo(2);
+        assertThat(registry.get("heatmap.ingest.events.dropped").counter().count()).isZero();
+
+        CopyEventWriter recovered = mock(CopyEventWriter.class);
+        when(recovered.write(anyList())).thenReturn(new CopyEventWriter.Written(2, 1, 1));
+        IngestFlusher restarted = flusher(buffer(), recovered);
+        restarted.start();
+        restarted.stop();
+
+        verify(recovered).write(events);
+        assertThat(deadLetters.pending()).isEmpty();
+    }
+
+    @Test
+    void quarantinesASpooledBatchTheDatabaseRejectsAndWritesTheNextOne() throws Exception {
+        IngestDeadLetters deadLetters = new IngestDeadLetters(spool);
+        List<IngestEvent> rejected = List.of(price(1));
+        List<IngestEvent> next = List.of(sale(2));
+        deadLetters.write(rejected);
+        deadLetters.write(next);
+        CopyEventWriter writer = mock(CopyEventWriter.class);
+        when(writer.write(rejected)).thenThrow(new DataIntegrityViolationException("numeric field overflow"));
+        when(writer.write(next)).thenReturn(new CopyEventWriter.Written(1, 0, 1));
+
+        IngestFlusher flusher = flusher(buffer(), writer);
+        flusher.start();
+        flusher.stop();
+
+        verify(writer).write(next);
+        assertThat(deadLetters.pending()).isEmpty();
+        try (Stream<Path> files = Files.list(spool)) {
+            assertThat(files.map(f -> f.getFileName().toString())).singleElement().asString().endsWith(".failed");
+        }
+        assertThat(registry.get("heatmap.ingest.spool.quarantined").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void drainsTheQueueOnShutdownAfterTheWebServer() throws Exception {
+        CopyEventWriter writer = mock(CopyEventWriter.class);
+        when(writer.write(anyList())).thenAnswer(inv -> new CopyEventWriter.Written(inv.getArgument(0, List.class).size(), 0, 0));
+        IngestBuffer buffer = buffer(price(1), price(2), price(3), sale(4), sale(5));
+
+        IngestFlusher flusher = flusher(buffer, writer);
+        flusher.start();
+        flusher.stop();
+
+        // batches of two
+        verify(writer, times(3)).write(anyList());
+        assertThat(buffer.size()).isZero();
+        assertThat(flusher.isRunning()).isFalse();
+        assertThat(flusher.getPhase())
+                .isLessThan(WebServerGracefulShutdownLifecycle.SMART_LIFECYCLE_PHASE - 1024);
+    }
+
+    private IngestFlusher flusher(IngestBuffer buffer, CopyEventWriter writer) {
+        return new IngestFlusher(buffer, writer, new IngestDeadLetters(spool), properties(2), publisher, registry);
+    }
+
+    private IngestBuffer buffer(IngestEvent... events) throws InterruptedException {
+        IngestBuffer buffer = new IngestBuffer(properties(2), new SimpleMeterRegistry());
+        for (IngestEvent event : events) {
+            assertThat(buffer.offer(event)).isTrue();
+        }
+        return buffer;
+    }
+
+    private IngestProperties properties(int batchSize) {
+        return new IngestProperties(true, 100, batchSize, 10L, 100L, 2, spool.toString());
+    }
+
+    private static IngestEvent price(long stationId) {
+        return new IngestEvent(IngestEvent.Type.PRICE, stationId, 1, AT, 3.5);
+    }
+
+    private static IngestEvent sale(long stationId) {
+        return new IngestEvent(IngestEvent.Type.SALE, stationId, 1, AT, 120.0);
+    }
+}
@@ -0,0 +1,77 @@
+package com.puetsnao.shared.cache;
+
+import com.puetsnao.heatmap.domain.H3CellPointList;
+import com.puetsnao.heatmap.domain.H3CellValues;
+import com.puetsnao.heatmap.domain.HeatPoint;
+import com.puetsnao.heatmap.infrastructure.summary.H3CellSums;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HeatmapPayloadSerializerTests {
+
+    // res-10 cells around Trenton are 0x8a2a1...; consecutive indexes differ in the low bits
+    private static final long BASE_CELL = 0x8a2a1072b59ffffL;
+
+    private final HeatmapPayloadSerializer serializer = new HeatmapPayloadSerializer(8192);
+
+    @Test
+    void roundTripsStatePoints() {
+        List<HeatPoint> points = List.of(new HeatPoint("NJ", 40.07, -74.56, 3.459), new HeatPoint("NY", 42.9, -75.5, 3.61));
+
+        assertThat(serializer.deserialize(serializer.serialize(points))).isEqualTo(points);
+        assertThat(serializer.deserialize(serializer.serialize(List.of()))).isEqualTo(List.of());
+    }
+
+    @Test
+    void roundTripsCellPointsAndSumsExactly() {
+        H3CellPointList points = new H3CellPointList(10, cellValues(2_000));
+        H3CellSums sums = H3CellSums.builder(3).add(BASE_CELL, 10.5, 3).add(BASE_CELL + 0x400000L, 2.25, 1).build();
+
+        H3CellPointList decodedPoints = (H3CellPointList) serializer.deserialize(serializer.serialize(points));
+        H3CellSums decodedSums = (H3CellSums) serializer.deserialize(serializer.serialize(sums));
+
+        assertThat(decodedPoints.resolution()).isEqualTo(10);
+        assertThat(decodedPoints).containsExactlyElementsOf(points);
+        assertThat(decodedSums.size()).isEqualTo(2);
+        assertThat(decodedSums.cell(1)).isEqualTo(BASE_CELL + 0x400000L);
+        assertThat(decodedSums.sum(1)).isEqualTo(2.25);
+        assertThat(decodedSums.count(0)).isEqualTo(3);
+    }
+
+    @Test
+    void largePayloadsAreCompressedAndFarSmallerThanJson() throws Exception {
+        H3CellPointList points = new H3CellPointList(10, cellValues(5_000));
+        byte[] uncompressed = new HeatmapPayloadSerializer(0).serialize(points);
+        byte[] compressed = serializer.serialize(points);
+        byte[] json = new ObjectMapper().writeValueAsBytes(points);
+
+        assertThat(compressed.length).isLessThan(uncompressed.length);
+        assertThat(uncompressed.length).isLessThan(json.length / 4);
+        assertThat((H3CellPointList) serializer.deserialize(compressed)).containsExactlyElementsOf(points);
+    }
+
+    @Test
+    void otherValuesFallBackToJsonAndForeignBytesReadAsMiss() {
+        Map<String, Integer> other = new HashMap<>(Map.of("a", 1));
+
+        assertThat(serializer.deserialize(serializer.serialize(other))).isEqualTo(other);
+        assertThat(serializer.deserialize(new GenericJackson2JsonRedisSerializer().serialize(other))).isNull();
+    }
+
+    private static H3CellValues cellValues(int n) {
+        long[] cells = new long[n];
+        double[] values = new double[n];
+        for (int i = 0; i < n; i++) {
+            cells[i] = BASE_CELL + ((long) i << 22);
+            values[i] = 3.0 + (i % 97) / 1000.0;
+        }
+        return new H3CellValues(cells, values);
+    }
+}
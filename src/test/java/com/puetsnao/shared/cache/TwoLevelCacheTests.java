@@ -0,0 +1,98 @@
+package com.puetsnao.shared.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TwoLevelCacheTests {
+
+    private final ConcurrentMapCache remote = new ConcurrentMapCache("heatmap");
+    private final List<String> published = new ArrayList<>();
+    private final TwoLevelCache cache = new TwoLevelCache(remote, Caffeine.newBuilder().build(), published::add,
+            LoadLock.NONE, new TwoLevelCache.Settings(Duration.ofMinutes(5), 0, Duration.ZERO, Duration.ZERO), Runnable::run);
+
+    @Test
+    void nearTierServesValueAfterRemoteHit() {
+        remote.put("heatmap:h3:day:price:9:2025-09-08", List.of());
+
+        assertThat(cache.get("heatmap:h3:day:price:9:2025-09-08")).isNotNull();
+        remote.evict("heatmap:h3:day:price:9:2025-09-08");
+
+        assertThat(cache.get("heatmap:h3:day:price:9:2025-09-08")).isNotNull();
+    }
+
+    @Test
+    void evictMatchingDropsBothTiersAndPublishesPattern() {
+        cache.put("heatmap:h3:day:price:9:2025-09-08", List.of());
+        cache.put("heatmap:h3:hour:price:9:2025-09-08T10:00", List.of());
+        cache.put("heatmap:h3:day:price:9:2025-09-09", List.of());
+
+        CacheEvictions.evictMatching(cache, "heatmap:h3:*:*:*:2025-09-08*");
+
+        assertThat(cache.get("heatmap:h3:day:price:9:2025-09-08")).isNull();
+        assertThat(cache.get("heatmap:h3:hour:price:9:2025-09-08T10:00")).isNull();
+        assertThat(cache.get("heatmap:h3:day:price:9:2025-09-09")).isNotNull();
+        assertThat(published).containsExactly("heatmap:h3:*:*:*:2025-09-08*");
+    }
+
+    @Test
+    void concurrentMissesRunLoaderOnce() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<List<String>>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(pool.submit(() -> cache.get("heatmap:v2:price:last30d", () -> {
+                    loads.incrementAndGet();
+                    release.await(5, TimeUnit.SECONDS);
+                    return List.of("NJ");
+                })));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<List<String>> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).containsExactly("NJ");
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(remote.get("heatmap:v2:price:last30d")).isNotNull();
+    }
+
+    @Test
+    void staleEntryIsServedWhileOneRefreshReplacesIt() throws Exception {
+        List<Runnable> scheduled = new ArrayList<>();
+        TwoLevelCache swr = new TwoLevelCache(remote, Caffeine.newBuilder().build(), published::add, LoadLock.NONE,
+                new TwoLevelCache.Settings(Duration.ofMillis(1), 0, Duration.ZERO, Duration.ofMinutes(5)), scheduled::add);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertThat(swr.get("heatmap:v2:price:last30d", () -> "v" + loads.incrementAndGet())).isEqualTo("v1");
+        Thread.sleep(5);
+        remote.evict("heatmap:v2:price:last30d");
+
+        assertThat(swr.get("heatmap:v2:price:last30d", () -> "v" + loads.incrementAndGet())).isEqualTo("v1");
+        assertThat(swr.get("heatmap:v2:price:last30d", () -> "v" + loads.incrementAndGet())).isEqualTo("v1");
+        assertThat(swr.get("heatmap:v2:price:last30d")).isNull();
+        assertThat(scheduled).hasSize(1);
+        assertThat(loads.get()).isEqualTo(1);
+
+        scheduled.get(0).run();
+
+        assertThat(loads.get()).isEqualTo(2);
+        assertThat(swr.get("heatmap:v2:price:last30d", () -> "v" + loads.incrementAndGet())).isEqualTo("v2");
+    }
+}
@@ -0,0 +1,79 @@
+package com.puetsnao.shared.concurrency;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AdaptiveConcurrencyLimiterTests {
+
+    private static final long MILLIS = 1_000_000L;
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void shedsCallsOverTheLimitUntilOneCompletes() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, 2.0, 0.2, 3, clock::get);
+
+        limiter.call(() -> limiter.call(() -> {
+            assertThat(limiter.inflight()).isEqualTo(2);
+            assertThatThrownBy(() -> limiter.call(() -> 1))
+                    .isInstanceOfSatisfying(OverloadedException.class, e -> assertThat(e.retryAfterSeconds()).isEqualTo(3));
+            return null;
+        }));
+
+        assertThat(limiter.inflight()).isZero();
+        assertThat(limiter.call(() -> 1)).isEqualTo(1);
+    }
+
+    @Test
+    void growsWhileLatencyHoldsAndShrinksOnceReadsQueue() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 2, 100, 2.0, 0.2, 1, clock::get);
+
+        for (int i = 0; i < 20; i++) {
+            limiter.onSample(10 * MILLIS, limiter.limit());
+        }
+        int grown = limiter.limit();
+        assertThat(grown).isGreaterThan(10);
+
+        // mostly idle: no evidence either way
+        for (int i = 0; i < 20; i++) {
+            limiter.onSample(100 * MILLIS, 1);
+        }
+        assertThat(limiter.limit()).isEqualTo(grown);
+
+        // ten times the baseline at the limit: calls are queueing
+        for (int i = 0; i < 30; i++) {
+            limiter.onSample(100 * MILLIS, limiter.limit());
+        }
+        assertThat(limiter.limit()).isLessThan(10).isGreaterThanOrEqualTo(2);
+    }
+
+    @Test
+    void staysDownWhileReadsStaySlowAtTheLimitAndLearnsALatencyThatPersistsUnderLightLoad() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 2, 100, 2.0, 0.2, 1, clock::get);
+        for (int i = 0; i < 20; i++) {
+            limiter.onSample(10 * MILLIS, limiter.limit());
+        }
+
+        // far longer than the baseline window: the saturated slow calls never become the baseline
+        int highest = 0;
+        for (int i = 0; i < 3000; i++) {
+            limiter.onSample(100 * MILLIS, limiter.limit());
+            if (i >= 100) highest = Math.max(highest, limiter.limit());
+        }
+        assertThat(highest).isLessThan(10);
+
+        // the same latency with few calls in flight is not queueing; once it fills the window it is the baseline
+        for (int i = 0; i < 600; i++) {
+            limiter.onSample(100 * MILLIS, 1);
+        }
+        int settled = limiter.limit();
+        for (int i = 0; i < 20; i++) {
+            limiter.onSample(100 * MILLIS, limiter.limit());
+        }
+        assertThat(limiter.limit()).isGreaterThan(settled);
+    }
+}
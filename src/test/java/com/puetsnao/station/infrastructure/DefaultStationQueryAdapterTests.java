@@ -0,0 +1,121 @@
+package com.puetsnao.station.infrastructure;
+
+import com.puetsnao.heatmap.HeatmapApplication;
+import com.puetsnao.shared.cache.LocalVersionStore;
+import com.puetsnao.station.app.StationSnapshot;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.data.Offset.offset;
+
+@SpringBootTest(classes = HeatmapApplication.class, webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+class DefaultStationQueryAdapterTests {
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private DefaultStationQueryAdapter adapter;
+
+    @AfterEach
+    void cleanup() {
+        jdbc.update("DELETE FROM station WHERE code LIKE 'SNAP%'");
+    }
+
+    @Test
+    void keepsTheSnapshotUntilAWriterInvalidatesIt() {
+        insertStation("SNAP1", "ZZ", "10.0", "20.0");
+        insertStation("SNAP2", "ZZ", "12.0", "24.0");
+
+        adapter.invalidate();
+        StationSnapshot first = adapter.snapshot();
+        assertThat(adapter.snapshot()).isSameAs(first);
+        StationSnapshot.Centroid centroid = first.stateCentroids().get("ZZ");
+        assertThat(centroid.latitude()).isCloseTo(11.0, offset(1e-9));
+        assertThat(centroid.longitude()).isCloseTo(22.0, offset(1e-9));
+
+        insertStation("SNAP3", "ZZ", "14.0", "26.0");
+        assertThat(adapter.snapshot()).isSameAs(first);
+
+        adapter.invalidate();
+        StationSnapshot second = adapter.snapshot();
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.size()).isEqualTo(first.size() + 1);
+        assertThat(second.stateCentroids().get("ZZ").latitude()).isCloseTo(12.0, offset(1e-9));
+
+        Long id = jdbc.queryForObject("SELECT id FROM station WHERE code = 'SNAP3'", Long.class);
+        int i = second.indexOf(id);
+        assertThat(i).isNotNegative();
+        assertThat(second.state(i)).isEqualTo("ZZ");
+        assertThat(second.longitude(i)).isCloseTo(26.0, offset(1e-9));
+    }
+
+    @Test
+    void reloadsOnEveryInstanceOnceOneInvalidatesAndCatchesDeletesMadeOutsideTheApplication() {
+        LocalVersionStore shared = new LocalVersionStore();
+        MutableClock clock = new MutableClock();
+        DefaultStationQueryAdapter writer = new DefaultStationQueryAdapter(jdbc, shared, clock);
+        DefaultStationQueryAdapter reader = new DefaultStationQueryAdapter(jdbc, shared, clock);
+        insertStation("SNAP1", "ZZ", "10.0", "20.0");
+        StationSnapshot first = reader.snapshot();
+
+        insertStation("SNAP2", "ZZ", "12.0", "24.0");
+        writer.invalidate();
+        StationSnapshot second = reader.snapshot();
+        assertThat(second.size()).isEqualTo(first.size() + 1);
+
+        // no writer to invalidate: the next recheck notices the count moved
+        jdbc.update("DELETE FROM station WHERE code = 'SNAP1'");
+        assertThat(reader.snapshot()).isSameAs(second);
+        clock.advance(DefaultStationQueryAdapter.RECHECK.toMillis());
+        StationSnapshot third = reader.snapshot();
+        assertThat(third.size()).isEqualTo(first.size());
+        assertThat(third.stateCentroids().get("ZZ").latitude()).isCloseTo(12.0, offset(1e-9));
+
+        // and tells the other instances
+        assertThat(writer.snapshot().size()).isEqualTo(third.size());
+        clock.advance(DefaultStationQueryAdapter.RECHECK.toMillis());
+        assertThat(reader.snapshot()).isSameAs(third);
+    }
+
+    private void insertStation(String code, String state, String lat, String lon) {
+        jdbc.update("INSERT INTO station (code, name, state, latitude, longitude) VALUES (?,?,?,?,?)",
+                code, "Station " + code, state, new BigDecimal(lat), new BigDecimal(lon));
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2025-09-08T10:00:00Z");
+
+        void advance(long millis) {
+            now = now.plusMillis(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}